@@ -0,0 +1,95 @@
+package io.pillopl.library.common.events.idempotency
+
+import io.pillopl.library.commons.events.DomainEvent
+import io.pillopl.library.commons.events.idempotency.ProcessedEvents
+import io.pillopl.library.lending.LendingTestContext
+import io.pillopl.library.lending.patron.model.PatronEvent
+import io.vavr.collection.List
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.jdbc.core.JdbcTemplate
+import spock.lang.Specification
+
+import java.time.Instant
+
+import static io.pillopl.library.lending.book.model.BookFixture.anyBookId
+import static io.pillopl.library.lending.librarybranch.model.LibraryBranchFixture.anyBranch
+import static io.pillopl.library.lending.patron.model.PatronFixture.anyPatronId
+
+@SpringBootTest(classes = LendingTestContext.class)
+class ProcessedEventsIT extends Specification {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate
+
+    ProcessedEvents processedEvents
+
+    def setup() {
+        processedEvents = new ProcessedEvents(jdbcTemplate, "test", 100)
+    }
+
+    def "should handle an event only once"() {
+        given:
+            DomainEvent event = holdExpired()
+            int handled = 0
+        when:
+            2.times { processedEvents.process(event, { handled++ }) }
+        then:
+            handled == 1
+    }
+
+    def "should recognize events processed before the cache was filled"() {
+        given:
+            DomainEvent event = holdExpired()
+            processedEvents.process(event, {})
+        and:
+            ProcessedEvents afterRestart = new ProcessedEvents(jdbcTemplate, "test", 100)
+        expect:
+            !afterRestart.process(event, {})
+    }
+
+    def "should return only not processed events of a batch"() {
+        given:
+            DomainEvent processed = holdExpired()
+            DomainEvent processedBeforeRestart = holdExpired()
+            DomainEvent notProcessed = holdExpired()
+            processedEvents.process(processed, {})
+            new ProcessedEvents(jdbcTemplate, "test", 100).process(processedBeforeRestart, {})
+        expect:
+            processedEvents.unprocessed(List.of(processed, processedBeforeRestart, notProcessed)) == List.of(notProcessed)
+        and:
+            processedEvents.unprocessed(List.of(notProcessed)).isEmpty()
+    }
+
+    def "should track processed events separately for every consumer"() {
+        given:
+            DomainEvent event = holdExpired()
+            processedEvents.process(event, {})
+        expect:
+            new ProcessedEvents(jdbcTemplate, "another", 100).process(event, {})
+    }
+
+    def "should handle an event again once it was purged"() {
+        given:
+            DomainEvent event = holdExpired()
+            processedEvents.process(event, {})
+        when:
+            processedEvents.purgeProcessedBefore(Instant.now().plusSeconds(1))
+        then:
+            new ProcessedEvents(jdbcTemplate, "test", 100).process(event, {})
+    }
+
+    def "should keep events processed after the purge time"() {
+        given:
+            DomainEvent event = holdExpired()
+            processedEvents.process(event, {})
+        when:
+            processedEvents.purgeProcessedBefore(Instant.now().minusSeconds(60))
+        then:
+            !new ProcessedEvents(jdbcTemplate, "test", 100).process(event, {})
+    }
+
+    DomainEvent holdExpired() {
+        return PatronEvent.BookHoldExpired.now(anyBookId(), anyPatronId(), anyBranch())
+    }
+}
@@ -2,6 +2,7 @@ package io.pillopl.library.common.events.publisher;
 
 import io.micrometer.core.instrument.MeterRegistry;
 import io.pillopl.library.commons.events.DomainEvents;
+import io.pillopl.library.commons.events.publisher.BatchEventListeners;
 import io.pillopl.library.commons.events.publisher.JustForwardDomainEventPublisher;
 import io.pillopl.library.commons.events.publisher.MeteredDomainEventPublisher;
 import io.pillopl.library.commons.events.publisher.StoreAndForwardDomainEventPublisher;
@@ -13,12 +14,12 @@ import org.springframework.context.annotation.Primary;
 @Configuration
 public class DomainEventsTestConfig {
 
-    @Bean
+    @Bean(initMethod = "start")
     @Primary
-    DomainEvents domainEventsWithStorage(ApplicationEventPublisher applicationEventPublisher, MeterRegistry meterRegistry) {
+    DomainEvents domainEventsWithStorage(ApplicationEventPublisher applicationEventPublisher, BatchEventListeners batchEventListeners, MeterRegistry meterRegistry) {
         return new StoreAndForwardDomainEventPublisher(
                 new MeteredDomainEventPublisher(
-                        new JustForwardDomainEventPublisher(applicationEventPublisher), meterRegistry),
+                        new JustForwardDomainEventPublisher(applicationEventPublisher, batchEventListeners), meterRegistry),
                 new InMemoryEventsStorage()
         );
     }
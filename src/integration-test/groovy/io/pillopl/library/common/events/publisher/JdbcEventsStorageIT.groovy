@@ -0,0 +1,98 @@
+package io.pillopl.library.common.events.publisher
+
+import io.pillopl.library.commons.events.DomainEvent
+import io.pillopl.library.commons.events.publisher.BinaryDomainEventSerializer
+import io.pillopl.library.commons.events.publisher.EventCodecs
+import io.pillopl.library.commons.events.publisher.JdbcEventsStorage
+import io.pillopl.library.lending.LendingTestContext
+import io.pillopl.library.lending.patron.model.PatronEvent
+import io.vavr.collection.List
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations
+import spock.lang.Specification
+
+import java.time.Duration
+import java.time.Instant
+
+import static io.pillopl.library.catalogue.BookType.Restricted
+import static io.pillopl.library.lending.book.model.BookFixture.anyBookId
+import static io.pillopl.library.lending.librarybranch.model.LibraryBranchFixture.anyBranch
+import static io.pillopl.library.lending.patron.model.PatronFixture.anyPatronId
+
+@SpringBootTest(classes = LendingTestContext.class)
+class JdbcEventsStorageIT extends Specification {
+
+    @Autowired
+    NamedParameterJdbcOperations operations
+
+    @Autowired
+    java.util.List<EventCodecs> codecs
+
+    JdbcEventsStorage storage
+
+    def setup() {
+        storage = new JdbcEventsStorage(operations, new BinaryDomainEventSerializer(List.ofAll(codecs)), 1000,
+                2, Duration.ZERO, Duration.ZERO)
+        operations.getJdbcOperations().update("DELETE FROM domain_events")
+    }
+
+    def "should claim saved events in the order they were appended"() {
+        given:
+            DomainEvent first = bookPlacedOnHold()
+            DomainEvent second = bookPlacedOnHold()
+        when:
+            storage.save(List.of(first, second))
+        then:
+            storage.toPublish() == List.of(first, second)
+    }
+
+    def "should not hand out events claimed by someone else"() {
+        given:
+            storage.save(bookPlacedOnHold())
+        and:
+            storage.toPublish()
+        expect:
+            storage.toPublish().isEmpty()
+    }
+
+    def "should not hand out published events"() {
+        given:
+            DomainEvent event = bookPlacedOnHold()
+            storage.save(event)
+        when:
+            storage.published(storage.toPublish())
+        then:
+            storage.toPublish().isEmpty()
+    }
+
+    def "should dead-letter an event once it failed too many times"() {
+        given:
+            DomainEvent event = bookPlacedOnHold()
+            storage.save(event)
+        expect:
+            storage.failed(storage.toPublish().head(), new IllegalStateException("first"))
+            !storage.failed(storage.toPublish().head(), new IllegalStateException("second"))
+        and:
+            storage.toPublish().isEmpty()
+            storage.deadLetters(10).map { it.eventId } == List.of(event.eventId)
+            storage.deadLetters(10).head().attempts == 2
+    }
+
+    def "should hand out a requeued event again"() {
+        given:
+            DomainEvent event = bookPlacedOnHold()
+            storage.save(event)
+            2.times { storage.failed(event, new IllegalStateException()) }
+        when:
+            boolean requeued = storage.requeue(event.eventId)
+        then:
+            requeued
+            storage.deadLetters(10).isEmpty()
+            storage.toPublish() == List.of(event)
+    }
+
+    DomainEvent bookPlacedOnHold() {
+        return new PatronEvent.BookPlacedOnHold(Instant.now(), anyPatronId().patronId, anyBookId().bookId, Restricted, anyBranch().libraryBranchId, Instant.now(), null)
+    }
+}
@@ -1,19 +1,27 @@
 package io.pillopl.library.lending.book.infrastructure
 
 import io.pillopl.library.catalogue.BookId
+import io.pillopl.library.commons.aggregates.AggregateRootIsStale
+import io.pillopl.library.commons.aggregates.Version
 import io.pillopl.library.lending.LendingTestContext
 import io.pillopl.library.lending.book.model.AvailableBook
 import io.pillopl.library.lending.book.model.Book
+import io.pillopl.library.lending.book.model.BookOnHold
 import io.pillopl.library.lending.librarybranch.model.LibraryBranchId
+import io.pillopl.library.lending.patron.model.HoldDuration
+import io.pillopl.library.lending.patron.model.PatronEvent
 import io.pillopl.library.lending.patron.model.PatronId
+import io.vavr.collection.List
 import io.vavr.control.Option
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.boot.test.context.SpringBootTest
 import spock.lang.Specification
 
+import static io.pillopl.library.catalogue.BookType.Circulating
 import static io.pillopl.library.lending.book.model.BookFixture.anyBookId
 import static io.pillopl.library.lending.book.model.BookFixture.circulatingAvailableBookAt
 import static io.pillopl.library.lending.librarybranch.model.LibraryBranchFixture.anyBranch
+import static io.pillopl.library.lending.patron.model.PatronEvent.BookPlacedOnHold.bookPlacedOnHoldNow
 import static io.pillopl.library.lending.patron.model.PatronFixture.anyPatronId
 
 @SpringBootTest(classes = LendingTestContext.class)
@@ -45,11 +53,48 @@ class BookDatabaseRepositoryIT extends Specification {
             bookIsPersistedAs(AvailableBook.class)
     }
 
+    /**
+     * Verifies that a book which is not new is never inserted, even when there is no row to update.
+     */
+    def 'should not insert a book that is not new'() {
+        given:
+            AvailableBook notNew = new AvailableBook(bookId, Circulating, libraryBranchId, new Version(3))
+        when:
+            bookEntityRepository.save(notNew)
+        then:
+            thrown(AggregateRootIsStale)
+            bookEntityRepository.findBy(bookId).isEmpty()
+    }
+
+    /**
+     * Verifies that books saved in bulk are all saved, except for the stale ones, which are reported.
+     */
+    def 'should save books in bulk and report the stale ones'() {
+        given:
+            AvailableBook first = circulatingAvailableBookAt(libraryBranchId)
+            AvailableBook second = circulatingAvailableBookAt(libraryBranchId)
+            bookEntityRepository.saveAll([first, second])
+        and:
+            bookEntityRepository.save(first.handle(placedOnHold(first, anyPatronId())))
+        when:
+            List<Book> stale = bookEntityRepository.saveAll([
+                    first.handle(placedOnHold(first, patronId)),
+                    second.handle(placedOnHold(second, patronId))])
+        then:
+            stale.map { it.bookId() } == List.of(first.bookId())
+            bookEntityRepository.findBy(second.bookId()).get() instanceof BookOnHold
+            bookEntityRepository.findBy(second.bookId()).get().version == new Version(1)
+    }
+
     void bookIsPersistedAs(Class<?> clz) {
         Book book = loadPersistedBook(bookId)
         assert book.class == clz
     }
 
+    PatronEvent.BookPlacedOnHold placedOnHold(AvailableBook book, PatronId byPatron) {
+        return bookPlacedOnHoldNow(book.bookId, Circulating, libraryBranchId, byPatron, HoldDuration.closeEnded(5))
+    }
+
     Book loadPersistedBook(BookId bookId) {
         Option<Book> loaded = bookEntityRepository.findBy(bookId)
         Book book = loaded.getOrElseThrow({
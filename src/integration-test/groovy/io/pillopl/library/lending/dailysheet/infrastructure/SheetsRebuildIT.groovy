@@ -0,0 +1,168 @@
+package io.pillopl.library.lending.dailysheet.infrastructure
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import io.pillopl.library.commons.events.DomainEvent
+import io.pillopl.library.commons.events.publisher.EventsHistory
+import io.pillopl.library.lending.LendingTestContext
+import io.pillopl.library.lending.patron.model.PatronEvent
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.support.TransactionTemplate
+import spock.lang.Specification
+
+import javax.sql.DataSource
+import java.time.Duration
+import java.time.Instant
+import java.util.function.Consumer
+
+import static io.pillopl.library.catalogue.BookType.Restricted
+import static java.time.Clock.fixed
+import static java.time.Instant.now
+import static java.time.ZoneId.systemDefault
+
+@SpringBootTest(classes = LendingTestContext.class)
+class SheetsRebuildIT extends Specification {
+
+    static final Instant TIME_OF_EXPIRE_CHECK = now()
+
+    @Autowired
+    DataSource dataSource
+
+    @Autowired
+    PlatformTransactionManager transactionManager
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+    InMemoryEventsHistory history = new InMemoryEventsHistory()
+    SheetsReadModel readModel
+    SheetsRebuild rebuild
+
+    def setup() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource)
+        SheetsSwapLock swapLock = new SheetsSwapLock()
+        readModel = new SheetsReadModel(jdbcTemplate, fixed(TIME_OF_EXPIRE_CHECK, systemDefault()), swapLock)
+        rebuild = new SheetsRebuild(jdbcTemplate, history, new TransactionTemplate(transactionManager), swapLock, meterRegistry, 4, 7)
+    }
+
+    def 'should rebuild sheets from the history of events'() {
+        given:
+            100.times { history.append(placedOnHoldTillYesterday(UUID.randomUUID(), UUID.randomUUID())) }
+        and:
+            List<PatronEvent.BookPlacedOnHold> holds = history.events.collect { it as PatronEvent.BookPlacedOnHold }
+            holds.take(30).each { history.append(expired(it)) }
+            holds.drop(30).take(20).each { history.append(checkedOut(it)) }
+        when:
+            long replayed = rebuild.rebuild()
+        then:
+            replayed == 150
+            readModel.queryForHoldsToExpireSheet().count() == 50
+            readModel.queryForCheckoutsToOverdue().count() == 20
+        and:
+            meterRegistry.get("sheets_rebuild_events").counter().count() == 150.0
+    }
+
+    def 'should apply events of a book in the order they were stored'() {
+        given:
+            UUID bookId = UUID.randomUUID()
+            UUID firstPatron = UUID.randomUUID()
+            UUID secondPatron = UUID.randomUUID()
+            PatronEvent.BookPlacedOnHold first = placedOnHoldTillYesterday(bookId, firstPatron)
+            PatronEvent.BookPlacedOnHold second = placedOnHoldTillYesterday(bookId, secondPatron)
+            history.append(first)
+            history.append(expired(first))
+            history.append(second)
+        when:
+            rebuild.rebuild()
+        then:
+            readModel.queryForHoldsToExpireSheet().expiredHolds.map { it.patron.patronId }.toJavaList() == [secondPatron]
+    }
+
+    def 'should not apply replayed events again when they are delivered after the rebuild'() {
+        given:
+            PatronEvent.BookPlacedOnHold notDeliveredYet = placedOnHoldTillYesterday(UUID.randomUUID(), UUID.randomUUID())
+            history.append(notDeliveredYet)
+        and:
+            rebuild.rebuild()
+        when:
+            readModel.handle(notDeliveredYet)
+        then:
+            readModel.queryForHoldsToExpireSheet().expiredHolds.count { it.heldBook.bookId == notDeliveredYet.bookId } == 1
+    }
+
+    def 'should keep an event committed behind the replay and handled meanwhile'() {
+        given:
+            PatronEvent.BookPlacedOnHold committedLate = placedOnHoldTillYesterday(UUID.randomUUID(), UUID.randomUUID())
+            history.appendUncommitted(committedLate)
+            history.append(placedOnHoldTillYesterday(UUID.randomUUID(), UUID.randomUUID()))
+        and:
+            history.afterReplay = {
+                history.afterReplay = {}
+                history.commit(committedLate)
+                readModel.handle(committedLate)
+            }
+        when:
+            rebuild.rebuild()
+        then:
+            readModel.queryForHoldsToExpireSheet().expiredHolds.count { it.heldBook.bookId == committedLate.bookId } == 1
+    }
+
+    PatronEvent.BookPlacedOnHold placedOnHoldTillYesterday(UUID bookId, UUID patronId) {
+        return new PatronEvent.BookPlacedOnHold(
+                now(),
+                patronId,
+                bookId,
+                Restricted,
+                UUID.randomUUID(),
+                TIME_OF_EXPIRE_CHECK.minus(Duration.ofDays(7)),
+                TIME_OF_EXPIRE_CHECK.minus(Duration.ofDays(1)))
+    }
+
+    PatronEvent.BookHoldExpired expired(PatronEvent.BookPlacedOnHold hold) {
+        return new PatronEvent.BookHoldExpired(now(), hold.patronId, hold.bookId, hold.libraryBranchId)
+    }
+
+    PatronEvent.BookCheckedOut checkedOut(PatronEvent.BookPlacedOnHold hold) {
+        return new PatronEvent.BookCheckedOut(now(), hold.patronId, hold.bookId, Restricted, hold.libraryBranchId,
+                TIME_OF_EXPIRE_CHECK.minus(Duration.ofDays(1)))
+    }
+}
+
+class InMemoryEventsHistory implements EventsHistory {
+
+    List<DomainEvent> events = []
+    Set<DomainEvent> uncommitted = [] as Set
+    Closure afterReplay = {}
+
+    void append(DomainEvent event) {
+        events << event
+    }
+
+    void appendUncommitted(DomainEvent event) {
+        events << event
+        uncommitted << event
+    }
+
+    void commit(DomainEvent event) {
+        uncommitted.remove(event)
+    }
+
+    @Override
+    long lastPosition() {
+        return events.size()
+    }
+
+    @Override
+    void replay(long fromExclusive, long toInclusive, Consumer<DomainEvent> consumer) {
+        events.subList((int) fromExclusive, (int) toInclusive)
+                .findAll { !uncommitted.contains(it) }
+                .each { consumer.accept(it) }
+        afterReplay()
+    }
+
+    @Override
+    void replay(Collection<UUID> eventIds, Consumer<DomainEvent> consumer) {
+        events.findAll { eventIds.contains(it.eventId) && !uncommitted.contains(it) }
+                .each { consumer.accept(it) }
+    }
+}
@@ -0,0 +1,189 @@
+package io.pillopl.library.lending.patron.infrastructure
+
+import io.pillopl.library.catalogue.BookId
+import io.pillopl.library.commons.commands.Result
+import io.pillopl.library.commons.events.DomainEvents
+import io.pillopl.library.commons.events.publisher.BinaryDomainEventSerializer
+import io.pillopl.library.lending.LendingTestContext
+import io.pillopl.library.lending.book.model.AvailableBook
+import io.pillopl.library.lending.book.model.BookRepository
+import io.pillopl.library.lending.librarybranch.model.LibraryBranchId
+import io.pillopl.library.lending.patron.application.hold.FindAvailableBook
+import io.pillopl.library.lending.patron.application.hold.PlaceOnHoldCommand
+import io.pillopl.library.lending.patron.application.hold.PlacingOnHold
+import io.pillopl.library.lending.patron.model.HoldDuration
+import io.pillopl.library.lending.patron.model.Patron
+import io.pillopl.library.lending.patron.model.PatronFactory
+import io.pillopl.library.lending.patron.model.PatronId
+import io.pillopl.library.lending.patron.model.Patrons
+import io.vavr.collection.List
+import io.vavr.control.Option
+import io.vavr.control.Try
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.dao.OptimisticLockingFailureException
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.TransactionDefinition
+import org.springframework.transaction.support.TransactionTemplate
+import spock.lang.Specification
+
+import java.time.Instant
+
+import static io.pillopl.library.catalogue.BookType.Circulating
+import static io.pillopl.library.lending.book.model.BookFixture.anyBookId
+import static io.pillopl.library.lending.book.model.BookFixture.circulatingBook
+import static io.pillopl.library.lending.librarybranch.model.LibraryBranchFixture.anyBranch
+import static io.pillopl.library.lending.patron.model.PatronEvent.BookHoldCanceled.holdCanceledNow
+import static io.pillopl.library.lending.patron.model.PatronEvent.BookPlacedOnHold.bookPlacedOnHoldNow
+import static io.pillopl.library.lending.patron.model.PatronEvent.BookPlacedOnHoldEvents
+import static io.pillopl.library.lending.patron.model.PatronEvent.BookPlacedOnHoldEvents.events
+import static io.pillopl.library.lending.patron.model.PatronEvent.PatronCreated
+import static io.pillopl.library.lending.patron.model.PatronFixture.anyPatronId
+import static io.pillopl.library.lending.patron.model.PatronFixture.regularPatron
+import static io.pillopl.library.lending.patron.model.PatronType.Regular
+
+@SpringBootTest(classes = LendingTestContext.class)
+class EventSourcedPatronsIT extends Specification {
+
+    PatronId patronId = anyPatronId()
+    LibraryBranchId libraryBranchId = anyBranch()
+
+    @Autowired
+    JdbcTemplate jdbcTemplate
+
+    @Autowired
+    DomainEvents domainEvents
+
+    @Autowired
+    PlatformTransactionManager transactionManager
+
+    @Autowired
+    FindAvailableBook findAvailableBook
+
+    @Autowired
+    BookRepository bookRepository
+
+    EventSourcedPatrons patrons
+
+    def setup() {
+        patrons = eventSourcedPatrons()
+    }
+
+    EventSourcedPatrons eventSourcedPatrons() {
+        return new EventSourcedPatrons(
+                jdbcTemplate,
+                new BinaryDomainEventSerializer(List.of(new PatronEventCodecs())),
+                new DomainModelMapper(new PatronFactory()),
+                domainEvents,
+                2,
+                new LoadedPatron())
+    }
+
+    def 'should rebuild a patron from its stream of events'() {
+        given:
+            BookId kept = anyBookId()
+            BookId canceled = anyBookId()
+        when:
+            patrons.publish(PatronCreated.now(patronId, Regular))
+            patrons.publish(placedOnHold(kept))
+            patrons.publish(placedOnHold(canceled))
+            patrons.publish(holdCanceledNow(canceled, libraryBranchId, patronId))
+        then:
+            Patron patron = patrons.findBy(patronId).get()
+            patron == regularPatron(patronId)
+            patron.numberOfHolds() == 1
+        and:
+            eventsInStream() == 4
+    }
+
+    def 'should replay only the events following the latest snapshot'() {
+        given:
+            patrons.publish(PatronCreated.now(patronId, Regular))
+            patrons.publish(placedOnHold(anyBookId()))
+            patrons.publish(placedOnHold(anyBookId()))
+        when:
+            jdbcTemplate.update("DELETE FROM patron_event_stream WHERE patron_id = ? AND sequence_number <= 2", patronId.patronId)
+        then:
+            patrons.findBy(patronId).get().numberOfHolds() == 2
+    }
+
+    def 'should place on hold through the command'() {
+        given:
+            patrons.publish(PatronCreated.now(patronId, Regular))
+            AvailableBook book = availableBook()
+        when:
+            Try<Result> result = commandOver(patrons).placeOnHold(placeOnHold(book))
+        then:
+            result.get() == Result.Success
+            patrons.findBy(patronId).get().numberOfHolds() == 1
+    }
+
+    def 'should reject a command on a patron changed after the command found it'() {
+        given:
+            patrons.publish(PatronCreated.now(patronId, Regular))
+            AvailableBook book = availableBook()
+            EventSourcedPatrons otherNode = eventSourcedPatrons()
+            Patrons changedRightAfterFound = [
+                    findBy : { PatronId id ->
+                        Option<Patron> found = patrons.findBy(id)
+                        inNewTransaction { otherNode.publish(List.of(placedOnHold(anyBookId()))) }
+                        return found
+                    },
+                    publish: { event -> patrons.publish(event) }
+            ] as Patrons
+        when:
+            Try<Result> result = commandOver(changedRightAfterFound).placeOnHold(placeOnHold(book))
+        then:
+            result.isFailure()
+            result.getCause() instanceof OptimisticLockingFailureException
+            patrons.findBy(patronId).get().numberOfHolds() == 1
+    }
+
+    def 'should not keep a patron found outside of a transaction'() {
+        given:
+            patrons.publish(PatronCreated.now(patronId, Regular))
+            patrons.findBy(patronId)
+        and:
+            patrons.publish(List.of(placedOnHold(anyBookId())))
+        when:
+            patrons.publish(placedOnHold(anyBookId()))
+        then:
+            patrons.findBy(patronId).get().numberOfHolds() == 2
+    }
+
+    PlacingOnHold commandOver(Patrons patronRepository) {
+        return CommandTransactions.inTransaction(
+                new PlacingOnHold(findAvailableBook, patronRepository),
+                new TransactionTemplate(transactionManager))
+    }
+
+    AvailableBook availableBook() {
+        AvailableBook book = circulatingBook()
+        bookRepository.save(book)
+        return book
+    }
+
+    PlaceOnHoldCommand placeOnHold(AvailableBook book) {
+        return new PlaceOnHoldCommand(Instant.now(), patronId, book.libraryBranch, book.bookId, Option.of(3))
+    }
+
+    void inNewTransaction(Closure change) {
+        TransactionTemplate transactions = new TransactionTemplate(transactionManager)
+        transactions.propagationBehavior = TransactionDefinition.PROPAGATION_REQUIRES_NEW
+        transactions.execute { change() }
+    }
+
+    int eventsInStream() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM patron_event_stream WHERE patron_id = ?", Integer, patronId.patronId)
+    }
+
+    BookPlacedOnHoldEvents placedOnHold(BookId bookId) {
+        return events(bookPlacedOnHoldNow(
+                bookId,
+                Circulating,
+                libraryBranchId,
+                patronId,
+                HoldDuration.closeEnded(5)))
+    }
+}
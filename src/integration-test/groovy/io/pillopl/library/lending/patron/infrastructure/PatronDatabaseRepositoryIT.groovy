@@ -1,6 +1,7 @@
 package io.pillopl.library.lending.patron.infrastructure
 
 
+import io.pillopl.library.catalogue.BookId
 import io.pillopl.library.lending.LendingTestContext
 import io.pillopl.library.lending.librarybranch.model.LibraryBranchId
 import io.pillopl.library.lending.patron.model.HoldDuration
@@ -11,11 +12,16 @@ import io.pillopl.library.lending.patron.model.PatronType
 import io.vavr.control.Option
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.dao.OptimisticLockingFailureException
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.support.TransactionTemplate
 import spock.lang.Specification
 
 import static io.pillopl.library.catalogue.BookType.Circulating
 import static io.pillopl.library.lending.book.model.BookFixture.anyBookId
 import static io.pillopl.library.lending.librarybranch.model.LibraryBranchFixture.anyBranch
+import static io.pillopl.library.lending.patron.model.PatronEvent.BookHoldCanceled.holdCanceledNow
 import static io.pillopl.library.lending.patron.model.PatronEvent.BookPlacedOnHold.bookPlacedOnHoldNow
 import static io.pillopl.library.lending.patron.model.PatronEvent.BookPlacedOnHoldEvents
 import static io.pillopl.library.lending.patron.model.PatronEvent.BookPlacedOnHoldEvents.events
@@ -34,6 +40,12 @@ class PatronDatabaseRepositoryIT extends Specification {
     @Autowired
     Patrons patronRepo
 
+    @Autowired
+    JdbcTemplate jdbcTemplate
+
+    @Autowired
+    PlatformTransactionManager transactionManager
+
     def 'persistence in real database should work'() {
         when:
             patronRepo.publish(patronCreated())
@@ -45,9 +57,80 @@ class PatronDatabaseRepositoryIT extends Specification {
             patronShouldBeFoundInDatabaseWithOneBookOnHold(patronId)
     }
 
+    def 'should keep rows of other holds when a hold is added or removed'() {
+        given:
+            patronRepo.publish(patronCreated())
+            BookId kept = anyBookId()
+            BookId canceled = anyBookId()
+            patronRepo.publish(placedOnHold(kept))
+            Long keptRowId = holdRowIdOf(kept)
+        when:
+            patronRepo.publish(placedOnHold(canceled))
+            patronRepo.publish(holdCanceledNow(canceled, libraryBranchId, patronId))
+        then:
+            holdRowIdOf(kept) == keptRowId
+            loadPersistedPatron(patronId).numberOfHolds() == 1
+    }
+
+    def 'should not serve a patron changed by someone else from the cache'() {
+        given:
+            patronRepo.publish(patronCreated())
+            patronRepo.publish(placedOnHold())
+            patronRepo.findBy(patronId)
+        when:
+            jdbcTemplate.update("DELETE FROM hold_database_entity WHERE patron_id = ?", patronId.patronId)
+            jdbcTemplate.update("UPDATE patron_database_entity SET version = version + 1 WHERE patron_id = ?", patronId.patronId)
+        then:
+            loadPersistedPatron(patronId).numberOfHolds() == 0
+    }
+
+    def 'should refuse to apply an event to a patron changed since it was found in the same transaction'() {
+        given:
+            patronRepo.publish(patronCreated())
+        when:
+            new TransactionTemplate(transactionManager).execute {
+                patronRepo.findBy(patronId)
+                jdbcTemplate.update("UPDATE patron_database_entity SET version = version + 1 WHERE patron_id = ?", patronId.patronId)
+                patronRepo.publish(placedOnHold())
+            }
+        then:
+            thrown(OptimisticLockingFailureException)
+            loadPersistedPatron(patronId).numberOfHolds() == 0
+    }
+
+    def 'should not keep a patron found outside of a transaction'() {
+        given:
+            patronRepo.publish(patronCreated())
+            patronRepo.findBy(patronId)
+        and:
+            jdbcTemplate.update("UPDATE patron_database_entity SET version = version + 1 WHERE patron_id = ?", patronId.patronId)
+        when:
+            patronRepo.publish(placedOnHold())
+        then:
+            loadPersistedPatron(patronId).numberOfHolds() == 1
+    }
+
+    def 'should create patrons published in a batch'() {
+        given:
+            PatronId another = anyPatronId()
+        when:
+            patronRepo.publish(io.vavr.collection.List.of(patronCreated(), PatronCreated.now(another, Regular)))
+        then:
+            patronShouldBeFoundInDatabaseWithZeroBooksOnHold(patronId)
+            patronShouldBeFoundInDatabaseWithZeroBooksOnHold(another)
+    }
+
+    Long holdRowIdOf(BookId bookId) {
+        return jdbcTemplate.queryForObject("SELECT h.id FROM hold_database_entity h WHERE h.book_id = ?", Long, bookId.bookId)
+    }
+
     BookPlacedOnHoldEvents placedOnHold() {
+        return placedOnHold(anyBookId())
+    }
+
+    BookPlacedOnHoldEvents placedOnHold(BookId bookId) {
         return events(bookPlacedOnHoldNow(
-                anyBookId(),
+                bookId,
                 Circulating,
                 libraryBranchId,
                 patronId,
@@ -0,0 +1,115 @@
+package io.pillopl.library.lending.patron.infrastructure
+
+import io.micrometer.core.instrument.MeterRegistry
+import io.pillopl.library.commons.commands.Result
+import io.pillopl.library.lending.LendingTestContext
+import io.pillopl.library.lending.book.model.AvailableBook
+import io.pillopl.library.lending.book.model.BookRepository
+import io.pillopl.library.lending.patron.application.hold.FindAvailableBook
+import io.pillopl.library.lending.patron.application.hold.PlaceOnHoldCommand
+import io.pillopl.library.lending.patron.application.hold.PlacingOnHold
+import io.pillopl.library.lending.patron.model.Patron
+import io.pillopl.library.lending.patron.model.PatronEvent.PatronCreated
+import io.pillopl.library.lending.patron.model.PatronId
+import io.pillopl.library.lending.patron.model.Patrons
+import io.vavr.control.Option
+import io.vavr.control.Try
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.dao.OptimisticLockingFailureException
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.TransactionDefinition
+import org.springframework.transaction.support.TransactionTemplate
+import spock.lang.Specification
+
+import java.time.Instant
+
+import static io.pillopl.library.lending.book.model.BookFixture.circulatingBook
+import static io.pillopl.library.lending.patron.model.PatronFixture.anyPatronId
+import static io.pillopl.library.lending.patron.model.PatronType.Regular
+
+@SpringBootTest(classes = LendingTestContext.class)
+class PlacingOnHoldInTransactionIT extends Specification {
+
+    PatronId patronId = anyPatronId()
+    AvailableBook book = circulatingBook()
+
+    @Autowired
+    PlacingOnHold placingOnHold
+
+    @Autowired
+    FindAvailableBook findAvailableBook
+
+    @Autowired
+    Patrons patronRepo
+
+    @Autowired
+    BookRepository bookRepository
+
+    @Autowired
+    JdbcTemplate jdbcTemplate
+
+    @Autowired
+    PlatformTransactionManager transactionManager
+
+    @Autowired
+    MeterRegistry meterRegistry
+
+    def setup() {
+        bookRepository.save(book)
+        patronRepo.publish(PatronCreated.now(patronId, Regular))
+    }
+
+    def 'should apply the event to the patron found by the command instead of finding it again'() {
+        given:
+            double lookupsBefore = patronCacheLookups()
+        when:
+            Try<Result> result = placingOnHold.placeOnHold(placeOnHold())
+        then:
+            result.get() == Result.Success
+            patronCacheLookups() == lookupsBefore + 1
+            patronRepo.findBy(patronId).get().numberOfHolds() == 1
+    }
+
+    def 'should reject a hold on a patron changed after the command found it'() {
+        given:
+            PlacingOnHold racingCommand = CommandTransactions.inTransaction(
+                    new PlacingOnHold(findAvailableBook, changedRightAfterFound()),
+                    new TransactionTemplate(transactionManager))
+        when:
+            Try<Result> result = racingCommand.placeOnHold(placeOnHold())
+        then:
+            result.isFailure()
+            result.getCause() instanceof OptimisticLockingFailureException
+            patronRepo.findBy(patronId).get().numberOfHolds() == 0
+    }
+
+    Patrons changedRightAfterFound() {
+        return [
+                findBy : { PatronId id ->
+                    Option<Patron> found = patronRepo.findBy(id)
+                    inNewTransaction {
+                        jdbcTemplate.update("UPDATE patron_database_entity SET version = version + 1 WHERE patron_id = ?", id.patronId)
+                    }
+                    return found
+                },
+                publish: { event -> patronRepo.publish(event) }
+        ] as Patrons
+    }
+
+    void inNewTransaction(Closure change) {
+        TransactionTemplate transactions = new TransactionTemplate(transactionManager)
+        transactions.propagationBehavior = TransactionDefinition.PROPAGATION_REQUIRES_NEW
+        transactions.execute { change() }
+    }
+
+    PlaceOnHoldCommand placeOnHold() {
+        return new PlaceOnHoldCommand(Instant.now(), patronId, book.libraryBranch, book.bookId, Option.of(3))
+    }
+
+    double patronCacheLookups() {
+        return meterRegistry.counter("patron_cache", "result", "hit").count() +
+                meterRegistry.counter("patron_cache", "result", "miss").count()
+    }
+}
@@ -0,0 +1,192 @@
+package io.pillopl.library.lending.patronprofile.infrastructure
+
+import io.pillopl.library.catalogue.BookId
+import io.pillopl.library.lending.LendingTestContext
+import io.pillopl.library.lending.librarybranch.model.LibraryBranchId
+import io.pillopl.library.lending.patron.model.PatronEvent
+import io.pillopl.library.lending.patron.model.PatronId
+import io.pillopl.library.lending.patronprofile.model.ProfileChange
+import io.pillopl.library.lending.patronprofile.model.ProfileChanges
+import io.vavr.collection.List
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.jdbc.datasource.DataSourceTransactionManager
+import org.springframework.transaction.support.TransactionTemplate
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import javax.sql.DataSource
+import java.sql.Timestamp
+import java.time.Clock
+import java.time.Duration
+import java.time.Instant
+import java.util.concurrent.CountDownLatch
+
+import static io.pillopl.library.catalogue.BookType.Restricted
+import static io.pillopl.library.lending.book.model.BookFixture.anyBookId
+import static io.pillopl.library.lending.librarybranch.model.LibraryBranchFixture.anyBranch
+import static io.pillopl.library.lending.patron.model.PatronFixture.anyPatronId
+import static io.pillopl.library.lending.patronprofile.model.ProfileChange.Type.CHECKED_OUT
+import static io.pillopl.library.lending.patronprofile.model.ProfileChange.Type.HOLD_PLACED
+import static java.time.Instant.now
+
+@SpringBootTest(classes = LendingTestContext.class)
+class ProfileChangesReadModelIT extends Specification {
+
+    PatronId patronId = anyPatronId()
+    LibraryBranchId libraryBranchId = anyBranch()
+    BookId bookId = anyBookId()
+
+    static final Instant TOMORROW = now().plus(Duration.ofDays(1))
+
+    @Autowired
+    DataSource dataSource
+
+    ProfileChangesReadModel profileChanges
+
+    TransactionTemplate transactions
+
+    def setup() {
+        transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource))
+        profileChanges = new ProfileChangesReadModel(new JdbcTemplate(dataSource), transactions)
+    }
+
+    def cleanup() {
+        profileChanges.close()
+    }
+
+    def 'should return changes of a patron after the cursor'() {
+        given:
+            profileChanges.handle(placedOnHold(patronId))
+            profileChanges.handle(placedOnHold(anyPatronId()))
+            profileChanges.handle(checkedOut())
+        when:
+            List<ProfileChange> changes = profileChanges.after(patronId, 0, 10)
+        then:
+            changes.map { it.type } == List.of(HOLD_PLACED, CHECKED_OUT)
+        and:
+            profileChanges.after(patronId, changes.head().position, 10).map { it.type } == List.of(CHECKED_OUT)
+            profileChanges.after(patronId, changes.last().position, 10).isEmpty()
+    }
+
+    def 'should append a redelivered event only once'() {
+        given:
+            PatronEvent.BookPlacedOnHold event = placedOnHold(patronId)
+        when:
+            2.times { profileChanges.handle(event) }
+        then:
+            profileChanges.after(patronId, 0, 10).size() == 1
+    }
+
+    def 'should notify subscribers of the patron only'() {
+        given:
+            int notified = 0
+            ProfileChanges.Subscription subscription = profileChanges.subscribe(patronId, { notified++ })
+        when:
+            profileChanges.handle(placedOnHold(anyPatronId()))
+            profileChanges.handle(placedOnHold(patronId))
+        then:
+            new PollingConditions(timeout: 2).eventually {
+                assert notified == 1
+            }
+        when:
+            subscription.cancel()
+            profileChanges.handle(checkedOut())
+            sleep(100)
+        then:
+            notified == 1
+    }
+
+    def 'should not skip a change committed after a later appended one was read'() {
+        given:
+            CountDownLatch appended = new CountDownLatch(1)
+            CountDownLatch release = new CountDownLatch(1)
+            Thread slowCommand = Thread.start {
+                transactions.execute {
+                    profileChanges.handle(placedOnHold(patronId))
+                    appended.countDown()
+                    release.await()
+                }
+            }
+            appended.await()
+        and:
+            profileChanges.handle(checkedOut())
+            long cursor = profileChanges.after(patronId, 0, 10).last().position
+        when:
+            release.countDown()
+            slowCommand.join()
+        then:
+            new PollingConditions(timeout: 2).eventually {
+                assert profileChanges.after(patronId, cursor, 10).map { it.type } == List.of(HOLD_PLACED)
+            }
+    }
+
+    def 'should purge changes recorded before the retention'() {
+        given:
+            recordedBeforeRetention(placedOnHold(patronId))
+        and:
+            profileChanges.handle(checkedOut())
+        when:
+            profileChanges.purgeOldChanges()
+        then:
+            profileChanges.after(patronId, 0, 10).map { it.type } == List.of(CHECKED_OUT)
+    }
+
+    def 'should tell a cursor older than the purged changes from a cursor still complete'() {
+        given:
+            recordedBeforeRetention(placedOnHold(patronId))
+            long purged = profileChanges.after(patronId, 0, 10).last().position
+        and:
+            profileChanges.handle(checkedOut())
+            long kept = profileChanges.after(patronId, purged, 10).last().position
+        when:
+            profileChanges.purgeOldChanges()
+        then:
+            profileChanges.oldestCursor() >= purged
+            profileChanges.oldestCursor() < kept
+            profileChanges.latestCursor() >= kept
+    }
+
+    def 'should purge with the time of the clock'() {
+        given:
+            Clock weekAgo = Clock.offset(Clock.systemUTC(), ProfileChangesReadModel.DEFAULT_RETENTION.negated())
+            ProfileChangesReadModel purgingWeekAgo = new ProfileChangesReadModel(new JdbcTemplate(dataSource), transactions,
+                    ProfileChangesReadModel.DEFAULT_RETENTION, weekAgo)
+        and:
+            recordedBeforeRetention(placedOnHold(patronId))
+        when:
+            purgingWeekAgo.purgeOldChanges()
+        then:
+            profileChanges.after(patronId, 0, 10).map { it.type } == List.of(HOLD_PLACED)
+        cleanup:
+            purgingWeekAgo.close()
+    }
+
+    void recordedBeforeRetention(PatronEvent.BookPlacedOnHold event) {
+        profileChanges.handle(event)
+        new JdbcTemplate(dataSource).update("UPDATE patron_profile_changes SET recorded_at = ? WHERE event_id = ?",
+                Timestamp.from(now().minus(ProfileChangesReadModel.DEFAULT_RETENTION).minusSeconds(60)), event.eventId)
+    }
+
+    PatronEvent.BookPlacedOnHold placedOnHold(PatronId patron) {
+        return new PatronEvent.BookPlacedOnHold(
+                now(),
+                patron.patronId,
+                bookId.bookId,
+                Restricted,
+                libraryBranchId.libraryBranchId,
+                now(),
+                TOMORROW)
+    }
+
+    PatronEvent.BookCheckedOut checkedOut() {
+        return new PatronEvent.BookCheckedOut(
+                now(),
+                patronId.patronId,
+                bookId.bookId,
+                Restricted,
+                libraryBranchId.libraryBranchId,
+                TOMORROW)
+    }
+}
@@ -22,7 +22,7 @@ public class BookInstanceAddedToCatalogue implements DomainEvent {
     /**
      * Unique ID of the event.
      */
-    UUID eventId = UUID.randomUUID();
+    UUID eventId;
 
     /**
      * ISBN of the added book.
@@ -42,7 +42,18 @@ public class BookInstanceAddedToCatalogue implements DomainEvent {
     /**
      * Timestamp when the event occurred.
      */
-    Instant when = Instant.now();
+    Instant when;
+
+    /**
+     * Constructs the event of a book instance added just now.
+     *
+     * @param isbn   ISBN of the added book.
+     * @param type   type of the added book.
+     * @param bookId ID of the added book instance.
+     */
+    BookInstanceAddedToCatalogue(String isbn, BookType type, UUID bookId) {
+        this(UUID.randomUUID(), isbn, type, bookId, Instant.now());
+    }
 
     /**
      * Constructs the event from a BookInstance.
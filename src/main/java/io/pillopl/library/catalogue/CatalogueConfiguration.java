@@ -2,6 +2,7 @@ package io.pillopl.library.catalogue;
 
 import io.pillopl.library.commons.events.DomainEvents;
 import io.pillopl.library.commons.events.publisher.DomainEventsConfig;
+import io.pillopl.library.commons.events.publisher.EventCodecs;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.context.annotation.Bean;
@@ -45,6 +46,16 @@ public class CatalogueConfiguration {
         return new CatalogueDatabase(jdbcTemplate);
     }
 
+    /**
+     * Creates the binary codecs of the catalogue events.
+     *
+     * @return the catalogue {@link EventCodecs}.
+     */
+    @Bean
+    EventCodecs catalogueEventCodecs() {
+        return new CatalogueEventCodecs();
+    }
+
     /**
      * Initializes the catalogue with sample data when running in the 'local' profile.
      * <p>
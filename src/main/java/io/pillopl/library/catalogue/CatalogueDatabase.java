@@ -6,9 +6,11 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
 /**
  * Internal repository for accessing the Catalogue database.
  * <p>
@@ -61,8 +63,8 @@ class CatalogueDatabase {
         try {
             return Option.of(
                     jdbcTemplate.queryForObject(
-                            "SELECT b.* FROM catalogue_book b WHERE b.isbn = ?",
-                            new BeanPropertyRowMapper<>(BookDatabaseRow.class),
+                            "SELECT b.isbn, b.author, b.title FROM catalogue_book b WHERE b.isbn = ?",
+                            BookDatabaseRow::fromRow,
                             isbn.getIsbn())
                             .toBook());
         } catch (EmptyResultDataAccessException e) {
@@ -83,6 +85,17 @@ class BookDatabaseRow {
     String author;
     String title;
 
+    /**
+     * Reads the isbn, author and title columns of the row, in this order.
+     */
+    static BookDatabaseRow fromRow(ResultSet rs, int rowNum) throws SQLException {
+        BookDatabaseRow row = new BookDatabaseRow();
+        row.isbn = rs.getString(1);
+        row.author = rs.getString(2);
+        row.title = rs.getString(3);
+        return row;
+    }
+
     /**
      * Converts this row data into a Book domain object.
      *
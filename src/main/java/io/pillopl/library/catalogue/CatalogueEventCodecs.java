@@ -0,0 +1,42 @@
+package io.pillopl.library.catalogue;
+
+import io.pillopl.library.commons.events.publisher.EventCodec;
+import io.pillopl.library.commons.events.publisher.EventCodecs;
+import io.vavr.collection.List;
+
+import java.nio.ByteBuffer;
+
+import static io.pillopl.library.commons.events.publisher.BinaryFields.getEnum;
+import static io.pillopl.library.commons.events.publisher.BinaryFields.getInstant;
+import static io.pillopl.library.commons.events.publisher.BinaryFields.getString;
+import static io.pillopl.library.commons.events.publisher.BinaryFields.getUuid;
+import static io.pillopl.library.commons.events.publisher.BinaryFields.putEnum;
+import static io.pillopl.library.commons.events.publisher.BinaryFields.putInstant;
+import static io.pillopl.library.commons.events.publisher.BinaryFields.putString;
+import static io.pillopl.library.commons.events.publisher.BinaryFields.putUuid;
+
+/**
+ * Binary codecs of the events published by the Catalogue module.
+ */
+class CatalogueEventCodecs implements EventCodecs {
+
+    private static final BookType[] BOOK_TYPES = BookType.values();
+
+    @Override
+    public List<EventCodec<?>> codecs() {
+        return List.of(
+                EventCodec.of(BookInstanceAddedToCatalogue.class, 48, CatalogueEventCodecs::write, CatalogueEventCodecs::readBookInstanceAddedToCatalogue));
+    }
+
+    private static void write(BookInstanceAddedToCatalogue event, ByteBuffer out) {
+        putUuid(out, event.getEventId());
+        putString(out, event.getIsbn());
+        putEnum(out, event.getType());
+        putUuid(out, event.getBookId());
+        putInstant(out, event.getWhen());
+    }
+
+    private static BookInstanceAddedToCatalogue readBookInstanceAddedToCatalogue(ByteBuffer in) {
+        return new BookInstanceAddedToCatalogue(getUuid(in), getString(in), getEnum(in, BOOK_TYPES), getUuid(in), getInstant(in));
+    }
+}
@@ -0,0 +1,30 @@
+package io.pillopl.library.commons.events;
+
+import io.vavr.collection.List;
+
+/**
+ * Opt-in contract for listeners that handle domain events in bulk.
+ * <p>
+ * When events are published as a list, a batch listener receives every run of consecutive events
+ * of its type in a single call, so that it can apply them at once, e.g. with one JDBC batch in one transaction.
+ * A single published event is passed as a list of one. A listener implementing this interface should not
+ * also listen to the same event type one by one, otherwise it would handle every event twice.
+ *
+ * @param <T> the type of handled events
+ */
+public interface BatchEventListener<T extends DomainEvent> {
+
+    /**
+     * Returns the type of events this listener handles, including its subtypes.
+     *
+     * @return the event type
+     */
+    Class<T> eventType();
+
+    /**
+     * Handles a non-empty list of events of the same type, in the order they were published.
+     *
+     * @param events the events to handle
+     */
+    void handle(List<T> events);
+}
@@ -0,0 +1,202 @@
+package io.pillopl.library.commons.events.idempotency;
+
+import io.pillopl.library.commons.events.DomainEvent;
+import io.vavr.Tuple2;
+import io.vavr.collection.HashSet;
+import io.vavr.collection.List;
+import io.vavr.collection.Set;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.BatchUpdateException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps track of the domain events already handled by a consumer, so that redelivered events are handled only once.
+ * <p>
+ * Processed event ids are recorded in the {@code processed_events} table, in the transaction of the consumer,
+ * so an event counts as processed only if its effects are committed. The most recently seen ids are also kept in
+ * a bounded, least recently used cache, added once the transaction commits, which rejects most duplicates
+ * without running any SQL.
+ * <p>
+ * Two deliveries of the same event racing each other are told apart by the primary key of the table: the one that
+ * loses the race treats the event as a duplicate instead of failing. Ids are kept in the table only for as long as
+ * redeliveries are expected, and are then purged.
+ */
+public class ProcessedEvents {
+
+    private static final String MARK_PROCESSED = "INSERT INTO processed_events (consumer, event_id, processed_at) " +
+            "SELECT ?, ?, ? FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM processed_events WHERE consumer = ? AND event_id = ?)";
+    private static final String FIND_PROCESSED =
+            "SELECT event_id FROM processed_events WHERE consumer = :consumer AND event_id IN (:eventIds)";
+    private static final String FIND_PROCESSED_SINCE =
+            "SELECT event_id FROM processed_events WHERE consumer = ? AND processed_at >= ?";
+    private static final String PURGE_PROCESSED =
+            "DELETE FROM processed_events WHERE consumer = ? AND processed_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final String consumer;
+    private final Clock clock;
+    private final Map<UUID, Boolean> recentlyProcessed;
+
+    public ProcessedEvents(JdbcTemplate jdbcTemplate, String consumer, int cacheSize) {
+        this(jdbcTemplate, consumer, cacheSize, Clock.systemUTC());
+    }
+
+    public ProcessedEvents(JdbcTemplate jdbcTemplate, String consumer, int cacheSize, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.consumer = consumer;
+        this.clock = clock;
+        this.recentlyProcessed = new LinkedHashMap<UUID, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Boolean> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Marks the event as processed by the consumer and runs the handler, unless the event was processed before.
+     * Should be called in the transaction of the handler.
+     *
+     * @param event   the event to handle
+     * @param handler the handling of the event
+     * @return true if the handler was run, false if the event is a duplicate
+     */
+    public boolean process(DomainEvent event, Runnable handler) {
+        UUID eventId = event.getEventId();
+        if (seenRecently(eventId) || !markProcessed(eventId)) {
+            remember(List.of(eventId));
+            return false;
+        }
+        handler.run();
+        rememberAfterCommit(List.of(eventId));
+        return true;
+    }
+
+    /**
+     * Marks the events as processed by the consumer and returns the ones that were not processed before,
+     * with one query and one batch insert. Should be called in the transaction in which the returned events are handled.
+     *
+     * @param events the events to handle
+     * @param <T>    the type of events
+     * @return the events not processed before, in the original order
+     */
+    public <T extends DomainEvent> List<T> unprocessed(List<T> events) {
+        List<T> notSeenRecently = events
+                .filter(event -> !seenRecently(event.getEventId()))
+                .distinctBy(DomainEvent::getEventId);
+        if (notSeenRecently.isEmpty()) {
+            return List.empty();
+        }
+        Set<UUID> processed = findProcessed(notSeenRecently.map(DomainEvent::getEventId));
+        List<T> notProcessedBefore = notSeenRecently.filter(event -> !processed.contains(event.getEventId()));
+        Set<UUID> marked = markProcessed(notProcessedBefore.map(DomainEvent::getEventId));
+        List<T> unprocessed = notProcessedBefore.filter(event -> marked.contains(event.getEventId()));
+        remember(processed.toList());
+        rememberAfterCommit(unprocessed.map(DomainEvent::getEventId));
+        return unprocessed;
+    }
+
+    /**
+     * @param since the time since which processed events are returned
+     * @return the ids of the events processed by the consumer since the given time
+     */
+    public List<UUID> processedSince(Instant since) {
+        return List.ofAll(jdbcTemplate.queryForList(FIND_PROCESSED_SINCE, UUID.class, consumer, Timestamp.from(since)));
+    }
+
+    /**
+     * Forgets the events processed by the consumer before the given time, once they are not expected to be
+     * redelivered anymore.
+     *
+     * @param before the time before which processed events are forgotten
+     * @return the number of forgotten events
+     */
+    public int purgeProcessedBefore(Instant before) {
+        return jdbcTemplate.update(PURGE_PROCESSED, consumer, Timestamp.from(before));
+    }
+
+    private boolean markProcessed(UUID eventId) {
+        try {
+            return jdbcTemplate.update(MARK_PROCESSED, consumer, eventId, Timestamp.from(Instant.now(clock)), consumer, eventId) > 0;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private Set<UUID> markProcessed(List<UUID> eventIds) {
+        if (eventIds.isEmpty()) {
+            return HashSet.empty();
+        }
+        Timestamp now = Timestamp.from(Instant.now(clock));
+        try {
+            jdbcTemplate.batchUpdate(MARK_PROCESSED, eventIds
+                    .map(eventId -> new Object[]{consumer, eventId, now, consumer, eventId})
+                    .toJavaList());
+            return HashSet.ofAll(eventIds);
+        } catch (DuplicateKeyException e) {
+            return markedDespite(e, eventIds);
+        }
+    }
+
+    /**
+     * The events of a batch marked as processed by other deliveries in the meantime fail on the primary key.
+     * The batch goes on with the following events, and its update counts tell which of them were marked by this one.
+     */
+    private static Set<UUID> markedDespite(DuplicateKeyException e, List<UUID> eventIds) {
+        int[] updateCounts = e.getCause() instanceof BatchUpdateException
+                ? ((BatchUpdateException) e.getCause()).getUpdateCounts()
+                : null;
+        if (updateCounts == null || updateCounts.length != eventIds.size()) {
+            throw e;
+        }
+        return HashSet.ofAll(eventIds.zipWithIndex()
+                .filter(indexed -> updateCounts[indexed._2] > 0)
+                .map(Tuple2::_1));
+    }
+
+    private Set<UUID> findProcessed(List<UUID> eventIds) {
+        return HashSet.ofAll(namedParameterJdbcTemplate.queryForList(FIND_PROCESSED,
+                new MapSqlParameterSource()
+                        .addValue("consumer", consumer)
+                        .addValue("eventIds", eventIds.toJavaList()),
+                UUID.class));
+    }
+
+    private boolean seenRecently(UUID eventId) {
+        synchronized (recentlyProcessed) {
+            return recentlyProcessed.get(eventId) != null;
+        }
+    }
+
+    private void remember(List<UUID> eventIds) {
+        synchronized (recentlyProcessed) {
+            eventIds.forEach(eventId -> recentlyProcessed.put(eventId, Boolean.TRUE));
+        }
+    }
+
+    private void rememberAfterCommit(List<UUID> eventIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            remember(eventIds);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                remember(eventIds);
+            }
+        });
+    }
+}
@@ -0,0 +1,129 @@
+package io.pillopl.library.commons.events.publisher;
+
+import io.pillopl.library.commons.events.DomainEvent;
+import io.pillopl.library.commons.events.DomainEvents;
+import io.vavr.collection.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+
+/**
+ * Decorator for {@link DomainEvents} that holds events back until the transaction they were raised in commits.
+ * <p>
+ * Events published within a transaction are collected in a buffer bound to that transaction and handed over
+ * to the delegate in a single batch once it commits. Events of a rolled back transaction are dropped, so listeners
+ * never see changes that did not happen. Events published outside of a transaction are handed over immediately.
+ * <p>
+ * The committed transaction cannot be joined anymore, so the batch is handed over in a transaction
+ * of its own, in which synchronous listeners take part. Whether listeners run on the committing thread
+ * or on other threads is up to the delegate.
+ */
+@Slf4j
+public class AfterCommitDomainEventPublisher implements DomainEvents, AutoCloseable {
+
+    private static final TransactionOperations NO_TRANSACTION = callback -> callback.doInTransaction(null);
+
+    private final DomainEvents delegate;
+    private final TransactionOperations flushTransactions;
+
+    public AfterCommitDomainEventPublisher(DomainEvents delegate) {
+        this(delegate, NO_TRANSACTION);
+    }
+
+    /**
+     * @param delegate          the publisher delivering events to the listeners
+     * @param flushTransactions the transactions every batch of committed events is handed over in
+     */
+    public AfterCommitDomainEventPublisher(DomainEvents delegate, TransactionOperations flushTransactions) {
+        this.delegate = delegate;
+        this.flushTransactions = flushTransactions;
+    }
+
+    /**
+     * Buffers the event until the current transaction commits.
+     *
+     * @param event the domain event to publish
+     */
+    @Override
+    public void publish(DomainEvent event) {
+        publish(List.of(event));
+    }
+
+    /**
+     * Buffers the events until the current transaction commits.
+     *
+     * @param events the domain events to publish, in the order they were raised
+     */
+    @Override
+    public void publish(List<DomainEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            bufferOfCurrentTransaction().events.addAll(events.asJava());
+        } else {
+            delegate.publish(events);
+        }
+    }
+
+    private EventsBuffer bufferOfCurrentTransaction() {
+        EventsBuffer buffer = (EventsBuffer) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            buffer = new EventsBuffer();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(buffer);
+        }
+        return buffer;
+    }
+
+    private void flush(List<DomainEvent> events) {
+        try {
+            flushTransactions.execute(status -> {
+                delegate.publish(events);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to publish {} events of a committed transaction: {}", events.size(), events.map(DomainEvent::getEventId), e);
+        }
+    }
+
+    /**
+     * Closes the delegate, if it holds any resources.
+     */
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable) {
+            ((AutoCloseable) delegate).close();
+        }
+    }
+
+    private class EventsBuffer extends TransactionSynchronizationAdapter {
+
+        private final java.util.List<DomainEvent> events = new ArrayList<>();
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(AfterCommitDomainEventPublisher.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(AfterCommitDomainEventPublisher.this, this);
+        }
+
+        @Override
+        public void afterCommit() {
+            if (!events.isEmpty()) {
+                flush(List.ofAll(events));
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(AfterCommitDomainEventPublisher.this);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package io.pillopl.library.commons.events.publisher;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.pillopl.library.commons.events.DomainEvents;
+import io.pillopl.library.commons.events.publisher.AsyncDomainEventPublisher.BackpressurePolicy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Configuration of the after-commit event publication, active with the "after-commit-events" profile.
+ * <p>
+ * Events raised within a transaction are published in one batch once it commits. The batch is delivered
+ * either on the committing thread, in a new transaction, or on a pool of worker threads.
+ */
+@Configuration
+@Profile("after-commit-events")
+public class AfterCommitDomainEventsConfig {
+
+    /**
+     * Creates the after-commit DomainEvents bean, taking precedence over the synchronous one.
+     * Events still waiting for asynchronous delivery are delivered before the context closes.
+     *
+     * @param applicationEventPublisher Spring's application event publisher
+     * @param batchEventListeners       the listeners handling events in bulk
+     * @param meterRegistry             the registry for application metrics
+     * @param transactionManager        the transaction manager of the module's data source
+     * @param async                     whether committed events are delivered on worker threads
+     * @param workers                   the number of worker threads of the asynchronous delivery
+     * @param capacity                  the maximum number of batches waiting for asynchronous delivery
+     * @return the after-commit DomainEvents instance
+     */
+    @Bean
+    @Primary
+    AfterCommitDomainEventPublisher afterCommitDomainEvents(ApplicationEventPublisher applicationEventPublisher,
+                                                            BatchEventListeners batchEventListeners,
+                                                            MeterRegistry meterRegistry,
+                                                            PlatformTransactionManager transactionManager,
+                                                            @Value("${domain-events.after-commit.async:false}") boolean async,
+                                                            @Value("${domain-events.after-commit.workers:2}") int workers,
+                                                            @Value("${domain-events.after-commit.capacity:1024}") int capacity) {
+        DomainEvents delivery = new MeteredDomainEventPublisher(
+                new JustForwardDomainEventPublisher(applicationEventPublisher, batchEventListeners), meterRegistry);
+        if (async) {
+            return new AfterCommitDomainEventPublisher(
+                    new AsyncDomainEventPublisher(delivery, meterRegistry, workers, capacity, BackpressurePolicy.BLOCK));
+        }
+        TransactionTemplate newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return new AfterCommitDomainEventPublisher(delivery, newTransaction);
+    }
+}
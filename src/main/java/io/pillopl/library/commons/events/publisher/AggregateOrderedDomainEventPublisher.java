@@ -0,0 +1,75 @@
+package io.pillopl.library.commons.events.publisher;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.pillopl.library.commons.events.DomainEvent;
+import io.pillopl.library.commons.events.DomainEvents;
+import io.vavr.collection.List;
+import io.vavr.collection.Vector;
+
+import java.util.Objects;
+
+import static io.pillopl.library.commons.events.publisher.AsyncDomainEventPublisher.BackpressurePolicy.BLOCK;
+
+/**
+ * Decorator for {@link DomainEvents} delivering events in parallel while keeping the order per aggregate.
+ * <p>
+ * Every aggregate is assigned to one of a fixed number of lanes by the hash of its id.
+ * A lane is a single worker thread with its own bounded queue, so events of one aggregate
+ * are delivered one after another, in the order they were published, while events of different
+ * aggregates are delivered concurrently. A full lane makes the publishing thread wait,
+ * since delivering on the caller's thread would let an event overtake the ones waiting in the lane.
+ */
+public class AggregateOrderedDomainEventPublisher implements DomainEvents, AutoCloseable {
+
+    private static final String TAG_LANE = "lane";
+
+    private final Vector<AsyncDomainEventPublisher> lanes;
+
+    public AggregateOrderedDomainEventPublisher(DomainEvents delegate, MeterRegistry meterRegistry, int lanes, int laneCapacity) {
+        this.lanes = Vector.range(0, lanes)
+                .map(lane -> new AsyncDomainEventPublisher(delegate, meterRegistry, 1, laneCapacity, BLOCK,
+                        "domain-events-lane-" + lane + "-", Tags.of(TAG_LANE, String.valueOf(lane))));
+    }
+
+    /**
+     * Enqueues the event in the lane of its aggregate.
+     *
+     * @param event the domain event to publish
+     */
+    @Override
+    public void publish(DomainEvent event) {
+        laneOf(event).publish(event);
+    }
+
+    /**
+     * Splits the events by lane and enqueues each part in its lane at once, keeping the order of the events.
+     *
+     * @param events the list of domain events to publish
+     */
+    @Override
+    public void publish(List<DomainEvent> events) {
+        events.groupBy(this::laneIndexOf)
+                .forEach((lane, laneEvents) -> lanes.get(lane).publish(laneEvents));
+    }
+
+    private AsyncDomainEventPublisher laneOf(DomainEvent event) {
+        return lanes.get(laneIndexOf(event));
+    }
+
+    private int laneIndexOf(DomainEvent event) {
+        return Math.floorMod(Objects.hashCode(event.getAggregateId()), lanes.size());
+    }
+
+    /**
+     * Stops accepting new events and drains the lanes one by one.
+     * Events are never moved between lanes, so the number of lanes can be changed
+     * between restarts without breaking the order of events of any aggregate.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        for (AsyncDomainEventPublisher lane : lanes) {
+            lane.close();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package io.pillopl.library.commons.events.publisher;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.pillopl.library.commons.events.DomainEvents;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Configuration of the parallel, per-aggregate ordered event publication, active with the "ordered-async-events" profile.
+ * <p>
+ * Listeners are invoked on worker threads, each aggregate always on the same one.
+ */
+@Configuration
+@Profile("ordered-async-events")
+public class AggregateOrderedDomainEventsConfig {
+
+    /**
+     * Creates the publisher delivering events on per-aggregate lanes.
+     * Enqueued events are delivered before the context closes.
+     *
+     * @param applicationEventPublisher Spring's application event publisher
+     * @param batchEventListeners       the listeners handling events in bulk
+     * @param meterRegistry             the registry for application metrics
+     * @param lanes                     the number of lanes
+     * @param laneCapacity              the maximum number of events waiting in a single lane
+     * @return the lanes publisher
+     */
+    @Bean
+    AggregateOrderedDomainEventPublisher aggregateOrderedDomainEventPublisher(ApplicationEventPublisher applicationEventPublisher,
+                                                                              BatchEventListeners batchEventListeners,
+                                                                              MeterRegistry meterRegistry,
+                                                                              @Value("${domain-events.lanes.count:4}") int lanes,
+                                                                              @Value("${domain-events.lanes.capacity:256}") int laneCapacity) {
+        return new AggregateOrderedDomainEventPublisher(
+                new JustForwardDomainEventPublisher(applicationEventPublisher, batchEventListeners), meterRegistry, lanes, laneCapacity);
+    }
+
+    /**
+     * Creates the per-aggregate ordered DomainEvents bean, taking precedence over the synchronous one.
+     *
+     * @param aggregateOrderedDomainEventPublisher the publisher delivering events on per-aggregate lanes
+     * @param meterRegistry                        the registry for application metrics
+     * @return the per-aggregate ordered DomainEvents instance
+     */
+    @Bean
+    @Primary
+    DomainEvents aggregateOrderedDomainEvents(AggregateOrderedDomainEventPublisher aggregateOrderedDomainEventPublisher,
+                                              MeterRegistry meterRegistry) {
+        return new MeteredDomainEventPublisher(aggregateOrderedDomainEventPublisher, meterRegistry);
+    }
+}
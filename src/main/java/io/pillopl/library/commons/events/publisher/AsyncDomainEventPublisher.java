@@ -0,0 +1,172 @@
+package io.pillopl.library.commons.events.publisher;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.pillopl.library.commons.events.DomainEvent;
+import io.pillopl.library.commons.events.DomainEvents;
+import io.vavr.collection.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decorator for {@link DomainEvents} that hands events over to a pool of worker threads.
+ * <p>
+ * Events wait in a bounded, array-backed queue, so the publishing thread returns as soon as the event is enqueued.
+ * What happens when the queue is full is decided by the {@link BackpressurePolicy}.
+ * Queue depth, the time events spend waiting in the queue and the events the delegate failed to deliver
+ * are recorded as metrics.
+ */
+@Slf4j
+public class AsyncDomainEventPublisher implements DomainEvents, AutoCloseable {
+
+    private static final String QUEUE_DEPTH = "domain_events_queue_depth";
+    private static final String QUEUE_WAIT = "domain_events_queue_wait";
+    private static final String DELIVERY_FAILURES = "domain_events_delivery_failures";
+    private static final long ROOM_CHECK_MILLIS = 100;
+
+    private final DomainEvents delegate;
+    private final ThreadPoolExecutor executor;
+    private final Timer queueWait;
+    private final Counter deliveryFailures;
+
+    /**
+     * Behaviour of the publisher when the queue is full.
+     */
+    public enum BackpressurePolicy {
+        /**
+         * The publishing thread waits until there is room in the queue.
+         */
+        BLOCK,
+        /**
+         * The publishing thread delivers the event itself.
+         */
+        CALLER_RUNS,
+        /**
+         * The event is refused with a {@link RejectedExecutionException}.
+         */
+        REJECT
+    }
+
+    public AsyncDomainEventPublisher(DomainEvents delegate,
+                                     MeterRegistry meterRegistry,
+                                     int workers,
+                                     int capacity,
+                                     BackpressurePolicy policy) {
+        this(delegate, meterRegistry, workers, capacity, policy, "domain-events-", Tags.empty());
+    }
+
+    AsyncDomainEventPublisher(DomainEvents delegate,
+                              MeterRegistry meterRegistry,
+                              int workers,
+                              int capacity,
+                              BackpressurePolicy policy,
+                              String threadNamePrefix,
+                              Iterable<Tag> tags) {
+        this.delegate = delegate;
+        BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(capacity);
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS, queue,
+                new CustomizableThreadFactory(threadNamePrefix), rejectionHandlerFor(policy));
+        this.queueWait = Timer.builder(QUEUE_WAIT).tags(tags).register(meterRegistry);
+        this.deliveryFailures = Counter.builder(DELIVERY_FAILURES).tags(tags).register(meterRegistry);
+        Gauge.builder(QUEUE_DEPTH, queue, BlockingQueue::size).tags(tags).register(meterRegistry);
+    }
+
+    /**
+     * Enqueues the event to be delivered by one of the workers.
+     *
+     * @param event the domain event to publish
+     */
+    @Override
+    public void publish(DomainEvent event) {
+        long enqueuedAt = System.nanoTime();
+        executor.execute(() -> deliver(event, enqueuedAt));
+    }
+
+    /**
+     * Enqueues the events as a single task, so that they are delivered together, in the order they were published.
+     *
+     * @param events the list of domain events to publish
+     */
+    @Override
+    public void publish(List<DomainEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        long enqueuedAt = System.nanoTime();
+        executor.execute(() -> deliver(events, enqueuedAt));
+    }
+
+    private void deliver(List<DomainEvent> events, long enqueuedAt) {
+        queueWait.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+        try {
+            delegate.publish(events);
+        } catch (RuntimeException e) {
+            deliveryFailures.increment(events.size());
+            log.error("Failed to deliver events {}", events.map(DomainEvent::getEventId), e);
+        }
+    }
+
+    private void deliver(DomainEvent event, long enqueuedAt) {
+        queueWait.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+        try {
+            delegate.publish(event);
+        } catch (RuntimeException e) {
+            deliveryFailures.increment();
+            log.error("Failed to deliver event {}", event.getEventId(), e);
+        }
+    }
+
+    /**
+     * Stops accepting new events and waits for the enqueued ones to be delivered.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("{} domain events not delivered on shutdown", executor.shutdownNow().size());
+        }
+    }
+
+    private static RejectedExecutionHandler rejectionHandlerFor(BackpressurePolicy policy) {
+        switch (policy) {
+            case BLOCK:
+                return AsyncDomainEventPublisher::waitForRoom;
+            case CALLER_RUNS:
+                return new ThreadPoolExecutor.CallerRunsPolicy();
+            default:
+                return new ThreadPoolExecutor.AbortPolicy();
+        }
+    }
+
+    /**
+     * Waits for room in the queue for as long as the executor is running. A task that made it into the queue
+     * while the executor was shutting down is taken back and rejected, unless a worker has already picked it up,
+     * since there may be no worker left to run it.
+     */
+    private static void waitForRoom(Runnable task, ThreadPoolExecutor executor) {
+        try {
+            while (!executor.getQueue().offer(task, ROOM_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (executor.isShutdown()) {
+                    throw new RejectedExecutionException("Domain events publisher is shut down");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for room in the queue", e);
+        }
+        if (executor.isShutdown() && executor.remove(task)) {
+            throw new RejectedExecutionException("Domain events publisher is shut down");
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package io.pillopl.library.commons.events.publisher;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.pillopl.library.commons.events.DomainEvents;
+import io.pillopl.library.commons.events.publisher.AsyncDomainEventPublisher.BackpressurePolicy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Configuration of the asynchronous event publication, active with the "async-events" profile.
+ * <p>
+ * Listeners are invoked on a pool of worker threads instead of the thread that changed the aggregate.
+ */
+@Configuration
+@Profile("async-events")
+public class AsyncDomainEventsConfig {
+
+    /**
+     * Creates the publisher delivering events on worker threads.
+     * Enqueued events are delivered before the context closes.
+     *
+     * @param applicationEventPublisher Spring's application event publisher
+     * @param batchEventListeners       the listeners handling events in bulk
+     * @param meterRegistry             the registry for application metrics
+     * @param workers                   the number of worker threads
+     * @param capacity                  the maximum number of events waiting to be delivered
+     * @param backpressure              the behaviour when the queue is full
+     * @return the asynchronous publisher
+     */
+    @Bean
+    AsyncDomainEventPublisher asyncDomainEventPublisher(ApplicationEventPublisher applicationEventPublisher,
+                                                        BatchEventListeners batchEventListeners,
+                                                        MeterRegistry meterRegistry,
+                                                        @Value("${domain-events.async.workers:2}") int workers,
+                                                        @Value("${domain-events.async.capacity:1024}") int capacity,
+                                                        @Value("${domain-events.async.backpressure:BLOCK}") BackpressurePolicy backpressure) {
+        return new AsyncDomainEventPublisher(
+                new JustForwardDomainEventPublisher(applicationEventPublisher, batchEventListeners), meterRegistry, workers, capacity, backpressure);
+    }
+
+    /**
+     * Creates the asynchronous DomainEvents bean, taking precedence over the synchronous one.
+     *
+     * @param asyncDomainEventPublisher the publisher delivering events on worker threads
+     * @param meterRegistry             the registry for application metrics
+     * @return the asynchronous DomainEvents instance
+     */
+    @Bean
+    @Primary
+    DomainEvents asyncDomainEvents(AsyncDomainEventPublisher asyncDomainEventPublisher, MeterRegistry meterRegistry) {
+        return new MeteredDomainEventPublisher(asyncDomainEventPublisher, meterRegistry);
+    }
+}
@@ -0,0 +1,64 @@
+package io.pillopl.library.commons.events.publisher;
+
+import io.pillopl.library.commons.events.BatchEventListener;
+import io.pillopl.library.commons.events.DomainEvent;
+import io.vavr.Lazy;
+import io.vavr.collection.List;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.function.Consumer;
+
+/**
+ * {@link BatchEventListener}s of a context, indexed by event type.
+ * <p>
+ * Listeners are looked up lazily, on the first published event, as they may depend on the publisher themselves.
+ */
+public class BatchEventListeners {
+
+    private final Lazy<List<BatchEventListener<?>>> listeners;
+    private final ClassValue<List<BatchEventListener<DomainEvent>>> byEventType = new ClassValue<List<BatchEventListener<DomainEvent>>>() {
+        @Override
+        @SuppressWarnings("unchecked")
+        protected List<BatchEventListener<DomainEvent>> computeValue(Class<?> eventType) {
+            return listeners.get()
+                    .filter(listener -> listener.eventType().isAssignableFrom(eventType))
+                    .map(listener -> (BatchEventListener<DomainEvent>) listener);
+        }
+    };
+
+    public BatchEventListeners(ObjectProvider<BatchEventListener<?>> listeners) {
+        this.listeners = Lazy.of(() -> List.ofAll(listeners.orderedStream()));
+    }
+
+    private BatchEventListeners(List<BatchEventListener<?>> listeners) {
+        this.listeners = Lazy.of(() -> listeners);
+    }
+
+    public static BatchEventListeners of(BatchEventListener<?>... listeners) {
+        return new BatchEventListeners(List.of(listeners));
+    }
+
+    public static BatchEventListeners none() {
+        return new BatchEventListeners(List.empty());
+    }
+
+    /**
+     * Splits the events into runs of consecutive events of the same type. Every run is handed over
+     * to the batch listeners of its type first and then, event by event, to the given single event delivery.
+     *
+     * @param events    the events to dispatch, in publication order
+     * @param eachEvent delivery of a single event to the remaining listeners
+     */
+    public void dispatch(List<DomainEvent> events, Consumer<DomainEvent> eachEvent) {
+        List<DomainEvent> remaining = events;
+        while (!remaining.isEmpty()) {
+            Class<?> eventType = remaining.head().getClass();
+            List<DomainEvent> slice = remaining.takeWhile(event -> event.getClass() == eventType);
+            for (BatchEventListener<DomainEvent> listener : byEventType.get(eventType)) {
+                listener.handle(slice);
+            }
+            slice.forEach(eachEvent);
+            remaining = remaining.drop(slice.size());
+        }
+    }
+}
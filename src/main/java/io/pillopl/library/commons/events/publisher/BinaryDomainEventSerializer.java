@@ -0,0 +1,93 @@
+package io.pillopl.library.commons.events.publisher;
+
+import io.pillopl.library.commons.events.DomainEvent;
+import io.vavr.collection.List;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link DomainEventSerializer} writing events in a compact, versioned binary format.
+ * <p>
+ * A payload starts with the type tag and the format version of the event, followed by the fields
+ * written by the {@link EventCodec} of the event type. Events are encoded into a per-thread buffer
+ * that is reused between events and only grows when an event does not fit in it.
+ */
+public class BinaryDomainEventSerializer implements DomainEventSerializer {
+
+    private static final int INITIAL_BUFFER_SIZE = 512;
+
+    private final Map<Class<?>, EventCodec<?>> codecsByType = new HashMap<>();
+    private final EventCodec<?>[] codecsByTag = new EventCodec<?>[256];
+    private final ThreadLocal<ByteBuffer> buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocate(INITIAL_BUFFER_SIZE));
+
+    public BinaryDomainEventSerializer(List<EventCodecs> modules) {
+        modules.flatMap(EventCodecs::codecs).forEach(this::register);
+    }
+
+    private void register(EventCodec<?> codec) {
+        int tag = Byte.toUnsignedInt(codec.typeTag());
+        if (codecsByTag[tag] != null || codecsByType.containsKey(codec.eventType())) {
+            throw new IllegalArgumentException("Codec of " + codec.eventType().getName() + " clashes with " +
+                    (codecsByTag[tag] != null ? codecsByTag[tag] : codecsByType.get(codec.eventType())).eventType().getName());
+        }
+        codecsByTag[tag] = codec;
+        codecsByType.put(codec.eventType(), codec);
+    }
+
+    @Override
+    public byte[] serialize(DomainEvent event) {
+        ByteBuffer buffer = buffers.get();
+        while (true) {
+            buffer.clear();
+            try {
+                encode(event, buffer);
+                return Arrays.copyOf(buffer.array(), buffer.position());
+            } catch (BufferOverflowException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffers.set(buffer);
+            }
+        }
+    }
+
+    @Override
+    public DomainEvent deserialize(byte[] payload) {
+        return decode(ByteBuffer.wrap(payload));
+    }
+
+    /**
+     * Writes the event at the current position of the buffer.
+     *
+     * @param event the domain event to write
+     * @param out   the buffer to write to
+     * @throws BufferOverflowException when the event does not fit in the buffer
+     */
+    @SuppressWarnings("unchecked")
+    public void encode(DomainEvent event, ByteBuffer out) {
+        EventCodec<DomainEvent> codec = (EventCodec<DomainEvent>) codecsByType.get(event.getClass());
+        if (codec == null) {
+            throw new IllegalArgumentException("No codec of " + event.getClass().getName());
+        }
+        out.put(codec.typeTag());
+        out.put(codec.version());
+        codec.write(event, out);
+    }
+
+    /**
+     * Reads the event at the current position of the buffer.
+     *
+     * @param in the buffer to read from
+     * @return the domain event
+     */
+    public DomainEvent decode(ByteBuffer in) {
+        byte tag = in.get();
+        EventCodec<?> codec = codecsByTag[Byte.toUnsignedInt(tag)];
+        if (codec == null) {
+            throw new IllegalStateException("Unknown event type tag " + Byte.toUnsignedInt(tag));
+        }
+        return codec.read(in, in.get());
+    }
+}
@@ -0,0 +1,72 @@
+package io.pillopl.library.commons.events.publisher;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.UUID;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compact binary representation of the field types used by domain events.
+ * UUIDs are written as two longs, instants as epoch seconds and nanos and enums as a single byte.
+ */
+public final class BinaryFields {
+
+    private BinaryFields() {
+    }
+
+    public static void putUuid(ByteBuffer out, UUID uuid) {
+        out.putLong(uuid.getMostSignificantBits());
+        out.putLong(uuid.getLeastSignificantBits());
+    }
+
+    public static UUID getUuid(ByteBuffer in) {
+        return new UUID(in.getLong(), in.getLong());
+    }
+
+    public static void putInstant(ByteBuffer out, Instant instant) {
+        out.putLong(instant.getEpochSecond());
+        out.putInt(instant.getNano());
+    }
+
+    public static Instant getInstant(ByteBuffer in) {
+        return Instant.ofEpochSecond(in.getLong(), in.getInt());
+    }
+
+    public static void putNullableInstant(ByteBuffer out, Instant instant) {
+        out.put((byte) (instant == null ? 0 : 1));
+        if (instant != null) {
+            putInstant(out, instant);
+        }
+    }
+
+    public static Instant getNullableInstant(ByteBuffer in) {
+        return in.get() == 0 ? null : getInstant(in);
+    }
+
+    public static void putEnum(ByteBuffer out, Enum<?> value) {
+        out.put((byte) value.ordinal());
+    }
+
+    public static <E extends Enum<E>> E getEnum(ByteBuffer in, E[] values) {
+        return values[in.get()];
+    }
+
+    public static void putString(ByteBuffer out, String value) {
+        byte[] bytes = value.getBytes(UTF_8);
+        out.putInt(bytes.length);
+        out.put(bytes);
+    }
+
+    public static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (!in.hasArray()) {
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            return new String(bytes, UTF_8);
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+}
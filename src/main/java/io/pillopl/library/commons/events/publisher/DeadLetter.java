@@ -0,0 +1,21 @@
+package io.pillopl.library.commons.events.publisher;
+
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A stored domain event that is no longer retried, since publishing it failed too many times.
+ */
+@Value
+public class DeadLetter {
+
+    UUID eventId;
+    String eventType;
+    UUID aggregateId;
+    Instant occurredAt;
+    int attempts;
+    String lastError;
+    Instant deadLetteredAt;
+}
@@ -0,0 +1,27 @@
+package io.pillopl.library.commons.events.publisher;
+
+import io.vavr.collection.List;
+
+import java.util.UUID;
+
+/**
+ * Store of domain events that could not be published, available for inspection and requeueing.
+ */
+public interface DeadLetters {
+
+    /**
+     * Returns the most recently dead-lettered events.
+     *
+     * @param limit the maximum number of events to return
+     * @return the dead letters, most recent first
+     */
+    List<DeadLetter> deadLetters(int limit);
+
+    /**
+     * Puts a dead-lettered event back in line for publication, with its attempts reset.
+     *
+     * @param eventId the id of the event
+     * @return true if the event was dead-lettered and is now requeued
+     */
+    boolean requeue(UUID eventId);
+}
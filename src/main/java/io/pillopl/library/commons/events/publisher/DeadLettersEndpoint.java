@@ -0,0 +1,33 @@
+package io.pillopl.library.commons.events.publisher;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Actuator endpoint listing dead-lettered domain events and requeueing them.
+ */
+@Endpoint(id = "deadletters")
+@AllArgsConstructor
+public class DeadLettersEndpoint {
+
+    private static final int DEFAULT_LIMIT = 100;
+
+    private final DeadLetters deadLetters;
+
+    @ReadOperation
+    public List<DeadLetter> deadLetters(@Nullable Integer limit) {
+        return deadLetters.deadLetters(limit == null ? DEFAULT_LIMIT : limit).toJavaList();
+    }
+
+    @WriteOperation
+    public boolean requeue(@Selector UUID eventId) {
+        return deadLetters.requeue(eventId);
+    }
+}
@@ -0,0 +1,25 @@
+package io.pillopl.library.commons.events.publisher;
+
+import io.pillopl.library.commons.events.DomainEvent;
+
+/**
+ * Converts domain events to and from the binary payload kept by a durable {@link EventsStorage}.
+ */
+public interface DomainEventSerializer {
+
+    /**
+     * Serializes the event into its binary form.
+     *
+     * @param event the domain event to serialize
+     * @return the serialized payload
+     */
+    byte[] serialize(DomainEvent event);
+
+    /**
+     * Restores the event from its binary form.
+     *
+     * @param payload the payload previously produced by {@link #serialize(DomainEvent)}
+     * @return the restored domain event
+     */
+    DomainEvent deserialize(byte[] payload);
+}
@@ -1,7 +1,9 @@
 package io.pillopl.library.commons.events.publisher;
 
 import io.micrometer.core.instrument.MeterRegistry;
+import io.pillopl.library.commons.events.BatchEventListener;
 import io.pillopl.library.commons.events.DomainEvents;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -18,11 +20,23 @@ public class DomainEventsConfig {
      * Wraps the default publisher with a metered publisher for monitoring.
      *
      * @param applicationEventPublisher Spring's application event publisher
+     * @param batchEventListeners       the listeners handling events in bulk
      * @param meterRegistry             the registry for application metrics
      * @return a configured DomainEvents instance
      */
     @Bean
-    DomainEvents domainEvents(ApplicationEventPublisher applicationEventPublisher, MeterRegistry meterRegistry) {
-        return new MeteredDomainEventPublisher(new JustForwardDomainEventPublisher(applicationEventPublisher), meterRegistry);
+    DomainEvents domainEvents(ApplicationEventPublisher applicationEventPublisher, BatchEventListeners batchEventListeners, MeterRegistry meterRegistry) {
+        return new MeteredDomainEventPublisher(new JustForwardDomainEventPublisher(applicationEventPublisher, batchEventListeners), meterRegistry);
+    }
+
+    /**
+     * Collects the {@link BatchEventListener}s of the context, for every publisher of the context to use.
+     *
+     * @param listeners the batch listeners, resolved on the first published event
+     * @return the batch listeners of the context
+     */
+    @Bean
+    BatchEventListeners batchEventListeners(ObjectProvider<BatchEventListener<?>> listeners) {
+        return new BatchEventListeners(listeners);
     }
 }
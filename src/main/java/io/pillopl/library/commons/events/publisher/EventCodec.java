@@ -0,0 +1,93 @@
+package io.pillopl.library.commons.events.publisher;
+
+import io.pillopl.library.commons.events.DomainEvent;
+
+import java.nio.ByteBuffer;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Binary format of a single type of domain event, used by {@link BinaryDomainEventSerializer}.
+ * <p>
+ * Every payload carries the type tag and the version of the format it was written with,
+ * so a codec can keep reading events written with its older versions.
+ *
+ * @param <T> the type of the domain event
+ */
+public interface EventCodec<T extends DomainEvent> {
+
+    /**
+     * @return the type of events written and read by this codec
+     */
+    Class<T> eventType();
+
+    /**
+     * @return the tag identifying the event type in the payload, unique across all codecs
+     */
+    byte typeTag();
+
+    /**
+     * @return the version of the format the events are written with
+     */
+    byte version();
+
+    /**
+     * Writes the event with the current version of the format.
+     *
+     * @param event the domain event to write
+     * @param out   the buffer to write to
+     */
+    void write(T event, ByteBuffer out);
+
+    /**
+     * Reads the event written with the given version of the format.
+     *
+     * @param in      the buffer to read from
+     * @param version the version of the format the event was written with
+     * @return the domain event
+     */
+    T read(ByteBuffer in, byte version);
+
+    /**
+     * Creates a codec that knows a single version of the format.
+     *
+     * @param eventType the type of events
+     * @param typeTag   the tag identifying the event type in the payload
+     * @param writer    writes the event
+     * @param reader    reads the event
+     * @param <T>       the type of the domain event
+     * @return the codec
+     */
+    static <T extends DomainEvent> EventCodec<T> of(Class<T> eventType, int typeTag, BiConsumer<T, ByteBuffer> writer, Function<ByteBuffer, T> reader) {
+        return new EventCodec<T>() {
+
+            @Override
+            public Class<T> eventType() {
+                return eventType;
+            }
+
+            @Override
+            public byte typeTag() {
+                return (byte) typeTag;
+            }
+
+            @Override
+            public byte version() {
+                return 1;
+            }
+
+            @Override
+            public void write(T event, ByteBuffer out) {
+                writer.accept(event, out);
+            }
+
+            @Override
+            public T read(ByteBuffer in, byte version) {
+                if (version != version()) {
+                    throw new IllegalStateException("Unknown version " + version + " of " + eventType.getSimpleName());
+                }
+                return reader.apply(in);
+            }
+        };
+    }
+}
@@ -0,0 +1,17 @@
+package io.pillopl.library.commons.events.publisher;
+
+import io.vavr.collection.List;
+
+/**
+ * Codecs of the domain events of a single module.
+ * <p>
+ * Type tags have to be unique across modules: patron events use tags 1-31, book events 32-47
+ * and catalogue events 48-63.
+ */
+public interface EventCodecs {
+
+    /**
+     * @return the codecs of the module's events
+     */
+    List<EventCodec<?>> codecs();
+}
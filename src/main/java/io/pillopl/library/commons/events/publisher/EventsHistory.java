@@ -0,0 +1,39 @@
+package io.pillopl.library.commons.events.publisher;
+
+import io.pillopl.library.commons.events.DomainEvent;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Persisted history of domain events, which can be read again from the start, e.g. to rebuild read models.
+ * Events are identified by their position in the history, growing in the order they were stored.
+ */
+public interface EventsHistory {
+
+    /**
+     * Returns the position of the most recently stored event.
+     *
+     * @return the last position, or 0 if the history is empty
+     */
+    long lastPosition();
+
+    /**
+     * Streams the events stored between two positions to the consumer, in the order they were stored,
+     * without loading all of them into memory.
+     *
+     * @param fromExclusive the position after which to start
+     * @param toInclusive   the position of the last event to replay
+     * @param consumer      the consumer of replayed events
+     */
+    void replay(long fromExclusive, long toInclusive, Consumer<DomainEvent> consumer);
+
+    /**
+     * Streams the events with the given ids to the consumer, in the order they were stored.
+     *
+     * @param eventIds the ids of the events to replay
+     * @param consumer the consumer of replayed events
+     */
+    void replay(Collection<UUID> eventIds, Consumer<DomainEvent> consumer);
+}
@@ -16,6 +16,16 @@ public interface EventsStorage {
      */
     void save(DomainEvent event);
 
+    /**
+     * Saves a list of domain events to the storage.
+     * Implementations backed by a database should append them in a single batch.
+     *
+     * @param events the domain events to save, in the order they were raised
+     */
+    default void save(List<DomainEvent> events) {
+        events.forEach(this::save);
+    }
+
     /**
      * Retrieves a list of events that are ready to be published.
      *
@@ -29,4 +39,17 @@ public interface EventsStorage {
      * @param events the list of domain events that have been published
      */
     void published(List<DomainEvent> events);
+
+    /**
+     * Records a failed attempt to publish the event.
+     * Storages keeping track of attempts hold the event back for a while, or move it to dead letters
+     * once it failed too many times. By default the event is simply handed out again.
+     *
+     * @param event the domain event that could not be published
+     * @param cause the reason of the failure
+     * @return true if the event is going to be retried, false if it was dead-lettered
+     */
+    default boolean failed(DomainEvent event, Exception cause) {
+        return true;
+    }
 }
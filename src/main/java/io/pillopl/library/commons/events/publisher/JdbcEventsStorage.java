@@ -0,0 +1,212 @@
+package io.pillopl.library.commons.events.publisher;
+
+import io.pillopl.library.commons.events.DomainEvent;
+import io.vavr.collection.List;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static java.sql.Timestamp.from;
+
+/**
+ * Transactional outbox: an {@link EventsStorage} keeping events in the {@code domain_events} table.
+ * <p>
+ * Events are appended with a single JDBC batch through the same data source as the aggregates,
+ * so they take part in the transaction that writes the aggregate. Unpublished events are claimed
+ * in bounded batches, ordered by their insertion sequence. A claim is a lease, so events claimed
+ * by a node that crashed become available again once the lease is over.
+ * <p>
+ * Published events are kept, so the table is also the {@link EventsHistory} of the application.
+ * <p>
+ * Every failed attempt to publish an event is counted next to the event, which is then held back
+ * for an exponentially growing time. Once the attempts run out, the event is dead-lettered: it stays
+ * in the table, but is not handed out anymore until it is requeued.
+ */
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public class JdbcEventsStorage implements EventsStorage, EventsHistory, DeadLetters {
+
+    private static final int DEFAULT_MAX_ATTEMPTS = 10;
+    private static final Duration DEFAULT_RETRY_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration DEFAULT_MAX_RETRY_BACKOFF = Duration.ofMinutes(10);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final NamedParameterJdbcOperations jdbc;
+    private final DomainEventSerializer serializer;
+    private final Clock clock;
+    private final int batchSize;
+    private final Duration claimLease;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+
+    public JdbcEventsStorage(NamedParameterJdbcOperations jdbc, DomainEventSerializer serializer, int batchSize) {
+        this(jdbc, serializer, batchSize, DEFAULT_MAX_ATTEMPTS, DEFAULT_RETRY_BACKOFF, DEFAULT_MAX_RETRY_BACKOFF);
+    }
+
+    /**
+     * @param jdbc            the module's JDBC operations
+     * @param serializer      the format of the stored events
+     * @param batchSize       the maximum number of events claimed for publication at once
+     * @param maxAttempts     the number of failed attempts after which an event is dead-lettered
+     * @param retryBackoff    the time an event is held back after its first failed attempt, doubled after every next one
+     * @param maxRetryBackoff the longest time an event is held back
+     */
+    public JdbcEventsStorage(NamedParameterJdbcOperations jdbc,
+                             DomainEventSerializer serializer,
+                             int batchSize,
+                             int maxAttempts,
+                             Duration retryBackoff,
+                             Duration maxRetryBackoff) {
+        this(jdbc, serializer, Clock.systemUTC(), batchSize, Duration.ofMinutes(1), maxAttempts, retryBackoff, maxRetryBackoff);
+    }
+
+    @Override
+    public void save(DomainEvent event) {
+        save(List.of(event));
+    }
+
+    @Override
+    public void save(List<DomainEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        jdbc.getJdbcOperations().batchUpdate("INSERT INTO domain_events " +
+                        "(id, event_id, event_type, aggregate_id, occurred_at, payload) VALUES " +
+                        "(domain_events_seq.nextval, ?, ?, ?, ?, ?)",
+                events.map(this::toRow).toJavaList());
+    }
+
+    private Object[] toRow(DomainEvent event) {
+        return new Object[]{
+                event.getEventId(),
+                event.getClass().getName(),
+                event.getAggregateId(),
+                event.getWhen() == null ? null : from(event.getWhen()),
+                serializer.serialize(event)};
+    }
+
+    @Override
+    public List<DomainEvent> toPublish() {
+        UUID claim = UUID.randomUUID();
+        Instant now = Instant.now(clock);
+        jdbc.update("UPDATE domain_events SET claimed_by = :claim, claimed_until = :until " +
+                        "WHERE id IN (" +
+                        "SELECT e.id FROM domain_events e " +
+                        "WHERE e.published_at IS NULL AND e.dead_lettered_at IS NULL " +
+                        "AND (e.claimed_until IS NULL OR e.claimed_until < :now) " +
+                        "AND (e.next_attempt_at IS NULL OR e.next_attempt_at <= :now) " +
+                        "ORDER BY e.id LIMIT :limit)",
+                new MapSqlParameterSource()
+                        .addValue("claim", claim)
+                        .addValue("until", from(now.plus(claimLease)))
+                        .addValue("now", from(now))
+                        .addValue("limit", batchSize));
+        return List.ofAll(jdbc.query("SELECT e.payload FROM domain_events e WHERE e.claimed_by = :claim ORDER BY e.id",
+                new MapSqlParameterSource("claim", claim),
+                (rs, rowNum) -> serializer.deserialize(rs.getBytes(1))));
+    }
+
+    @Override
+    public void published(List<DomainEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        jdbc.update("UPDATE domain_events SET published_at = :now, claimed_by = NULL, claimed_until = NULL WHERE event_id IN (:eventIds)",
+                new MapSqlParameterSource()
+                        .addValue("now", from(Instant.now(clock)))
+                        .addValue("eventIds", events.map(DomainEvent::getEventId).toJavaList()));
+    }
+
+    @Override
+    public long lastPosition() {
+        Long last = jdbc.getJdbcOperations().queryForObject("SELECT MAX(e.id) FROM domain_events e", Long.class);
+        return last == null ? 0 : last;
+    }
+
+    @Override
+    public void replay(long fromExclusive, long toInclusive, Consumer<DomainEvent> consumer) {
+        jdbc.query("SELECT e.payload FROM domain_events e WHERE e.id > :from AND e.id <= :to AND e.dead_lettered_at IS NULL ORDER BY e.id",
+                new MapSqlParameterSource()
+                        .addValue("from", fromExclusive)
+                        .addValue("to", toInclusive),
+                (RowCallbackHandler) rs -> consumer.accept(serializer.deserialize(rs.getBytes(1))));
+    }
+
+    @Override
+    public void replay(Collection<UUID> eventIds, Consumer<DomainEvent> consumer) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        jdbc.query("SELECT e.payload FROM domain_events e WHERE e.event_id IN (:eventIds) AND e.dead_lettered_at IS NULL ORDER BY e.id",
+                new MapSqlParameterSource("eventIds", eventIds),
+                (RowCallbackHandler) rs -> consumer.accept(serializer.deserialize(rs.getBytes(1))));
+    }
+
+    /**
+     * Counts the failed attempt and holds the event back, or dead-letters it once the attempts run out.
+     * The attempts are counted and the decision is taken by a single update of the row, so that failures
+     * of the same event reported concurrently are all counted. The claim on the event is released either way.
+     */
+    @Override
+    public boolean failed(DomainEvent event, Exception cause) {
+        int updated = jdbc.update("UPDATE domain_events SET attempts = attempts + 1, last_error = :error, " +
+                        "next_attempt_at = CASE WHEN attempts + 1 < :maxAttempts THEN DATEADD('MILLISECOND', " +
+                        "CAST(LEAST(:backoffMillis * POWER(2, LEAST(attempts, 30)), :maxBackoffMillis) AS BIGINT), :now) END, " +
+                        "dead_lettered_at = CASE WHEN attempts + 1 < :maxAttempts THEN NULL ELSE :now END, " +
+                        "claimed_by = NULL, claimed_until = NULL WHERE event_id = :eventId",
+                new MapSqlParameterSource()
+                        .addValue("error", describe(cause))
+                        .addValue("maxAttempts", maxAttempts)
+                        .addValue("backoffMillis", retryBackoff.toMillis())
+                        .addValue("maxBackoffMillis", maxRetryBackoff.toMillis())
+                        .addValue("now", from(Instant.now(clock)))
+                        .addValue("eventId", event.getEventId()));
+        if (updated == 0) {
+            return true;
+        }
+        Boolean deadLettered = jdbc.queryForObject("SELECT e.dead_lettered_at IS NOT NULL FROM domain_events e WHERE e.event_id = :eventId",
+                new MapSqlParameterSource("eventId", event.getEventId()), Boolean.class);
+        return !Boolean.TRUE.equals(deadLettered);
+    }
+
+    private static String describe(Exception cause) {
+        String description = cause.toString();
+        return description.length() > MAX_ERROR_LENGTH ? description.substring(0, MAX_ERROR_LENGTH) : description;
+    }
+
+    @Override
+    public List<DeadLetter> deadLetters(int limit) {
+        return List.ofAll(jdbc.query("SELECT e.event_id, e.event_type, e.aggregate_id, e.occurred_at, e.attempts, e.last_error, e.dead_lettered_at " +
+                        "FROM domain_events e WHERE e.dead_lettered_at IS NOT NULL ORDER BY e.dead_lettered_at DESC LIMIT :limit",
+                new MapSqlParameterSource("limit", limit),
+                (rs, rowNum) -> new DeadLetter(
+                        rs.getObject("event_id", UUID.class),
+                        rs.getString("event_type"),
+                        rs.getObject("aggregate_id", UUID.class),
+                        toInstant(rs.getTimestamp("occurred_at")),
+                        rs.getInt("attempts"),
+                        rs.getString("last_error"),
+                        toInstant(rs.getTimestamp("dead_lettered_at")))));
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+
+    @Override
+    public boolean requeue(UUID eventId) {
+        return jdbc.update("UPDATE domain_events SET dead_lettered_at = NULL, attempts = 0, next_attempt_at = NULL " +
+                        "WHERE event_id = :eventId AND dead_lettered_at IS NOT NULL",
+                new MapSqlParameterSource("eventId", eventId)) > 0;
+    }
+}
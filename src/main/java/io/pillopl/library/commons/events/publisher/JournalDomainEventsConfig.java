@@ -0,0 +1,101 @@
+package io.pillopl.library.commons.events.publisher;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.pillopl.library.commons.events.DomainEvents;
+import io.vavr.collection.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * Configuration of the store-and-forward event publication backed by a local journal, active with the "journal" profile.
+ * <p>
+ * Meant for single-node deployments: events are kept in memory-mapped files instead of the database.
+ */
+@Configuration
+@Profile("journal")
+public class JournalDomainEventsConfig {
+
+    /**
+     * Opens the events journal. The journal is flushed and closed together with the context.
+     *
+     * @param codecs                the event codecs of the modules
+     * @param directory             the directory of the journal files
+     * @param segmentSize           the size of a single journal file in bytes
+     * @param batchSize             the maximum number of events published at once
+     * @param forceIntervalMillis   the longest time appended events may stay in memory only
+     * @param maxAttempts           the number of failed attempts after which an event is dead-lettered
+     * @param retryBackoffMillis    the time an event is held back after its first failed attempt, doubled after every next one
+     * @param maxRetryBackoffMillis the longest time a failed event is held back
+     * @return the journal {@link EventsStorage}
+     */
+    @Bean
+    JournalEventsStorage journalEventsStorage(java.util.List<EventCodecs> codecs,
+                                              @Value("${domain-events.journal.directory:${java.io.tmpdir}/library-events}") String directory,
+                                              @Value("${domain-events.journal.segment-size:67108864}") int segmentSize,
+                                              @Value("${domain-events.journal.batch-size:100}") int batchSize,
+                                              @Value("${domain-events.journal.force-interval-millis:100}") long forceIntervalMillis,
+                                              @Value("${domain-events.journal.max-attempts:10}") int maxAttempts,
+                                              @Value("${domain-events.journal.retry-backoff-millis:1000}") long retryBackoffMillis,
+                                              @Value("${domain-events.journal.max-retry-backoff-millis:600000}") long maxRetryBackoffMillis) {
+        return new JournalEventsStorage(
+                Paths.get(directory),
+                new BinaryDomainEventSerializer(List.ofAll(codecs)),
+                segmentSize,
+                batchSize,
+                Duration.ofMillis(forceIntervalMillis),
+                maxAttempts,
+                Duration.ofMillis(retryBackoffMillis),
+                Duration.ofMillis(maxRetryBackoffMillis));
+    }
+
+    /**
+     * Creates the actuator endpoint listing and requeueing dead-lettered events of the journal.
+     *
+     * @param deadLetters the dead-lettered events of the journal
+     * @return the {@link DeadLettersEndpoint}
+     */
+    @Bean
+    DeadLettersEndpoint journalDeadLettersEndpoint(JournalEventsStorage deadLetters) {
+        return new DeadLettersEndpoint(deadLetters);
+    }
+
+    /**
+     * Creates the store-and-forward DomainEvents bean, taking precedence over the synchronous one.
+     *
+     * @param applicationEventPublisher Spring's application event publisher
+     * @param batchEventListeners       the listeners handling events in bulk
+     * @param meterRegistry             the registry for application metrics
+     * @param journalEventsStorage      the events journal
+     * @param transactionManager        the transaction manager of the module's data source
+     * @param minBackoffMillis          the polling interval right after the journal became empty
+     * @param maxLatencyMillis          the longest polling interval of an idle journal
+     * @return the store-and-forward DomainEvents instance
+     */
+    @Bean(initMethod = "start")
+    @Primary
+    DomainEvents journalDomainEvents(ApplicationEventPublisher applicationEventPublisher,
+                                     BatchEventListeners batchEventListeners,
+                                     MeterRegistry meterRegistry,
+                                     JournalEventsStorage journalEventsStorage,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${domain-events.journal.min-backoff-millis:${domain-events.outbox.min-backoff-millis:10}}") long minBackoffMillis,
+                                     @Value("${domain-events.journal.max-latency-millis:${domain-events.outbox.max-latency-millis:3000}}") long maxLatencyMillis) {
+        return new StoreAndForwardDomainEventPublisher(
+                new MeteredDomainEventPublisher(
+                        new JustForwardDomainEventPublisher(applicationEventPublisher, batchEventListeners), meterRegistry),
+                journalEventsStorage,
+                new TransactionTemplate(transactionManager),
+                Duration.ofMillis(minBackoffMillis),
+                Duration.ofMillis(maxLatencyMillis),
+                meterRegistry);
+    }
+}
@@ -0,0 +1,650 @@
+package io.pillopl.library.commons.events.publisher;
+
+import io.pillopl.library.commons.events.DomainEvent;
+import io.vavr.collection.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.SYNC;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * {@link EventsStorage} appending events to memory-mapped segment files, meant for single-node deployments.
+ * <p>
+ * A segment is a file of fixed size, named after the journal offset of its first byte. A record is the length
+ * and the CRC32 of the payload, followed by the event in the {@link BinaryDomainEventSerializer} format, encoded
+ * straight into the mapped segment. When a record does not fit in the current segment, the next one is created.
+ * Segments are flushed to disk when they are full and by a background thread every force interval, if anything
+ * was appended since the last flush. With a zero interval, every append is flushed at once.
+ * <p>
+ * The offset up to which events were published is kept in a checkpoint file, replaced atomically and synced
+ * on every update. Events are read from the checkpoint onward, decoded from the mapped segments, and segments
+ * entirely before the checkpoint are deleted. On start, records at the end of the last segment are validated
+ * with their checksums, and a record torn by a crash is discarded together with anything after it.
+ * <p>
+ * The outcome of every event handed out is recorded on its own. Events published past a failed one are
+ * remembered, and the checkpoint moves past them once the events before them are published or dead-lettered.
+ * A failed event is held back for an exponentially growing time. Once its attempts run out, it is moved to
+ * the dead letters file, replaced atomically like the checkpoint, and stays there until it is requeued.
+ * Outcomes and attempts of events after the checkpoint are kept in memory only, so after a restart these events
+ * are handed out again.
+ * <p>
+ * Events saved within a transaction are kept aside and appended right before it commits, so events of a command
+ * that fails and rolls back are never journalled. A commit failing after the events were appended still leaves
+ * them in the journal.
+ */
+@Slf4j
+public class JournalEventsStorage implements EventsStorage, DeadLetters, AutoCloseable {
+
+    private static final int HEADER = 2 * Integer.BYTES;
+    private static final String SEGMENT_SUFFIX = ".segment";
+    private static final String CHECKPOINT = "checkpoint";
+    private static final String DEAD_LETTERS = "dead-letters";
+    private static final int DEFAULT_MAX_ATTEMPTS = 10;
+    private static final Duration DEFAULT_RETRY_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration DEFAULT_MAX_RETRY_BACKOFF = Duration.ofMinutes(10);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final Path directory;
+    private final BinaryDomainEventSerializer serializer;
+    private final int segmentSize;
+    private final int batchSize;
+    private final long forceIntervalNanos;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final CRC32 crc = new CRC32();
+    private final ScheduledExecutorService forcing;
+    private final TreeMap<Long, Long> publishedAfterCheckpoint = new TreeMap<>();
+    private final TreeMap<Long, Retry> retries = new TreeMap<>();
+    private final java.util.List<StoredDeadLetter> deadLetters;
+    private Map<UUID, Record> handedOut = new HashMap<>();
+    private long writeOffset;
+    private long checkpoint;
+    private long handedOutUpTo;
+    private boolean appendedSinceForce;
+
+    /**
+     * Opens the journal kept in the directory, recovering it after a crash if needed.
+     *
+     * @param directory     the directory of segment files and the checkpoint
+     * @param serializer    the format of the events
+     * @param segmentSize   the size of a segment file in bytes
+     * @param batchSize     the maximum number of events returned by {@link #toPublish()}
+     * @param forceInterval the longest time appended events may stay in memory only, zero to flush every append
+     */
+    public JournalEventsStorage(Path directory,
+                                BinaryDomainEventSerializer serializer,
+                                int segmentSize,
+                                int batchSize,
+                                Duration forceInterval) {
+        this(directory, serializer, segmentSize, batchSize, forceInterval,
+                DEFAULT_MAX_ATTEMPTS, DEFAULT_RETRY_BACKOFF, DEFAULT_MAX_RETRY_BACKOFF);
+    }
+
+    /**
+     * Opens the journal kept in the directory, recovering it after a crash if needed.
+     *
+     * @param directory       the directory of segment files, the checkpoint and dead letters
+     * @param serializer      the format of the events
+     * @param segmentSize     the size of a segment file in bytes
+     * @param batchSize       the maximum number of events returned by {@link #toPublish()}
+     * @param forceInterval   the longest time appended events may stay in memory only, zero to flush every append
+     * @param maxAttempts     the number of failed attempts after which an event is dead-lettered
+     * @param retryBackoff    the time an event is held back after its first failed attempt, doubled after every next one
+     * @param maxRetryBackoff the longest time an event is held back
+     */
+    public JournalEventsStorage(Path directory,
+                                BinaryDomainEventSerializer serializer,
+                                int segmentSize,
+                                int batchSize,
+                                Duration forceInterval,
+                                int maxAttempts,
+                                Duration retryBackoff,
+                                Duration maxRetryBackoff) {
+        this.directory = directory;
+        this.serializer = serializer;
+        this.segmentSize = segmentSize;
+        this.batchSize = batchSize;
+        this.forceIntervalNanos = forceInterval.toNanos();
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff;
+        try {
+            Files.createDirectories(directory);
+            checkpoint = readCheckpoint();
+            deadLetters = readDeadLetters();
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                        .forEach(this::openSegment);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open events journal in " + directory, e);
+        }
+        if (segments.isEmpty()) {
+            createSegment(checkpoint - checkpoint % segmentSize);
+        }
+        writeOffset = recoverTail(segments.lastEntry().getValue());
+        if (checkpoint > writeOffset || checkpoint < segments.firstKey()) {
+            log.warn("Checkpoint {} of events journal outside of journal, publishing from {}", checkpoint, segments.firstKey());
+            checkpoint = segments.firstKey();
+        }
+        handedOutUpTo = checkpoint;
+        this.forcing = forceIntervalNanos == 0 ? null : startForcing();
+    }
+
+    private ScheduledExecutorService startForcing() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("events-journal-force-");
+        threadFactory.setDaemon(true);
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        executor.scheduleWithFixedDelay(this::forceAppended, forceIntervalNanos, forceIntervalNanos, TimeUnit.NANOSECONDS);
+        return executor;
+    }
+
+    @Override
+    public void save(DomainEvent event) {
+        save(List.of(event));
+    }
+
+    /**
+     * Appends the events, or keeps them aside until the current transaction is about to commit.
+     *
+     * @param events the domain events to save, in the order they were raised
+     */
+    @Override
+    public void save(List<DomainEvent> events) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            savedInTransaction().addAll(events.toJavaList());
+        } else {
+            appendAll(events);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private java.util.List<DomainEvent> savedInTransaction() {
+        java.util.List<DomainEvent> saved = (java.util.List<DomainEvent>) TransactionSynchronizationManager.getResource(this);
+        if (saved == null) {
+            java.util.List<DomainEvent> events = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, events);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    appendAll(events);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(JournalEventsStorage.this);
+                }
+            });
+            saved = events;
+        }
+        return saved;
+    }
+
+    private synchronized void appendAll(Iterable<DomainEvent> events) {
+        events.forEach(this::append);
+        if (forcing == null) {
+            segments.lastEntry().getValue().buffer.force();
+        } else {
+            appendedSinceForce = true;
+        }
+    }
+
+    private void append(DomainEvent event) {
+        Segment segment = segments.lastEntry().getValue();
+        int position = (int) (writeOffset - segment.base);
+        if (position + HEADER >= segmentSize) {
+            roll(segment);
+            append(event);
+            return;
+        }
+        ByteBuffer record = segment.buffer.duplicate();
+        record.position(position + HEADER);
+        try {
+            serializer.encode(event, record);
+        } catch (BufferOverflowException e) {
+            zero(segment, position, segmentSize);
+            if (position == 0) {
+                throw new IllegalArgumentException("Event " + event.getEventId() + " does not fit in a journal segment");
+            }
+            roll(segment);
+            append(event);
+            return;
+        } catch (RuntimeException e) {
+            zero(segment, position, record.position());
+            throw e;
+        }
+        int length = record.position() - position - HEADER;
+        segment.buffer.putInt(position + Integer.BYTES, checksum(segment, position + HEADER, length));
+        segment.buffer.putInt(position, length);
+        writeOffset += HEADER + length;
+    }
+
+    private void roll(Segment full) {
+        full.buffer.force();
+        createSegment(full.base + segmentSize);
+        writeOffset = full.base + segmentSize;
+    }
+
+    private synchronized void forceAppended() {
+        if (appendedSinceForce && !segments.isEmpty()) {
+            segments.lastEntry().getValue().buffer.force();
+            appendedSinceForce = false;
+        }
+    }
+
+    /**
+     * Hands out the events held back after a failure whose time has come, followed by events not handed out yet.
+     * Events handed out before, but neither published nor failed since, are handed out again.
+     *
+     * @return the events to publish, up to the batch size
+     */
+    @Override
+    public synchronized List<DomainEvent> toPublish() {
+        handedOut.values().forEach(record -> retries.computeIfAbsent(record.start, start -> new Retry(record.end)).notBefore = 0);
+        Map<UUID, Record> batch = new HashMap<>();
+        java.util.List<DomainEvent> events = new ArrayList<>();
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Long, Retry>> due = retries.entrySet().iterator();
+        while (events.size() < batchSize && due.hasNext()) {
+            Map.Entry<Long, Retry> retry = due.next();
+            if (retry.getValue().notBefore - now <= 0) {
+                handOut(new Record(retry.getKey(), retry.getValue().end), events, batch);
+            }
+        }
+        while (events.size() < batchSize && handedOutUpTo < writeOffset) {
+            long start = recordStart(handedOutUpTo);
+            if (start >= writeOffset) {
+                break;
+            }
+            Record record = recordAt(start);
+            handOut(record, events, batch);
+            handedOutUpTo = record.end;
+        }
+        handedOut = batch;
+        return List.ofAll(events);
+    }
+
+    private Record recordAt(long start) {
+        Segment segment = segments.floorEntry(start).getValue();
+        return new Record(start, start + HEADER + segment.buffer.getInt((int) (start - segment.base)));
+    }
+
+    private void handOut(Record record, java.util.List<DomainEvent> events, Map<UUID, Record> batch) {
+        DomainEvent event = serializer.decode(payloadOf(record));
+        events.add(event);
+        batch.put(event.getEventId(), record);
+    }
+
+    private ByteBuffer payloadOf(Record record) {
+        Segment segment = segments.floorEntry(record.start).getValue();
+        int position = (int) (record.start - segment.base);
+        return segment.buffer.duplicate()
+                .limit(position + (int) (record.end - record.start))
+                .position(position + HEADER);
+    }
+
+    /**
+     * Returns the offset of the record at the given offset, or of the first record of the next segment,
+     * if the rest of the segment is left empty.
+     */
+    private long recordStart(long offset) {
+        Segment segment = segments.floorEntry(offset).getValue();
+        int position = (int) (offset - segment.base);
+        if (position + HEADER >= segmentSize || segment.buffer.getInt(position) == 0) {
+            return segment.base + segmentSize;
+        }
+        return offset;
+    }
+
+    /**
+     * Records the events as published and moves the checkpoint past all the events before the first one
+     * that is neither published nor dead-lettered.
+     *
+     * @param events the published domain events
+     */
+    @Override
+    public synchronized void published(List<DomainEvent> events) {
+        events.forEach(event -> {
+            Record record = handedOut.remove(event.getEventId());
+            if (record != null) {
+                retries.remove(record.start);
+                publishedAfterCheckpoint.put(record.start, record.end);
+            }
+        });
+        moveCheckpointPastPublished();
+    }
+
+    /**
+     * Counts the failed attempt and holds the event back, or moves it to the dead letters once the attempts run out.
+     */
+    @Override
+    public synchronized boolean failed(DomainEvent event, Exception cause) {
+        Record record = handedOut.remove(event.getEventId());
+        if (record == null) {
+            return true;
+        }
+        Retry retry = retries.computeIfAbsent(record.start, start -> new Retry(record.end));
+        retry.attempts++;
+        if (retry.attempts < maxAttempts) {
+            retry.notBefore = System.nanoTime() + backoff(retry.attempts).toNanos();
+            return true;
+        }
+        byte[] payload = new byte[(int) (record.end - record.start) - HEADER];
+        payloadOf(record).get(payload);
+        deadLetters.add(new StoredDeadLetter(new DeadLetter(
+                event.getEventId(),
+                event.getClass().getName(),
+                event.getAggregateId(),
+                event.getWhen(),
+                retry.attempts,
+                describe(cause),
+                Instant.now()), payload));
+        writeDeadLetters();
+        retries.remove(record.start);
+        publishedAfterCheckpoint.put(record.start, record.end);
+        moveCheckpointPastPublished();
+        return false;
+    }
+
+    private Duration backoff(int attempts) {
+        Duration backoff = retryBackoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+        return backoff.compareTo(maxRetryBackoff) > 0 ? maxRetryBackoff : backoff;
+    }
+
+    private static String describe(Exception cause) {
+        String description = cause.toString();
+        return description.length() > MAX_ERROR_LENGTH ? description.substring(0, MAX_ERROR_LENGTH) : description;
+    }
+
+    private void moveCheckpointPastPublished() {
+        long offset = checkpoint;
+        Long end;
+        while (offset < writeOffset && (end = publishedAfterCheckpoint.remove(recordStart(offset))) != null) {
+            offset = end;
+        }
+        if (offset != checkpoint) {
+            moveCheckpoint(offset);
+        }
+    }
+
+    @Override
+    public synchronized List<DeadLetter> deadLetters(int limit) {
+        return List.ofAll(deadLetters).reverse().take(limit).map(stored -> stored.deadLetter);
+    }
+
+    /**
+     * Appends the dead-lettered event to the journal again, as a new event to publish.
+     */
+    @Override
+    public synchronized boolean requeue(UUID eventId) {
+        for (Iterator<StoredDeadLetter> stored = deadLetters.iterator(); stored.hasNext(); ) {
+            StoredDeadLetter deadLetter = stored.next();
+            if (deadLetter.deadLetter.getEventId().equals(eventId)) {
+                appendAll(List.of(serializer.decode(ByteBuffer.wrap(deadLetter.payload))));
+                stored.remove();
+                writeDeadLetters();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void moveCheckpoint(long offset) {
+        checkpoint = offset;
+        writeCheckpoint(offset);
+        long lastBase = segments.lastKey();
+        while (segments.firstKey() < lastBase && segments.firstKey() + segmentSize <= checkpoint) {
+            deleteSegment(segments.pollFirstEntry().getValue());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (forcing != null) {
+            forcing.shutdownNow();
+        }
+        closeSegments();
+    }
+
+    private synchronized void closeSegments() {
+        segments.values().forEach(segment -> {
+            segment.buffer.force();
+            closeQuietly(segment.channel);
+        });
+        segments.clear();
+    }
+
+    private long recoverTail(Segment segment) {
+        int position = 0;
+        while (position + HEADER < segmentSize) {
+            int length = segment.buffer.getInt(position);
+            if (length == 0) {
+                break;
+            }
+            if (length < 0 || position + HEADER + length > segmentSize
+                    || segment.buffer.getInt(position + Integer.BYTES) != checksum(segment, position + HEADER, length)) {
+                log.warn("Discarding torn record at offset {} of events journal", segment.base + position);
+                break;
+            }
+            position += HEADER + length;
+        }
+        zero(segment, position, segmentSize);
+        segment.buffer.force();
+        return segment.base + position;
+    }
+
+    private int checksum(Segment segment, int from, int length) {
+        crc.reset();
+        crc.update(segment.buffer.duplicate().limit(from + length).position(from));
+        return (int) crc.getValue();
+    }
+
+    private static void zero(Segment segment, int from, int to) {
+        for (int i = from; i < to; i++) {
+            segment.buffer.put(i, (byte) 0);
+        }
+    }
+
+    private void openSegment(Path file) {
+        String name = file.getFileName().toString();
+        long base = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        segments.put(base, mapSegment(base));
+    }
+
+    private void createSegment(long base) {
+        segments.put(base, mapSegment(base));
+    }
+
+    private Segment mapSegment(long base) {
+        try {
+            FileChannel channel = FileChannel.open(segmentFile(base), CREATE, READ, WRITE);
+            return new Segment(base, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map events journal segment " + base, e);
+        }
+    }
+
+    private void deleteSegment(Segment segment) {
+        closeQuietly(segment.channel);
+        try {
+            Files.deleteIfExists(segmentFile(segment.base));
+        } catch (IOException e) {
+            log.warn("Cannot delete published events journal segment {}", segment.base, e);
+        }
+    }
+
+    private Path segmentFile(long base) {
+        return directory.resolve(String.format("%020d%s", base, SEGMENT_SUFFIX));
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        return ByteBuffer.wrap(Files.readAllBytes(file)).getLong();
+    }
+
+    private void writeCheckpoint(long offset) {
+        Path temporary = directory.resolve(CHECKPOINT + ".tmp");
+        try {
+            Files.write(temporary, ByteBuffer.allocate(Long.BYTES).putLong(offset).array(), CREATE, WRITE, TRUNCATE_EXISTING, SYNC);
+            Files.move(temporary, directory.resolve(CHECKPOINT), ATOMIC_MOVE, REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write checkpoint of events journal", e);
+        }
+    }
+
+    private java.util.List<StoredDeadLetter> readDeadLetters() throws IOException {
+        java.util.List<StoredDeadLetter> stored = new ArrayList<>();
+        Path file = directory.resolve(DEAD_LETTERS);
+        if (!Files.exists(file)) {
+            return stored;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file)))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                DeadLetter deadLetter = new DeadLetter(
+                        new UUID(in.readLong(), in.readLong()),
+                        in.readUTF(),
+                        in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null,
+                        in.readBoolean() ? Instant.ofEpochSecond(in.readLong(), in.readInt()) : null,
+                        in.readInt(),
+                        in.readUTF(),
+                        Instant.ofEpochSecond(in.readLong(), in.readInt()));
+                byte[] payload = new byte[in.readInt()];
+                in.readFully(payload);
+                stored.add(new StoredDeadLetter(deadLetter, payload));
+            }
+        }
+        return stored;
+    }
+
+    private void writeDeadLetters() {
+        Path temporary = directory.resolve(DEAD_LETTERS + ".tmp");
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(deadLetters.size());
+            for (StoredDeadLetter stored : deadLetters) {
+                DeadLetter deadLetter = stored.deadLetter;
+                out.writeLong(deadLetter.getEventId().getMostSignificantBits());
+                out.writeLong(deadLetter.getEventId().getLeastSignificantBits());
+                out.writeUTF(deadLetter.getEventType());
+                out.writeBoolean(deadLetter.getAggregateId() != null);
+                if (deadLetter.getAggregateId() != null) {
+                    out.writeLong(deadLetter.getAggregateId().getMostSignificantBits());
+                    out.writeLong(deadLetter.getAggregateId().getLeastSignificantBits());
+                }
+                out.writeBoolean(deadLetter.getOccurredAt() != null);
+                if (deadLetter.getOccurredAt() != null) {
+                    out.writeLong(deadLetter.getOccurredAt().getEpochSecond());
+                    out.writeInt(deadLetter.getOccurredAt().getNano());
+                }
+                out.writeInt(deadLetter.getAttempts());
+                out.writeUTF(deadLetter.getLastError());
+                out.writeLong(deadLetter.getDeadLetteredAt().getEpochSecond());
+                out.writeInt(deadLetter.getDeadLetteredAt().getNano());
+                out.writeInt(stored.payload.length);
+                out.write(stored.payload);
+            }
+            Files.write(temporary, bytes.toByteArray(), CREATE, WRITE, TRUNCATE_EXISTING, SYNC);
+            Files.move(temporary, directory.resolve(DEAD_LETTERS), ATOMIC_MOVE, REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write dead letters of events journal", e);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Cannot close events journal segment", e);
+        }
+    }
+
+    /**
+     * Position of an event in the journal, from its header up to the start of the next record.
+     */
+    private static class Record {
+
+        private final long start;
+        private final long end;
+
+        private Record(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private static class Retry {
+
+        private final long end;
+        private int attempts;
+        private long notBefore;
+
+        private Retry(long end) {
+            this.end = end;
+        }
+    }
+
+    private static class StoredDeadLetter {
+
+        private final DeadLetter deadLetter;
+        private final byte[] payload;
+
+        private StoredDeadLetter(DeadLetter deadLetter, byte[] payload) {
+            this.deadLetter = deadLetter;
+            this.payload = payload;
+        }
+    }
+
+    private static class Segment {
+
+        private final long base;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+
+        private Segment(long base, FileChannel channel, MappedByteBuffer buffer) {
+            this.base = base;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+}
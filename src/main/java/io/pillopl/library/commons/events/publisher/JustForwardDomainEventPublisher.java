@@ -1,18 +1,27 @@
 package io.pillopl.library.commons.events.publisher;
 
+import io.pillopl.library.commons.events.BatchEventListener;
 import io.pillopl.library.commons.events.DomainEvent;
 import io.pillopl.library.commons.events.DomainEvents;
+import io.vavr.collection.List;
 import lombok.AllArgsConstructor;
 import org.springframework.context.ApplicationEventPublisher;
 
 /**
  * Implementation of {@link DomainEvents} that forwards events directly to Spring's {@link ApplicationEventPublisher}.
  * This is a synchronous publisher.
+ * <p>
+ * {@link BatchEventListener}s get runs of events of their type in one call, before the events are forwarded.
  */
 @AllArgsConstructor
 public class JustForwardDomainEventPublisher implements DomainEvents {
 
     private final ApplicationEventPublisher applicationEventPublisher;
+    private final BatchEventListeners batchEventListeners;
+
+    public JustForwardDomainEventPublisher(ApplicationEventPublisher applicationEventPublisher) {
+        this(applicationEventPublisher, BatchEventListeners.none());
+    }
 
     /**
      * Publishes the domain event using Spring's event mechanism.
@@ -21,6 +30,16 @@ public class JustForwardDomainEventPublisher implements DomainEvents {
      */
     @Override
     public void publish(DomainEvent event) {
-        applicationEventPublisher.publishEvent(event);
+        publish(List.of(event));
+    }
+
+    /**
+     * Hands the events over to batch listeners, run by run, and publishes each of them using Spring's event mechanism.
+     *
+     * @param events the list of domain events to publish
+     */
+    @Override
+    public void publish(List<DomainEvent> events) {
+        batchEventListeners.dispatch(events, applicationEventPublisher::publishEvent);
     }
 }
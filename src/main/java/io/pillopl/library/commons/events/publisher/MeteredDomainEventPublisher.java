@@ -1,32 +1,108 @@
 package io.pillopl.library.commons.events.publisher;
 
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.pillopl.library.commons.events.DomainEvent;
 import io.pillopl.library.commons.events.DomainEvents;
-import lombok.AllArgsConstructor;
+import io.vavr.collection.List;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 
 /**
  * Decorator for {@link DomainEvents} that adds metrics recording.
- * Counts the number of published events, tagged by event type.
+ * Counts the number of published events and measures the time of publishing them, tagged by event type.
+ * Failed publications are counted separately, tagged by event type and exception type.
+ * <p>
+ * Meters are looked up once per event type and cached, so that recording does not allocate.
  */
-@AllArgsConstructor
 public class MeteredDomainEventPublisher implements DomainEvents {
 
     private static final String DOMAIN_EVENTS = "domain_events";
+    private static final String DOMAIN_EVENTS_PUBLISH = "domain_events_publish";
+    private static final String DOMAIN_EVENTS_FAILURES = "domain_events_failures";
     private static final String TAG_NAME = "name";
+    private static final String TAG_EXCEPTION = "exception";
 
     private final DomainEvents delegate;
-    private final MeterRegistry metricsRegistry;
+    private final ClassValue<Meters> meters;
+
+    public MeteredDomainEventPublisher(DomainEvents delegate, MeterRegistry metricsRegistry) {
+        this.delegate = delegate;
+        this.meters = new ClassValue<Meters>() {
+            @Override
+            protected Meters computeValue(Class<?> eventType) {
+                return new Meters(metricsRegistry, eventType.getSimpleName());
+            }
+        };
+    }
 
     /**
-     * Publishes the event via the delegate and increments the event counter.
+     * Publishes the event via the delegate, measuring the time it takes, and increments the event counter.
      *
      * @param event the domain event to publish
      */
     @Override
     public void publish(DomainEvent event) {
-        delegate.publish(event);
-        metricsRegistry.counter(DOMAIN_EVENTS, TAG_NAME, event.getClass().getSimpleName()).increment();
+        Meters eventMeters = meters.get(event.getClass());
+        long start = System.nanoTime();
+        try {
+            delegate.publish(event);
+        } catch (RuntimeException e) {
+            eventMeters.failed(e);
+            throw e;
+        } finally {
+            eventMeters.publishing.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        eventMeters.published.increment();
+    }
+
+    /**
+     * Publishes the events via the delegate in one call, so that they can be handled in bulk.
+     * The time it takes is spread evenly over the events.
+     *
+     * @param events the list of domain events to publish
+     */
+    @Override
+    public void publish(List<DomainEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            delegate.publish(events);
+        } catch (RuntimeException e) {
+            events.forEach(event -> meters.get(event.getClass()).failed(e));
+            throw e;
+        } finally {
+            long perEvent = (System.nanoTime() - start) / events.size();
+            events.forEach(event -> meters.get(event.getClass()).publishing.record(perEvent, TimeUnit.NANOSECONDS));
+        }
+        events.forEach(event -> meters.get(event.getClass()).published.increment());
+    }
+
+    private static class Meters {
+
+        private final MeterRegistry registry;
+        private final String eventName;
+        private final Counter published;
+        private final Timer publishing;
+        private final Map<Class<?>, Counter> failures = new ConcurrentHashMap<>();
+
+        private Meters(MeterRegistry registry, String eventName) {
+            this.registry = registry;
+            this.eventName = eventName;
+            this.published = registry.counter(DOMAIN_EVENTS, TAG_NAME, eventName);
+            this.publishing = registry.timer(DOMAIN_EVENTS_PUBLISH, TAG_NAME, eventName);
+        }
+
+        private void failed(RuntimeException e) {
+            failures.computeIfAbsent(e.getClass(), exceptionType ->
+                    registry.counter(DOMAIN_EVENTS_FAILURES, TAG_NAME, eventName, TAG_EXCEPTION, exceptionType.getSimpleName()))
+                    .increment();
+        }
     }
 }
@@ -1,23 +1,96 @@
 package io.pillopl.library.commons.events.publisher;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import io.pillopl.library.commons.events.DomainEvent;
 import io.pillopl.library.commons.events.DomainEvents;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
 import io.vavr.collection.List;
-import lombok.AllArgsConstructor;
-import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.transaction.annotation.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 
 /**
  * Implementation of the Store-and-Forward pattern for reliable event publishing.
- * Events are first saved to storage and then published periodically in batches.
+ * Events are first saved to storage and then published in batches by a background drainer.
  * This ensures that events are not lost if the publishing mechanism fails momentarily.
+ * <p>
+ * Saving events wakes the drainer up (after the commit, when saved within a transaction), which then publishes
+ * batches until the storage is empty. When there is nothing to publish, the drainer polls the storage
+ * with an exponentially growing interval, up to the maximum latency, so that events stored by other nodes
+ * are published as well.
+ * <p>
+ * A batch is published in one transaction. When that fails, its events are published one by one, each in its own
+ * transaction, so that a single poisonous event does not hold back the others. Every event that still fails is
+ * reported to the storage, which decides whether it is retried later or dead-lettered. Events of a failed batch
+ * may thus be delivered more than once, which listeners are expected to tolerate anyway.
  */
-@AllArgsConstructor
-public class StoreAndForwardDomainEventPublisher implements DomainEvents {
+@Slf4j
+public class StoreAndForwardDomainEventPublisher implements DomainEvents, AutoCloseable {
+
+    private static final TransactionOperations NO_TRANSACTION = callback -> callback.doInTransaction(null);
+    private static final Duration DEFAULT_MIN_BACKOFF = Duration.ofMillis(10);
+    private static final Duration DEFAULT_MAX_LATENCY = Duration.ofSeconds(3);
+    private static final String DOMAIN_EVENTS_RETRIES = "domain_events_retries";
+    private static final String DOMAIN_EVENTS_DEAD_LETTERED = "domain_events_dead_lettered";
+    private static final String TAG_NAME = "name";
 
     private final DomainEvents eventsPublisher;
     private final EventsStorage eventsStorage;
+    private final TransactionOperations transactions;
+    private final Duration minBackoff;
+    private final Duration maxLatency;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore signal = new Semaphore(0);
+    private volatile Thread drainer;
+
+    public StoreAndForwardDomainEventPublisher(DomainEvents eventsPublisher, EventsStorage eventsStorage) {
+        this(eventsPublisher, eventsStorage, NO_TRANSACTION, DEFAULT_MIN_BACKOFF, DEFAULT_MAX_LATENCY);
+    }
+
+    /**
+     * @param eventsPublisher the publisher delivering events to the listeners
+     * @param eventsStorage   the storage keeping events until they are published
+     * @param transactions    the transactions every published batch is wrapped in
+     * @param minBackoff      the polling interval right after the storage became empty
+     * @param maxLatency      the longest polling interval of an idle drainer
+     */
+    public StoreAndForwardDomainEventPublisher(DomainEvents eventsPublisher,
+                                               EventsStorage eventsStorage,
+                                               TransactionOperations transactions,
+                                               Duration minBackoff,
+                                               Duration maxLatency) {
+        this(eventsPublisher, eventsStorage, transactions, minBackoff, maxLatency, Metrics.globalRegistry);
+    }
+
+    /**
+     * @param eventsPublisher the publisher delivering events to the listeners
+     * @param eventsStorage   the storage keeping events until they are published
+     * @param transactions    the transactions every published batch is wrapped in
+     * @param minBackoff      the polling interval right after the storage became empty
+     * @param maxLatency      the longest polling interval of an idle drainer
+     * @param meterRegistry   the registry counting retried and dead-lettered events
+     */
+    public StoreAndForwardDomainEventPublisher(DomainEvents eventsPublisher,
+                                               EventsStorage eventsStorage,
+                                               TransactionOperations transactions,
+                                               Duration minBackoff,
+                                               Duration maxLatency,
+                                               MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.eventsPublisher = eventsPublisher;
+        this.eventsStorage = eventsStorage;
+        this.transactions = transactions;
+        this.minBackoff = minBackoff;
+        this.maxLatency = maxLatency;
+    }
 
     /**
      * Saves the event to storage instead of publishing it immediately.
@@ -27,18 +100,144 @@ public class StoreAndForwardDomainEventPublisher implements DomainEvents {
     @Override
     public void publish(DomainEvent event) {
         eventsStorage.save(event);
+        wakeUpDrainer();
+    }
+
+    /**
+     * Saves all the events to storage at once, so that the storage can append them in a single batch.
+     *
+     * @param events the domain events to store
+     */
+    @Override
+    public void publish(List<DomainEvent> events) {
+        eventsStorage.save(events);
+        wakeUpDrainer();
+    }
+
+    private void wakeUpDrainer() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    signal.release();
+                }
+            });
+        } else {
+            signal.release();
+        }
+    }
+
+    /**
+     * Starts the background drainer.
+     */
+    public synchronized void start() {
+        if (drainer == null) {
+            drainer = new Thread(this::drainContinuously, "domain-events-drainer");
+            drainer.setDaemon(true);
+            drainer.start();
+        }
+    }
+
+    /**
+     * Stops the background drainer. Events not published yet stay in the storage.
+     */
+    @Override
+    public synchronized void close() throws InterruptedException {
+        if (drainer != null) {
+            drainer.interrupt();
+            drainer.join();
+            drainer = null;
+        }
+    }
+
+    private void drainContinuously() {
+        Duration idle = minBackoff;
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Tuple2<Integer, Integer> drained = drain();
+                idle = drained._1 > 0 && drained._2 == 0 ? minBackoff : longer(idle);
+            } catch (RuntimeException e) {
+                log.error("Failed to publish stored events", e);
+                idle = longer(idle);
+            }
+            try {
+                if (signal.tryAcquire(idle.toMillis(), TimeUnit.MILLISECONDS)) {
+                    signal.drainPermits();
+                    idle = minBackoff;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private Duration longer(Duration idle) {
+        Duration doubled = idle.multipliedBy(2);
+        return doubled.compareTo(maxLatency) > 0 ? maxLatency : doubled;
     }
 
     /**
-     * Periodically retrieves unpublished events from storage and publishes them.
-     * Marked as successful only after publishing.
-     * Runs every 3000ms.
+     * Publishes stored events batch by batch, until there are no more events to publish
+     * or some events of a batch failed to be published.
+     * Every batch is marked as published only after publishing, in its own transaction.
+     *
+     * @return the number of published events
      */
-    @Scheduled(fixedRate = 3000L)
-    @Transactional
-    public void publishAllPeriodically() {
+    public int publishAll() {
+        return drain()._1;
+    }
+
+    private Tuple2<Integer, Integer> drain() {
+        int published = 0;
+        Tuple2<Integer, Integer> batch;
+        do {
+            batch = publishBatch();
+            published += batch._1;
+        } while (batch._1 > 0 && batch._2 == 0);
+        return Tuple.of(published, batch._2);
+    }
+
+    private Tuple2<Integer, Integer> publishBatch() {
         List<DomainEvent> domainEvents = eventsStorage.toPublish();
-        domainEvents.forEach(eventsPublisher::publish);
-        eventsStorage.published(domainEvents);
+        if (domainEvents.isEmpty()) {
+            return Tuple.of(0, 0);
+        }
+        if (domainEvents.size() > 1) {
+            try {
+                transactions.execute(status -> publishAndMark(domainEvents));
+                return Tuple.of(domainEvents.size(), 0);
+            } catch (RuntimeException e) {
+                log.warn("Failed to publish a batch of {} stored events, publishing them one by one", domainEvents.size(), e);
+            }
+        }
+        int published = domainEvents.count(this::publishOne);
+        return Tuple.of(published, domainEvents.size() - published);
+    }
+
+    private boolean publishOne(DomainEvent event) {
+        try {
+            transactions.execute(status -> publishAndMark(List.of(event)));
+            return true;
+        } catch (RuntimeException e) {
+            failed(event, e);
+            return false;
+        }
+    }
+
+    private Void publishAndMark(List<DomainEvent> events) {
+        eventsPublisher.publish(events);
+        eventsStorage.published(events);
+        return null;
+    }
+
+    private void failed(DomainEvent event, RuntimeException cause) {
+        String eventName = event.getClass().getSimpleName();
+        if (eventsStorage.failed(event, cause)) {
+            log.warn("Failed to publish stored event {}, it will be retried", event.getEventId(), cause);
+            meterRegistry.counter(DOMAIN_EVENTS_RETRIES, TAG_NAME, eventName).increment();
+        } else {
+            log.error("Failed to publish stored event {}, it was dead-lettered", event.getEventId(), cause);
+            meterRegistry.counter(DOMAIN_EVENTS_DEAD_LETTERED, TAG_NAME, eventName).increment();
+        }
     }
 }
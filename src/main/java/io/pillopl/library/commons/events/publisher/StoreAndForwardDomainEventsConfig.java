@@ -0,0 +1,103 @@
+package io.pillopl.library.commons.events.publisher;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.pillopl.library.commons.events.DomainEvents;
+import io.vavr.collection.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the store-and-forward event publication, active with the "store-and-forward" profile.
+ * <p>
+ * Events are appended to the {@code domain_events} outbox table in the transaction of the aggregate
+ * and forwarded to the listeners shortly after the commit, off the request thread.
+ * Requires the {@code domain_events} table to be present in the module's data source.
+ */
+@Configuration
+@Profile("store-and-forward")
+public class StoreAndForwardDomainEventsConfig {
+
+    /**
+     * Creates the JDBC outbox storage.
+     *
+     * @param operations            the module's JDBC operations
+     * @param serializer            the format of the stored events
+     * @param batchSize             the maximum number of events claimed for publication at once
+     * @param maxAttempts           the number of failed attempts after which an event is dead-lettered
+     * @param retryBackoffMillis    the time an event is held back after its first failed attempt, doubled after every next one
+     * @param maxRetryBackoffMillis the longest time a failed event is held back
+     * @return the outbox {@link EventsStorage}
+     */
+    @Bean
+    JdbcEventsStorage jdbcEventsStorage(NamedParameterJdbcOperations operations,
+                                        DomainEventSerializer serializer,
+                                        @Value("${domain-events.outbox.batch-size:100}") int batchSize,
+                                        @Value("${domain-events.outbox.max-attempts:10}") int maxAttempts,
+                                        @Value("${domain-events.outbox.retry-backoff-millis:1000}") long retryBackoffMillis,
+                                        @Value("${domain-events.outbox.max-retry-backoff-millis:600000}") long maxRetryBackoffMillis) {
+        return new JdbcEventsStorage(operations, serializer, batchSize,
+                maxAttempts, Duration.ofMillis(retryBackoffMillis), Duration.ofMillis(maxRetryBackoffMillis));
+    }
+
+    /**
+     * Creates the actuator endpoint listing and requeueing dead-lettered events of the outbox.
+     *
+     * @param deadLetters the dead-lettered events of the outbox
+     * @return the {@link DeadLettersEndpoint}
+     */
+    @Bean
+    DeadLettersEndpoint deadLettersEndpoint(JdbcEventsStorage deadLetters) {
+        return new DeadLettersEndpoint(deadLetters);
+    }
+
+    /**
+     * Creates the binary format of the stored events, made of the event codecs of all the modules in the context.
+     *
+     * @param codecs the event codecs of the modules
+     * @return the binary {@link DomainEventSerializer}
+     */
+    @Bean
+    DomainEventSerializer domainEventSerializer(java.util.List<EventCodecs> codecs) {
+        return new BinaryDomainEventSerializer(List.ofAll(codecs));
+    }
+
+    /**
+     * Creates the store-and-forward DomainEvents bean, taking precedence over the synchronous one.
+     *
+     * @param applicationEventPublisher Spring's application event publisher
+     * @param batchEventListeners       the listeners handling events in bulk
+     * @param meterRegistry             the registry for application metrics
+     * @param eventsStorage             the outbox storage
+     * @param transactionManager        the transaction manager of the module's data source
+     * @param minBackoffMillis          the polling interval right after the outbox became empty
+     * @param maxLatencyMillis          the longest polling interval of an idle outbox
+     * @return the store-and-forward DomainEvents instance
+     */
+    @Bean(initMethod = "start")
+    @Primary
+    DomainEvents storeAndForwardDomainEvents(ApplicationEventPublisher applicationEventPublisher,
+                                             BatchEventListeners batchEventListeners,
+                                             MeterRegistry meterRegistry,
+                                             EventsStorage eventsStorage,
+                                             PlatformTransactionManager transactionManager,
+                                             @Value("${domain-events.outbox.min-backoff-millis:10}") long minBackoffMillis,
+                                             @Value("${domain-events.outbox.max-latency-millis:3000}") long maxLatencyMillis) {
+        return new StoreAndForwardDomainEventPublisher(
+                new MeteredDomainEventPublisher(
+                        new JustForwardDomainEventPublisher(applicationEventPublisher, batchEventListeners), meterRegistry),
+                eventsStorage,
+                new TransactionTemplate(transactionManager),
+                Duration.ofMillis(minBackoffMillis),
+                Duration.ofMillis(maxLatencyMillis),
+                meterRegistry);
+    }
+}
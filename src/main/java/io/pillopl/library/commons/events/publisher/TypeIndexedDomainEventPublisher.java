@@ -0,0 +1,160 @@
+package io.pillopl.library.commons.events.publisher;
+
+import io.pillopl.library.commons.events.DomainEvent;
+import io.pillopl.library.commons.events.DomainEvents;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Map;
+
+/**
+ * Implementation of {@link DomainEvents} calling the {@link EventListener} methods of the beans of its context directly,
+ * instead of going through Spring's event multicaster.
+ * <p>
+ * Listener methods are discovered once, when all the singletons are instantiated, and turned into method handles
+ * bound to the beans (or to their proxies, so that transactions still apply). Handlers of an event type,
+ * including the ones listening to its supertypes, are resolved on the first event of that type and kept in an
+ * array. The wiring is logged at startup.
+ * <p>
+ * Only listener methods with a single event parameter are supported. Conditions of {@link EventListener}
+ * are not evaluated and values returned by listeners are not published as events.
+ * {@link io.pillopl.library.commons.events.BatchEventListener}s get runs of events of their type in one call,
+ * before the handlers of each event are called.
+ */
+@Slf4j
+public class TypeIndexedDomainEventPublisher implements DomainEvents, SmartInitializingSingleton {
+
+    private static final MethodType HANDLER_TYPE = MethodType.methodType(void.class, Object.class);
+
+    private final ListableBeanFactory beanFactory;
+    private final BatchEventListeners batchEventListeners;
+    private volatile List<Tuple2<Class<?>, Handler>> listeners;
+    private final ClassValue<MethodHandle[]> handlers = new ClassValue<MethodHandle[]>() {
+        @Override
+        protected MethodHandle[] computeValue(Class<?> eventType) {
+            return wiredListeners()
+                    .filter(listener -> listener._1.isAssignableFrom(eventType))
+                    .map(listener -> listener._2.handle)
+                    .toJavaArray(MethodHandle.class);
+        }
+    };
+
+    public TypeIndexedDomainEventPublisher(ListableBeanFactory beanFactory) {
+        this(beanFactory, BatchEventListeners.none());
+    }
+
+    public TypeIndexedDomainEventPublisher(ListableBeanFactory beanFactory, BatchEventListeners batchEventListeners) {
+        this.beanFactory = beanFactory;
+        this.batchEventListeners = batchEventListeners;
+    }
+
+    /**
+     * Calls every handler of the event type, one after another, on the caller's thread.
+     *
+     * @param event the domain event to publish
+     */
+    @Override
+    public void publish(DomainEvent event) {
+        publish(List.of(event));
+    }
+
+    /**
+     * Hands the events over to batch listeners, run by run, and calls the handlers of each of them.
+     *
+     * @param events the list of domain events to publish
+     */
+    @Override
+    public void publish(List<DomainEvent> events) {
+        batchEventListeners.dispatch(events, this::callHandlers);
+    }
+
+    private void callHandlers(DomainEvent event) {
+        for (MethodHandle handler : handlers.get(event.getClass())) {
+            try {
+                handler.invokeExact((Object) event);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new UndeclaredThrowableException(e);
+            }
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        listeners = List.of(beanFactory.getBeanNamesForType(Object.class, false, false))
+                .flatMap(this::listenersOf);
+        listeners.groupBy(listener -> listener._1)
+                .forEach((eventType, eventListeners) -> log.info("Domain event {} handled by {}",
+                        eventType.getSimpleName(), eventListeners.map(listener -> listener._2.description).mkString(", ")));
+    }
+
+    private List<Tuple2<Class<?>, Handler>> wiredListeners() {
+        if (listeners == null) {
+            throw new IllegalStateException("Domain event listeners are not wired yet");
+        }
+        return listeners;
+    }
+
+    private List<Tuple2<Class<?>, Handler>> listenersOf(String beanName) {
+        Class<?> beanType = beanFactory.getType(beanName);
+        if (beanType == null) {
+            return List.empty();
+        }
+        Map<Method, EventListener> methods = MethodIntrospector.selectMethods(AopUtils.getTargetClass(beanType),
+                (MethodIntrospector.MetadataLookup<EventListener>) method -> AnnotatedElementUtils.findMergedAnnotation(method, EventListener.class));
+        if (methods.isEmpty()) {
+            return List.empty();
+        }
+        Object bean = beanFactory.getBean(beanName);
+        return List.ofAll(methods.keySet())
+                .filter(method -> supported(beanName, method))
+                .map(method -> Tuple.<Class<?>, Handler>of(method.getParameterTypes()[0], handler(bean, beanName, method)));
+    }
+
+    private static boolean supported(String beanName, Method method) {
+        if (method.getParameterCount() != 1) {
+            log.warn("Listener {}.{} skipped, only listeners of a single event are supported", beanName, method.getName());
+            return false;
+        }
+        return true;
+    }
+
+    private static Handler handler(Object bean, String beanName, Method method) {
+        Method invocable = AopUtils.selectInvocableMethod(method, bean.getClass());
+        invocable.setAccessible(true);
+        try {
+            MethodHandle handle = MethodHandles.lookup()
+                    .unreflect(invocable)
+                    .bindTo(bean)
+                    .asType(HANDLER_TYPE);
+            return new Handler(handle, beanName + "." + method.getName());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access listener " + beanName + "." + method.getName(), e);
+        }
+    }
+
+    private static class Handler {
+
+        private final MethodHandle handle;
+        private final String description;
+
+        private Handler(MethodHandle handle, String description) {
+            this.handle = handle;
+            this.description = description;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package io.pillopl.library.commons.events.publisher;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.pillopl.library.commons.events.DomainEvents;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Configuration of the event publication calling listeners directly, active with the "indexed-events" profile.
+ */
+@Configuration
+@Profile("indexed-events")
+public class TypeIndexedDomainEventsConfig {
+
+    /**
+     * Creates the publisher calling the listeners of the context through method handles.
+     * Listeners are wired once all the singletons are instantiated.
+     *
+     * @param applicationContext  the context whose listeners receive the events
+     * @param batchEventListeners the listeners handling events in bulk
+     * @return the type-indexed publisher
+     */
+    @Bean
+    TypeIndexedDomainEventPublisher typeIndexedDomainEventPublisher(ApplicationContext applicationContext, BatchEventListeners batchEventListeners) {
+        return new TypeIndexedDomainEventPublisher(applicationContext, batchEventListeners);
+    }
+
+    /**
+     * Creates the type-indexed DomainEvents bean, taking precedence over the synchronous one.
+     *
+     * @param typeIndexedDomainEventPublisher the publisher calling the listeners directly
+     * @param meterRegistry                   the registry for application metrics
+     * @return the type-indexed DomainEvents instance
+     */
+    @Bean
+    @Primary
+    DomainEvents typeIndexedDomainEvents(TypeIndexedDomainEventPublisher typeIndexedDomainEventPublisher, MeterRegistry meterRegistry) {
+        return new MeteredDomainEventPublisher(typeIndexedDomainEventPublisher, meterRegistry);
+    }
+}
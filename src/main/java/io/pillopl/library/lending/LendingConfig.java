@@ -1,6 +1,12 @@
 package io.pillopl.library.lending;
 
+import io.pillopl.library.commons.events.publisher.AfterCommitDomainEventsConfig;
+import io.pillopl.library.commons.events.publisher.AggregateOrderedDomainEventsConfig;
+import io.pillopl.library.commons.events.publisher.AsyncDomainEventsConfig;
 import io.pillopl.library.commons.events.publisher.DomainEventsConfig;
+import io.pillopl.library.commons.events.publisher.JournalDomainEventsConfig;
+import io.pillopl.library.commons.events.publisher.StoreAndForwardDomainEventsConfig;
+import io.pillopl.library.commons.events.publisher.TypeIndexedDomainEventsConfig;
 import io.pillopl.library.lending.book.infrastructure.BookConfiguration;
 import io.pillopl.library.lending.dailysheet.infrastructure.DailySheetConfiguration;
 import io.pillopl.library.lending.patron.infrastructure.PatronConfiguration;
@@ -26,6 +32,12 @@ import org.springframework.scheduling.annotation.EnableScheduling;
  * @see DailySheetConfiguration
  * @see BookConfiguration
  * @see DomainEventsConfig
+ * @see StoreAndForwardDomainEventsConfig
+ * @see AsyncDomainEventsConfig
+ * @see AggregateOrderedDomainEventsConfig
+ * @see JournalDomainEventsConfig
+ * @see TypeIndexedDomainEventsConfig
+ * @see AfterCommitDomainEventsConfig
  */
 @Configuration
 @EnableScheduling
@@ -35,6 +47,12 @@ import org.springframework.scheduling.annotation.EnableScheduling;
         PatronConfiguration.class,
         DailySheetConfiguration.class,
         BookConfiguration.class,
-        DomainEventsConfig.class})
+        DomainEventsConfig.class,
+        StoreAndForwardDomainEventsConfig.class,
+        AsyncDomainEventsConfig.class,
+        AggregateOrderedDomainEventsConfig.class,
+        JournalDomainEventsConfig.class,
+        TypeIndexedDomainEventsConfig.class,
+        AfterCommitDomainEventsConfig.class})
 public class LendingConfig {
 }
@@ -85,6 +85,10 @@ class LendingDatabaseConfig extends AbstractJdbcConfiguration {
      *     <li>create_patron_db.sql</li>
      *     <li>create_lending_book_db.sql</li>
      *     <li>create_sheets_db.sql</li>
+     *     <li>create_domain_events_db.sql</li>
+     *     <li>create_processed_events_db.sql</li>
+     *     <li>create_patron_profile_changes_db.sql</li>
+     *     <li>create_patron_event_stream_db.sql</li>
      * </ul>
      *
      * @return the configured {@link DataSource}
@@ -97,6 +101,10 @@ class LendingDatabaseConfig extends AbstractJdbcConfiguration {
                 .addScript("create_patron_db.sql")
                 .addScript("create_lending_book_db.sql")
                 .addScript("create_sheets_db.sql")
+                .addScript("create_domain_events_db.sql")
+                .addScript("create_processed_events_db.sql")
+                .addScript("create_patron_profile_changes_db.sql")
+                .addScript("create_patron_event_stream_db.sql")
                 .build();
     }
 
@@ -1,22 +1,26 @@
 package io.pillopl.library.lending.book.application;
 
 import io.pillopl.library.catalogue.BookId;
+import io.pillopl.library.commons.events.BatchEventListener;
 import io.pillopl.library.commons.events.DomainEvents;
 import io.pillopl.library.lending.book.model.*;
 import io.pillopl.library.lending.patron.model.PatronEvent.*;
 import io.pillopl.library.lending.patron.model.PatronId;
 import io.vavr.API;
+import io.vavr.collection.List;
+import io.vavr.collection.Set;
 import lombok.AllArgsConstructor;
 import org.springframework.context.event.EventListener;
 
 import java.time.Instant;
+import java.util.UUID;
 
 import static io.vavr.API.$;
 import static io.vavr.API.Case;
 import static io.vavr.Predicates.instanceOf;
 
 @AllArgsConstructor
-public class PatronEventsHandler {
+public class PatronEventsHandler implements BatchEventListener<BookHoldExpired> {
 
     private final BookRepository bookRepository;
     private final DomainEvents domainEvents;
@@ -35,8 +39,34 @@ public class PatronEventsHandler {
                 .map(this::saveBook);
     }
 
-    @EventListener
-    void handle(BookHoldExpired holdExpired) {
+    @Override
+    public Class<BookHoldExpired> eventType() {
+        return BookHoldExpired.class;
+    }
+
+    /**
+     * Expires the holds in bulk, saving all the books at once.
+     * Only the first expiration of a book goes into the bulk save, later ones of the same book are applied one by one
+     * after it. Books found stale are loaded again and their holds expired one by one.
+     */
+    @Override
+    public void handle(List<BookHoldExpired> holdsExpired) {
+        List<BookHoldExpired> firstOfBook = holdsExpired.distinctBy(BookHoldExpired::getBookId);
+        List<Book> books = firstOfBook.flatMap(holdExpired ->
+                bookRepository.findBy(new BookId(holdExpired.getBookId()))
+                        .map(book -> handleBookHoldExpired(book, holdExpired)));
+        Set<UUID> staleBooks = bookRepository.saveAll(books.toJavaList())
+                .map(book -> book.bookId().getBookId())
+                .toSet();
+        firstOfBook
+                .filter(holdExpired -> staleBooks.contains(holdExpired.getBookId()))
+                .forEach(this::handleOne);
+        holdsExpired
+                .removeAll(firstOfBook)
+                .forEach(this::handleOne);
+    }
+
+    private void handleOne(BookHoldExpired holdExpired) {
         bookRepository.findBy(new BookId(holdExpired.getBookId()))
                 .map(book -> handleBookHoldExpired(book, holdExpired))
                 .map(this::saveBook);
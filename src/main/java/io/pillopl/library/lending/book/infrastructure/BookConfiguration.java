@@ -1,6 +1,7 @@
 package io.pillopl.library.lending.book.infrastructure;
 
 import io.pillopl.library.commons.events.DomainEvents;
+import io.pillopl.library.commons.events.publisher.EventCodecs;
 import io.pillopl.library.lending.book.application.CreateAvailableBookOnInstanceAddedEventHandler;
 import io.pillopl.library.lending.book.application.PatronEventsHandler;
 import io.pillopl.library.lending.book.model.BookRepository;
@@ -25,4 +26,9 @@ public class BookConfiguration {
     BookDatabaseRepository bookDatabaseRepository(JdbcTemplate jdbcTemplate) {
         return new BookDatabaseRepository(jdbcTemplate);
     }
+
+    @Bean
+    EventCodecs bookEventCodecs() {
+        return new BookEventCodecs();
+    }
 }
@@ -9,6 +9,9 @@ import io.pillopl.library.lending.patron.model.PatronId;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.Instant;
 import java.util.UUID;
 
@@ -34,6 +37,28 @@ class BookDatabaseEntity {
     UUID checked_out_by_patron;
     int version;
 
+    /**
+     * Columns read by {@link #fromRow(ResultSet, int)}, in order, of a book_database_entity aliased as b.
+     */
+    static final String COLUMNS = "b.book_id, b.book_type, b.book_state, b.available_at_branch, b.on_hold_at_branch, " +
+            "b.on_hold_by_patron, b.on_hold_till, b.checked_out_at_branch, b.checked_out_by_patron, b.version";
+
+    static BookDatabaseEntity fromRow(ResultSet rs, int rowNum) throws SQLException {
+        BookDatabaseEntity entity = new BookDatabaseEntity();
+        entity.book_id = rs.getObject(1, UUID.class);
+        entity.book_type = BookType.valueOf(rs.getString(2));
+        entity.book_state = BookState.valueOf(rs.getString(3));
+        entity.available_at_branch = rs.getObject(4, UUID.class);
+        entity.on_hold_at_branch = rs.getObject(5, UUID.class);
+        entity.on_hold_by_patron = rs.getObject(6, UUID.class);
+        Timestamp onHoldTill = rs.getTimestamp(7);
+        entity.on_hold_till = onHoldTill == null ? null : onHoldTill.toInstant();
+        entity.checked_out_at_branch = rs.getObject(8, UUID.class);
+        entity.checked_out_by_patron = rs.getObject(9, UUID.class);
+        entity.version = rs.getInt(10);
+        return entity;
+    }
+
     Book toDomainModel() {
         return Match(book_state).of(
                 Case($(Available), this::toAvailableBook),
@@ -7,14 +7,18 @@ import io.pillopl.library.lending.book.model.*;
 import io.pillopl.library.lending.patron.application.hold.FindAvailableBook;
 import io.pillopl.library.lending.patron.application.hold.FindBookOnHold;
 import io.pillopl.library.lending.patron.model.PatronId;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
 import io.vavr.control.Option;
 import io.vavr.control.Try;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.UUID;
 
 import static io.pillopl.library.lending.book.infrastructure.BookDatabaseEntity.BookState.*;
@@ -27,6 +31,11 @@ import static io.vavr.control.Option.of;
 @AllArgsConstructor(access = AccessLevel.PACKAGE)
 class BookDatabaseRepository implements BookRepository, FindAvailableBook, FindBookOnHold {
 
+    private static final String FIND_BOOK = "SELECT " + BookDatabaseEntity.COLUMNS + " FROM book_database_entity b WHERE b.book_id = ?";
+    private static final String UPDATE_AVAILABLE = "UPDATE book_database_entity b SET b.book_state = ?, b.available_at_branch = ?, b.version = ? WHERE book_id = ? AND version = ?";
+    private static final String UPDATE_ON_HOLD = "UPDATE book_database_entity b SET b.book_state = ?, b.on_hold_at_branch = ?, b.on_hold_by_patron = ?, b.on_hold_till = ?, b.version = ? WHERE book_id = ? AND version = ?";
+    private static final String UPDATE_CHECKED_OUT = "UPDATE book_database_entity b SET b.book_state = ?, b.checked_out_at_branch = ?, b.checked_out_by_patron = ?, b.version = ? WHERE book_id = ? AND version = ?";
+
     private final JdbcTemplate jdbcTemplate;
 
     @Override
@@ -37,65 +46,107 @@ class BookDatabaseRepository implements BookRepository, FindAvailableBook, FindB
 
     private Option<BookDatabaseEntity> findBookById(BookId bookId) {
         return Try
-                .ofSupplier(() -> of(jdbcTemplate.queryForObject("SELECT b.* FROM book_database_entity b WHERE b.book_id = ?", new BeanPropertyRowMapper<>(BookDatabaseEntity.class), bookId.getBookId())))
+                .ofSupplier(() -> of(jdbcTemplate.queryForObject(FIND_BOOK, BookDatabaseEntity::fromRow, bookId.getBookId())))
                 .getOrElse(none());
     }
 
+    /**
+     * Saves the book without reading it first.
+     * <p>
+     * The versioned UPDATE is attempted right away. A book at version zero that was not updated is new and is
+     * inserted. Any other book that was not updated is stale, as is a new book someone has inserted in the meantime.
+     */
     @Override
     public void save(Book book) {
-        findBy(book.bookId())
-                .map(entity -> updateOptimistically(book))
-                .onEmpty(() -> insertNew(book));
+        Tuple2<String, Object[]> update = updateOf(book);
+        if (jdbcTemplate.update(update._1, update._2) == 0) {
+            insertNew(book);
+        }
+    }
+
+    /**
+     * Saves the books with one JDBC batch per target state, so that each batch reuses a single prepared statement.
+     * Books that were not updated are inserted one by one if they are new, or reported as stale otherwise.
+     */
+    @Override
+    public List<Book> saveAll(Collection<Book> books) {
+        return List.ofAll(books)
+                .groupBy(book -> updateOf(book)._1)
+                .toList()
+                .flatMap(booksByStatement -> notUpdated(booksByStatement._1, booksByStatement._2))
+                .filter(this::isStaleOnInsert);
+    }
+
+    private List<Book> notUpdated(String statement, List<Book> books) {
+        int[] updated = jdbcTemplate.batchUpdate(statement, books.map(book -> updateOf(book)._2).toJavaList());
+        return books
+                .zipWithIndex()
+                .filter(book -> updated[book._2] == 0)
+                .map(Tuple2::_1);
     }
 
-    private int updateOptimistically(Book book) {
-        int result = Match(book).of(
-                Case($(instanceOf(AvailableBook.class)), this::update),
-                Case($(instanceOf(BookOnHold.class)), this::update),
-                Case($(instanceOf(CheckedOutBook.class)), this::update)
+    private boolean isStaleOnInsert(Book book) {
+        return Try.run(() -> insertNew(book))
+                .map(inserted -> false)
+                .recover(AggregateRootIsStale.class, true)
+                .get();
+    }
+
+    private Tuple2<String, Object[]> updateOf(Book book) {
+        return Match(book).of(
+                Case($(instanceOf(AvailableBook.class)), this::updateOf),
+                Case($(instanceOf(BookOnHold.class)), this::updateOf),
+                Case($(instanceOf(CheckedOutBook.class)), this::updateOf)
         );
-        if (result == 0) {
-            throw new AggregateRootIsStale("Someone has updated book in the meantime, book: " + book);
-        }
-        return result;
     }
 
-    private int update(AvailableBook availableBook) {
-        return jdbcTemplate.update("UPDATE book_database_entity b SET b.book_state = ?, b.available_at_branch = ?, b.version = ? WHERE book_id = ? AND version = ?",
+    private Tuple2<String, Object[]> updateOf(AvailableBook availableBook) {
+        return Tuple.of(UPDATE_AVAILABLE, new Object[]{
                 Available.toString(),
                 availableBook.getLibraryBranch().getLibraryBranchId(),
                 availableBook.getVersion().getVersion() + 1,
                 availableBook.getBookId().getBookId(),
-                availableBook.getVersion().getVersion());
+                availableBook.getVersion().getVersion()});
     }
 
-    private int update(BookOnHold bookOnHold) {
-        return jdbcTemplate.update("UPDATE book_database_entity b SET b.book_state = ?, b.on_hold_at_branch = ?, b.on_hold_by_patron = ?, b.on_hold_till = ?, b.version = ? WHERE book_id = ? AND version = ?",
+    private Tuple2<String, Object[]> updateOf(BookOnHold bookOnHold) {
+        return Tuple.of(UPDATE_ON_HOLD, new Object[]{
                 OnHold.toString(),
                 bookOnHold.getHoldPlacedAt().getLibraryBranchId(),
                 bookOnHold.getByPatron().getPatronId(),
                 bookOnHold.getHoldTill(),
                 bookOnHold.getVersion().getVersion() + 1,
                 bookOnHold.getBookId().getBookId(),
-                bookOnHold.getVersion().getVersion());
+                bookOnHold.getVersion().getVersion()});
     }
 
-    private int update(CheckedOutBook checkedoutBook) {
-        return jdbcTemplate.update("UPDATE book_database_entity b SET b.book_state = ?, b.checked_out_at_branch = ?, b.checked_out_by_patron = ?, b.version = ? WHERE book_id = ? AND version = ?",
+    private Tuple2<String, Object[]> updateOf(CheckedOutBook checkedoutBook) {
+        return Tuple.of(UPDATE_CHECKED_OUT, new Object[]{
                 CheckedOut.toString(),
                 checkedoutBook.getCheckedOutAt().getLibraryBranchId(),
                 checkedoutBook.getByPatron().getPatronId(),
                 checkedoutBook.getVersion().getVersion() + 1,
                 checkedoutBook.getBookId().getBookId(),
-                checkedoutBook.getVersion().getVersion());
+                checkedoutBook.getVersion().getVersion()});
     }
 
     private void insertNew(Book book) {
-        Match(book).of(
-                Case($(instanceOf(AvailableBook.class)), this::insert),
-                Case($(instanceOf(BookOnHold.class)), this::insert),
-                Case($(instanceOf(CheckedOutBook.class)), this::insert)
-        );
+        if (book.getVersion().getVersion() != 0) {
+            throw staleBook(book);
+        }
+        try {
+            Match(book).of(
+                    Case($(instanceOf(AvailableBook.class)), this::insert),
+                    Case($(instanceOf(BookOnHold.class)), this::insert),
+                    Case($(instanceOf(CheckedOutBook.class)), this::insert)
+            );
+        } catch (DuplicateKeyException e) {
+            throw staleBook(book);
+        }
+    }
+
+    private static AggregateRootIsStale staleBook(Book book) {
+        return new AggregateRootIsStale("Someone has updated book in the meantime, book: " + book);
     }
 
     private int insert(AvailableBook availableBook) {
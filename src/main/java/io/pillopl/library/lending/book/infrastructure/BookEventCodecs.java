@@ -0,0 +1,35 @@
+package io.pillopl.library.lending.book.infrastructure;
+
+import io.pillopl.library.commons.events.publisher.EventCodec;
+import io.pillopl.library.commons.events.publisher.EventCodecs;
+import io.pillopl.library.lending.book.model.BookDuplicateHoldFound;
+import io.vavr.collection.List;
+
+import java.nio.ByteBuffer;
+
+import static io.pillopl.library.commons.events.publisher.BinaryFields.getInstant;
+import static io.pillopl.library.commons.events.publisher.BinaryFields.getUuid;
+import static io.pillopl.library.commons.events.publisher.BinaryFields.putInstant;
+import static io.pillopl.library.commons.events.publisher.BinaryFields.putUuid;
+
+class BookEventCodecs implements EventCodecs {
+
+    @Override
+    public List<EventCodec<?>> codecs() {
+        return List.of(
+                EventCodec.of(BookDuplicateHoldFound.class, 32, BookEventCodecs::write, BookEventCodecs::readBookDuplicateHoldFound));
+    }
+
+    private static void write(BookDuplicateHoldFound event, ByteBuffer out) {
+        putUuid(out, event.getEventId());
+        putInstant(out, event.getWhen());
+        putUuid(out, event.getFirstPatronId());
+        putUuid(out, event.getSecondPatronId());
+        putUuid(out, event.getLibraryBranchId());
+        putUuid(out, event.getBookId());
+    }
+
+    private static BookDuplicateHoldFound readBookDuplicateHoldFound(ByteBuffer in) {
+        return new BookDuplicateHoldFound(getUuid(in), getInstant(in), getUuid(in), getUuid(in), getUuid(in), getUuid(in));
+    }
+}
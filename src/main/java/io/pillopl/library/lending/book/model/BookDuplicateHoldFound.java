@@ -1,6 +1,7 @@
 package io.pillopl.library.lending.book.model;
 
 import io.pillopl.library.commons.events.DomainEvent;
+import lombok.AllArgsConstructor;
 import lombok.NonNull;
 import lombok.Value;
 
@@ -14,12 +15,13 @@ import java.util.UUID;
  * This event captures the details of the conflict, including the original and second patron involved.
  */
 @Value
+@AllArgsConstructor
 public class BookDuplicateHoldFound implements DomainEvent {
     
     /**
      * Unique identifier for this event instance.
      */
-    @NonNull UUID eventId = UUID.randomUUID();
+    @NonNull UUID eventId;
 
     /**
      * The timestamp when the duplicate hold was detected.
@@ -46,6 +48,13 @@ public class BookDuplicateHoldFound implements DomainEvent {
      */
     @NonNull UUID bookId;
 
+    /**
+     * Creates the event with a newly generated event ID.
+     */
+    public BookDuplicateHoldFound(Instant when, UUID firstPatronId, UUID secondPatronId, UUID libraryBranchId, UUID bookId) {
+        this(UUID.randomUUID(), when, firstPatronId, secondPatronId, libraryBranchId, bookId);
+    }
+
     /**
      * Returns the ID of the aggregate associated with this event (the book ID).
      *
@@ -1,7 +1,12 @@
 package io.pillopl.library.lending.book.model;
 
 import io.pillopl.library.catalogue.BookId;
+import io.pillopl.library.commons.aggregates.AggregateRootIsStale;
+import io.vavr.collection.List;
 import io.vavr.control.Option;
+import io.vavr.control.Try;
+
+import java.util.Collection;
 
 /**
  * Repository interface for accessing and persisting {@link Book} aggregates.
@@ -24,4 +29,21 @@ public interface BookRepository {
      * @param book the {@link Book} instance to save
      */
     void save(Book book);
+
+    /**
+     * Saves the states of many books at once.
+     * <p>
+     * A book that someone has changed in the meantime is not saved, while the other books still are,
+     * so that the caller can load and retry only the stale ones.
+     *
+     * @param books the {@link Book} instances to save
+     * @return the books that were not saved, because they are stale
+     */
+    default List<Book> saveAll(Collection<Book> books) {
+        return List.ofAll(books)
+                .filter(book -> Try.run(() -> save(book))
+                        .map(saved -> false)
+                        .recover(AggregateRootIsStale.class, true)
+                        .get());
+    }
 }
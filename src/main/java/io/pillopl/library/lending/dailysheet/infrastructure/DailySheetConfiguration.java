@@ -1,9 +1,14 @@
 package io.pillopl.library.lending.dailysheet.infrastructure;
 
-import io.pillopl.library.lending.dailysheet.model.DailySheet;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.pillopl.library.commons.events.publisher.EventsHistory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Clock;
 
@@ -11,7 +16,31 @@ import java.time.Clock;
 public class DailySheetConfiguration {
 
     @Bean
-    DailySheet sheetsReadModel(JdbcTemplate jdbcTemplate) {
-        return new SheetsReadModel(jdbcTemplate, Clock.systemDefaultZone());
+    SheetsSwapLock sheetsSwapLock() {
+        return new SheetsSwapLock();
+    }
+
+    @Bean
+    SheetsReadModel sheetsReadModel(JdbcTemplate jdbcTemplate, SheetsSwapLock sheetsSwapLock) {
+        return new SheetsReadModel(jdbcTemplate, Clock.systemDefaultZone(), sheetsSwapLock);
+    }
+
+    @Bean
+    @Profile("store-and-forward")
+    SheetsRebuild sheetsRebuild(JdbcTemplate jdbcTemplate,
+                                EventsHistory eventsHistory,
+                                PlatformTransactionManager transactionManager,
+                                SheetsSwapLock sheetsSwapLock,
+                                MeterRegistry meterRegistry,
+                                @Value("${daily-sheet.rebuild.partitions:4}") int partitions,
+                                @Value("${daily-sheet.rebuild.batch-size:1000}") int batchSize) {
+        return new SheetsRebuild(jdbcTemplate, eventsHistory, new TransactionTemplate(transactionManager), sheetsSwapLock,
+                meterRegistry, partitions, batchSize);
+    }
+
+    @Bean
+    @Profile("store-and-forward")
+    SheetsRebuildEndpoint sheetsRebuildEndpoint(SheetsRebuild sheetsRebuild) {
+        return new SheetsRebuildEndpoint(sheetsRebuild);
     }
 }
@@ -1,6 +1,8 @@
 package io.pillopl.library.lending.dailysheet.infrastructure;
 
 import io.pillopl.library.catalogue.BookId;
+import io.pillopl.library.commons.events.BatchEventListener;
+import io.pillopl.library.commons.events.idempotency.ProcessedEvents;
 import io.pillopl.library.lending.dailysheet.model.CheckoutsToOverdueSheet;
 import io.pillopl.library.lending.dailysheet.model.DailySheet;
 import io.pillopl.library.lending.dailysheet.model.ExpiredHold;
@@ -17,83 +19,92 @@ import io.vavr.control.Option;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import org.springframework.context.event.EventListener;
-import org.springframework.dao.DuplicateKeyException;
-import org.springframework.jdbc.core.ColumnMapRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 
 import static io.vavr.collection.List.ofAll;
 import static java.sql.Timestamp.from;
-import static java.util.stream.Collectors.toList;
 
 @AllArgsConstructor(access = AccessLevel.PACKAGE)
-class SheetsReadModel implements DailySheet {
+class SheetsReadModel implements DailySheet, BatchEventListener<BookHoldExpired> {
+
+    private static final String EXPIRE_HOLD =
+            "UPDATE holds_sheet SET expired_at = ?, status = 'EXPIRED' WHERE expired_at IS NULL AND book_id = ? AND hold_by_patron_id = ?";
+    static final String CONSUMER = "daily_sheet";
+    static final Duration PROCESSED_EVENTS_RETENTION = Duration.ofDays(7);
+    private static final int RECENTLY_PROCESSED_EVENTS = 10_000;
 
     private final JdbcTemplate sheets;
     private final Clock clock;
+    private final ProcessedEvents processedEvents;
+    private final SheetsSwapLock swapLock;
+
+    SheetsReadModel(JdbcTemplate sheets, Clock clock) {
+        this(sheets, clock, new SheetsSwapLock());
+    }
+
+    SheetsReadModel(JdbcTemplate sheets, Clock clock, SheetsSwapLock swapLock) {
+        this(sheets, clock, new ProcessedEvents(sheets, CONSUMER, RECENTLY_PROCESSED_EVENTS, clock), swapLock);
+    }
+
+    @Scheduled(fixedDelayString = "${daily-sheet.processed-events.purge-interval-millis:3600000}")
+    public void purgeProcessedEvents() {
+        processedEvents.purgeProcessedBefore(Instant.now(clock).minus(PROCESSED_EVENTS_RETENTION));
+    }
 
     @Override
     public HoldsToExpireSheet queryForHoldsToExpireSheet() {
-        return new HoldsToExpireSheet(ofAll(
-                findHoldsToExpire()
-                        .stream()
-                        .map(this::toExpiredHold)
-                        .collect(toList())));
+        return new HoldsToExpireSheet(ofAll(findHoldsToExpire()));
     }
 
-    private List<Map<String, Object>> findHoldsToExpire() {
+    private List<ExpiredHold> findHoldsToExpire() {
         return sheets.query(
                 "SELECT h.book_id, h.hold_by_patron_id, h.hold_at_branch FROM holds_sheet h WHERE h.status = 'ACTIVE' and h.hold_till <= ?",
                 new Object[]{from(Instant.now(clock))},
-                new ColumnMapRowMapper());
+                SheetsReadModel::toExpiredHold);
     }
 
-    private ExpiredHold toExpiredHold(Map<String, Object> map) {
+    private static ExpiredHold toExpiredHold(ResultSet rs, int rowNum) throws SQLException {
         return new ExpiredHold(
-                new BookId((UUID) map.get("BOOK_ID")),
-                new PatronId((UUID) map.get("HOLD_BY_PATRON_ID")),
-                new LibraryBranchId((UUID) map.get("HOLD_AT_BRANCH")));
+                new BookId(rs.getObject(1, UUID.class)),
+                new PatronId(rs.getObject(2, UUID.class)),
+                new LibraryBranchId(rs.getObject(3, UUID.class)));
     }
 
     @Override
     public CheckoutsToOverdueSheet queryForCheckoutsToOverdue() {
-        return new CheckoutsToOverdueSheet(ofAll(
-                findCheckoutsToOverdue()
-                        .stream()
-                        .map(this::toOverdueCheckout)
-                        .collect(toList())));
+        return new CheckoutsToOverdueSheet(ofAll(findCheckoutsToOverdue()));
     }
 
-    private List<Map<String, Object>> findCheckoutsToOverdue() {
+    private List<OverdueCheckout> findCheckoutsToOverdue() {
         return sheets.query(
                 "SELECT c.book_id, c.checked_out_by_patron_id, c.checked_out_at_branch FROM checkouts_sheet c WHERE c.status = 'CHECKEDOUT' and c.checkout_till <= ?",
                 new Object[]{from(Instant.now(clock))},
-                new ColumnMapRowMapper());
+                SheetsReadModel::toOverdueCheckout);
     }
 
-    private OverdueCheckout toOverdueCheckout(Map<String, Object> map) {
+    private static OverdueCheckout toOverdueCheckout(ResultSet rs, int rowNum) throws SQLException {
         return new OverdueCheckout(
-                new BookId((UUID) map.get("BOOK_ID")),
-                new PatronId((UUID) map.get("CHECKED_OUT_BY_PATRON_ID")),
-                new LibraryBranchId((UUID) map.get("CHECKED_OUT_AT_BRANCH")));
+                new BookId(rs.getObject(1, UUID.class)),
+                new PatronId(rs.getObject(2, UUID.class)),
+                new LibraryBranchId(rs.getObject(3, UUID.class)));
     }
 
     @Override
     @Transactional
     @EventListener
     public void handle(BookPlacedOnHold event) {
-        try {
-            createNewHold(event);
-        } catch (DuplicateKeyException ex) {
-            //idempotent operation
-        }
+        swapLock.handling(() -> processedEvents.process(event, () -> createNewHold(event)));
     }
 
     private void createNewHold(BookPlacedOnHold event) {
@@ -111,7 +122,12 @@ class SheetsReadModel implements DailySheet {
 
 
     @Override
+    @Transactional
     public void handle(BookHoldCanceled event) {
+        swapLock.handling(() -> processedEvents.process(event, () -> cancelHold(event)));
+    }
+
+    private void cancelHold(BookHoldCanceled event) {
         sheets.update("UPDATE holds_sheet SET canceled_at = ?, status = 'CANCELED' WHERE canceled_at IS NULL AND book_id = ? AND hold_by_patron_id = ?",
                 from(event.getWhen()),
                 event.getBookId(),
@@ -119,22 +135,36 @@ class SheetsReadModel implements DailySheet {
     }
 
     @Override
-    @EventListener
+    @Transactional
     public void handle(BookHoldExpired event) {
-        sheets.update("UPDATE holds_sheet SET expired_at = ?, status = 'EXPIRED' WHERE expired_at IS NULL AND book_id = ? AND hold_by_patron_id = ?",
+        swapLock.handling(() -> processedEvents.process(event, () -> expireHold(event)));
+    }
+
+    private void expireHold(BookHoldExpired event) {
+        sheets.update(EXPIRE_HOLD,
                 from(event.getWhen()),
                 event.getBookId(),
                 event.getPatronId());
     }
 
     @Override
+    public Class<BookHoldExpired> eventType() {
+        return BookHoldExpired.class;
+    }
+
+    @Override
+    @Transactional
+    public void handle(io.vavr.collection.List<BookHoldExpired> events) {
+        swapLock.handling(() -> sheets.batchUpdate(EXPIRE_HOLD, processedEvents.unprocessed(events)
+                .map(event -> new Object[]{from(event.getWhen()), event.getBookId(), event.getPatronId()})
+                .toJavaList()));
+    }
+
+    @Override
+    @Transactional
     @EventListener
     public void handle(BookCheckedOut event) {
-        try {
-            createNewCheckout(event);
-        } catch (DuplicateKeyException ex) {
-            //idempotent operation
-        }
+        swapLock.handling(() -> processedEvents.process(event, () -> createNewCheckout(event)));
     }
 
     private void createNewCheckout(BookCheckedOut event) {
@@ -155,8 +185,13 @@ class SheetsReadModel implements DailySheet {
     }
 
     @Override
+    @Transactional
     @EventListener
     public void handle(BookReturned event) {
+        swapLock.handling(() -> processedEvents.process(event, () -> markAsReturnedOrInsert(event)));
+    }
+
+    private void markAsReturnedOrInsert(BookReturned event) {
         int results = markAsReturned(event);
         if (results == 0) {
             insertAsReturnedWithCheckedOutEventMissing(event);
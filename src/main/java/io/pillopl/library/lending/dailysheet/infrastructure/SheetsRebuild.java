@@ -0,0 +1,444 @@
+package io.pillopl.library.lending.dailysheet.infrastructure;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.pillopl.library.commons.events.DomainEvent;
+import io.pillopl.library.commons.events.idempotency.ProcessedEvents;
+import io.pillopl.library.commons.events.publisher.EventsHistory;
+import io.pillopl.library.lending.patron.model.PatronEvent.BookCheckedOut;
+import io.pillopl.library.lending.patron.model.PatronEvent.BookHoldCanceled;
+import io.pillopl.library.lending.patron.model.PatronEvent.BookHoldExpired;
+import io.pillopl.library.lending.patron.model.PatronEvent.BookPlacedOnHold;
+import io.pillopl.library.lending.patron.model.PatronEvent.BookReturned;
+import io.vavr.control.Option;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.sql.Timestamp.from;
+
+/**
+ * Rebuilds {@code holds_sheet} and {@code checkouts_sheet} from the {@link EventsHistory}.
+ * <p>
+ * Events are replayed into shadow copies of the sheet tables, created from the schema of the live ones.
+ * The events are split into partitions by book id, each applied by its own worker, so the events of a book
+ * are applied in the order they were stored. A worker groups the statements of consecutive events into JDBC
+ * batches, flushing a batch early only when a book already waiting in it needs a different statement.
+ * <p>
+ * The history is replayed up to its end at the start of the rebuild and then once more up to its new end,
+ * to catch up with the events stored meanwhile. The handlers of the sheets are then held off by the
+ * {@link SheetsSwapLock}, the events stored since are replayed, and the content of the live tables is replaced
+ * with the content of the shadow ones in a single transaction, so readers see either the old or the new sheets.
+ * Replayed events not handled yet, e.g. waiting in the outbox, are marked as processed in the same transaction,
+ * so that they are not applied again once delivered. Only events younger than the retention of processed events
+ * are marked, since older ones are not expected to be delivered anymore.
+ * <p>
+ * Positions are given to events when they are stored, not when they are committed, so an event committed late
+ * may have a position the replay has already passed. If the handlers of the sheets have applied such an event
+ * to the live tables meanwhile, it is among the events they processed since the rebuild started, but not among
+ * the replayed ones, and it is replayed in the swap transaction too, after the events stored behind it, as the
+ * handlers applied it. An event committed late and not handled yet is left to the handlers, which apply it
+ * to the rebuilt sheets.
+ * <p>
+ * Progress and the number of replayed events are recorded as metrics.
+ */
+@Slf4j
+public class SheetsRebuild {
+
+    private static final String SHEETS_SCHEMA = "create_sheets_db.sql";
+    private static final Pattern CREATE_SHEET_TABLE =
+            Pattern.compile("CREATE TABLE IF NOT EXISTS (\\w+) \\(", Pattern.CASE_INSENSITIVE);
+    private static final String SHADOW_SUFFIX = "_rebuild";
+    private static final int CHUNK_SIZE = 256;
+    private static final int MARK_PROCESSED_CHUNK_SIZE = 1000;
+    private static final List<DomainEvent> END_OF_REPLAY = new ArrayList<>();
+    private static final Duration CLOCK_SKEW = Duration.ofMinutes(1);
+
+    private final JdbcTemplate sheets;
+    private final EventsHistory history;
+    private final TransactionOperations transactions;
+    private final SheetsSwapLock swapLock;
+    private final ProcessedEvents processedEvents;
+    private final int partitions;
+    private final int batchSize;
+    private final Counter replayedEvents;
+    private final Timer rebuildTime;
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong toReplay = new AtomicLong();
+    private List<DomainEvent> recentEvents = new ArrayList<>();
+
+    SheetsRebuild(JdbcTemplate sheets,
+                  EventsHistory history,
+                  TransactionOperations transactions,
+                  SheetsSwapLock swapLock,
+                  MeterRegistry meterRegistry,
+                  int partitions,
+                  int batchSize) {
+        this.sheets = sheets;
+        this.history = history;
+        this.transactions = transactions;
+        this.swapLock = swapLock;
+        this.processedEvents = new ProcessedEvents(sheets, SheetsReadModel.CONSUMER, 0);
+        this.partitions = partitions;
+        this.batchSize = batchSize;
+        this.replayedEvents = meterRegistry.counter("sheets_rebuild_events");
+        this.rebuildTime = meterRegistry.timer("sheets_rebuild");
+        meterRegistry.gauge("sheets_rebuild_progress", this, SheetsRebuild::progress);
+    }
+
+    /**
+     * Replays the whole history into shadow tables and replaces the content of the live sheet tables with them.
+     *
+     * @return the number of replayed events
+     */
+    public synchronized long rebuild() {
+        return rebuildTime.record(() -> {
+            long start = System.nanoTime();
+            Instant startedAt = Instant.now();
+            List<String> tables = createShadowTables();
+            try {
+                long end = history.lastPosition();
+                long events = replay(0, end);
+                long caughtUp = history.lastPosition();
+                events += replay(end, caughtUp);
+                events += swapLock.swapping(() -> transactions.execute(status -> swap(tables, caughtUp, startedAt)));
+                log.info("Sheets rebuilt from {} events in {} ms", events, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                return events;
+            } finally {
+                tables.forEach(table -> sheets.execute("DROP TABLE IF EXISTS " + table + SHADOW_SUFFIX));
+                recentEvents = new ArrayList<>();
+            }
+        });
+    }
+
+    private List<String> createShadowTables() {
+        List<String> tables = new ArrayList<>();
+        for (String statement : sheetsSchema()) {
+            Matcher createTable = CREATE_SHEET_TABLE.matcher(statement);
+            if (createTable.find()) {
+                String table = createTable.group(1);
+                sheets.execute("DROP TABLE IF EXISTS " + table + SHADOW_SUFFIX);
+                sheets.execute(createTable.replaceFirst("CREATE TABLE $1" + SHADOW_SUFFIX + " ("));
+                tables.add(table);
+            }
+        }
+        return tables;
+    }
+
+    private static List<String> sheetsSchema() {
+        try {
+            String script = StreamUtils.copyToString(new ClassPathResource(SHEETS_SCHEMA).getInputStream(), UTF_8);
+            List<String> statements = new ArrayList<>();
+            ScriptUtils.splitSqlScript(script, ';', statements);
+            return statements;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + SHEETS_SCHEMA, e);
+        }
+    }
+
+    private long swap(List<String> tables, long caughtUp, Instant startedAt) {
+        long events = replay(caughtUp, history.lastPosition());
+        events += replayHandledButNotReplayed(startedAt);
+        io.vavr.collection.List.ofAll(recentEvents)
+                .grouped(MARK_PROCESSED_CHUNK_SIZE)
+                .forEach(processedEvents::unprocessed);
+        for (String table : tables) {
+            sheets.update("DELETE FROM " + table);
+            sheets.update("INSERT INTO " + table + " SELECT * FROM " + table + SHADOW_SUFFIX);
+        }
+        return events;
+    }
+
+    /**
+     * Replays the events committed behind the replay and applied by the handlers meanwhile. The handlers apply
+     * only events younger than the retention of processed events, so these are told apart from the replayed ones
+     * by the recent events kept for marking.
+     */
+    private long replayHandledButNotReplayed(Instant startedAt) {
+        Set<UUID> replayedEvents = recentEvents.stream().map(DomainEvent::getEventId).collect(Collectors.toSet());
+        List<UUID> missed = processedEvents.processedSince(startedAt.minus(CLOCK_SKEW))
+                .filter(eventId -> !replayedEvents.contains(eventId))
+                .toJavaList();
+        if (missed.isEmpty()) {
+            return 0;
+        }
+        log.info("Replaying {} events committed behind the rebuild and handled meanwhile", missed.size());
+        return replay(missed.size(), consumer -> history.replay(missed, consumer));
+    }
+
+    private double progress() {
+        long total = toReplay.get();
+        return total == 0 ? 0 : Math.min(1.0, (double) replayed.get() / total);
+    }
+
+    private long replay(long fromExclusive, long toInclusive) {
+        return replay(toInclusive - fromExclusive, consumer -> history.replay(fromExclusive, toInclusive, consumer));
+    }
+
+    private long replay(long total, Consumer<Consumer<DomainEvent>> events) {
+        replayed.set(0);
+        toReplay.set(total);
+        Instant processedEventsKeptSince = Instant.now().minus(SheetsReadModel.PROCESSED_EVENTS_RETENTION);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Partition> workers = new ArrayList<>(partitions);
+        for (int partition = 0; partition < partitions; partition++) {
+            workers.add(new Partition(failure));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(partitions, new CustomizableThreadFactory("sheets-rebuild-"));
+        try {
+            List<Future<?>> running = new ArrayList<>(partitions);
+            workers.forEach(worker -> running.add(executor.submit(worker)));
+            events.accept(event ->
+                    bookIdOf(event).forEach(bookId -> {
+                        workers.get(Math.floorMod(bookId.hashCode(), partitions)).accept(event);
+                        if (event.getWhen() == null || event.getWhen().isAfter(processedEventsKeptSince)) {
+                            recentEvents.add(event);
+                        }
+                    }));
+            workers.forEach(Partition::finish);
+            for (Future<?> worker : running) {
+                worker.get();
+            }
+            return replayed.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while rebuilding sheets", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to rebuild sheets", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Option<UUID> bookIdOf(DomainEvent event) {
+        if (event instanceof BookPlacedOnHold) {
+            return Option.of(((BookPlacedOnHold) event).getBookId());
+        }
+        if (event instanceof BookHoldCanceled) {
+            return Option.of(((BookHoldCanceled) event).getBookId());
+        }
+        if (event instanceof BookHoldExpired) {
+            return Option.of(((BookHoldExpired) event).getBookId());
+        }
+        if (event instanceof BookCheckedOut) {
+            return Option.of(((BookCheckedOut) event).getBookId());
+        }
+        if (event instanceof BookReturned) {
+            return Option.of(((BookReturned) event).getBookId());
+        }
+        return Option.none();
+    }
+
+    private enum Table {
+        HOLDS, CHECKOUTS
+    }
+
+    private enum Statement {
+        INSERT_HOLD(Table.HOLDS, "INSERT INTO holds_sheet_rebuild " +
+                "(id, book_id, status, hold_event_id, hold_by_patron_id, hold_at, hold_till, expired_at, canceled_at, hold_at_branch, checked_out_at) VALUES " +
+                "(holds_sheet_seq.nextval, ?, 'ACTIVE', ?, ?, ?, ?, null, null, ?, null)"),
+        CANCEL_HOLD(Table.HOLDS,
+                "UPDATE holds_sheet_rebuild SET canceled_at = ?, status = 'CANCELED' WHERE canceled_at IS NULL AND book_id = ? AND hold_by_patron_id = ?"),
+        EXPIRE_HOLD(Table.HOLDS,
+                "UPDATE holds_sheet_rebuild SET expired_at = ?, status = 'EXPIRED' WHERE expired_at IS NULL AND book_id = ? AND hold_by_patron_id = ?"),
+        CHECK_OUT_HOLD(Table.HOLDS,
+                "UPDATE holds_sheet_rebuild SET checked_out_at = ?, status = 'CHECKEDOUT' WHERE checked_out_at IS NULL AND book_id = ? AND hold_by_patron_id = ?"),
+        INSERT_CHECKOUT(Table.CHECKOUTS, "INSERT INTO checkouts_sheet_rebuild " +
+                "(id, book_id, status, checkout_event_id, checked_out_by_patron_id, checked_out_at, checkout_till, checked_out_at_branch, returned_at) VALUES " +
+                "(checkouts_sheet_seq.nextval, ?, 'CHECKEDOUT', ?, ?, ?, ?, ?, null)"),
+        RETURN(Table.CHECKOUTS,
+                "UPDATE checkouts_sheet_rebuild SET returned_at = ?, status = 'RETURNED' WHERE returned_at IS NULL AND book_id = ? AND checked_out_by_patron_id = ?"),
+        INSERT_RETURNED(Table.CHECKOUTS, "INSERT INTO checkouts_sheet_rebuild " +
+                "(id, book_id, status, checkout_event_id, checked_out_by_patron_id, checked_out_at, checkout_till, returned_at) VALUES " +
+                "(checkouts_sheet_seq.nextval, ?, 'CHECKEDOUT', ?, ?, null, null, ?)");
+
+        private final Table table;
+        private final String sql;
+
+        Statement(Table table, String sql) {
+            this.table = table;
+            this.sql = sql;
+        }
+    }
+
+    /**
+     * Applies the events of the books of one partition, in the order they were stored.
+     */
+    private class Partition implements Runnable {
+
+        private final BlockingQueue<List<DomainEvent>> queue = new ArrayBlockingQueue<>(16);
+        private final AtomicReference<Throwable> failure;
+        private final Map<Statement, List<Object[]>> pending = new EnumMap<>(Statement.class);
+        private final Map<Table, Map<UUID, Statement>> pendingBooks = new EnumMap<>(Table.class);
+        private final List<Object[]> returnedWithoutCheckout = new ArrayList<>();
+        private List<DomainEvent> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        private Partition(AtomicReference<Throwable> failure) {
+            this.failure = failure;
+            for (Statement statement : Statement.values()) {
+                pending.put(statement, new ArrayList<>());
+            }
+            for (Table table : Table.values()) {
+                pendingBooks.put(table, new HashMap<>());
+            }
+        }
+
+        private void accept(DomainEvent event) {
+            chunk.add(event);
+            if (chunk.size() == CHUNK_SIZE) {
+                enqueue(chunk);
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+
+        private void finish() {
+            if (!chunk.isEmpty()) {
+                enqueue(chunk);
+            }
+            enqueue(END_OF_REPLAY);
+        }
+
+        private void enqueue(List<DomainEvent> events) {
+            try {
+                while (!queue.offer(events, 100, TimeUnit.MILLISECONDS)) {
+                    if (failure.get() != null) {
+                        throw new IllegalStateException("Failed to rebuild sheets", failure.get());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while rebuilding sheets", e);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                List<DomainEvent> events;
+                while ((events = queue.take()) != END_OF_REPLAY) {
+                    events.forEach(this::apply);
+                    replayedEvents.increment(events.size());
+                    replayed.addAndGet(events.size());
+                }
+                for (Statement statement : Statement.values()) {
+                    flush(statement);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+                throw e;
+            }
+        }
+
+        private void apply(DomainEvent event) {
+            if (event instanceof BookPlacedOnHold) {
+                BookPlacedOnHold placedOnHold = (BookPlacedOnHold) event;
+                add(Statement.INSERT_HOLD, placedOnHold.getBookId(),
+                        placedOnHold.getBookId(),
+                        placedOnHold.getEventId(),
+                        placedOnHold.getPatronId(),
+                        from(placedOnHold.getWhen()),
+                        Option.of(placedOnHold.getHoldTill()).map(Timestamp::from).getOrNull(),
+                        placedOnHold.getLibraryBranchId());
+            } else if (event instanceof BookHoldCanceled) {
+                BookHoldCanceled holdCanceled = (BookHoldCanceled) event;
+                add(Statement.CANCEL_HOLD, holdCanceled.getBookId(),
+                        from(holdCanceled.getWhen()), holdCanceled.getBookId(), holdCanceled.getPatronId());
+            } else if (event instanceof BookHoldExpired) {
+                BookHoldExpired holdExpired = (BookHoldExpired) event;
+                add(Statement.EXPIRE_HOLD, holdExpired.getBookId(),
+                        from(holdExpired.getWhen()), holdExpired.getBookId(), holdExpired.getPatronId());
+            } else if (event instanceof BookCheckedOut) {
+                BookCheckedOut checkedOut = (BookCheckedOut) event;
+                add(Statement.INSERT_CHECKOUT, checkedOut.getBookId(),
+                        checkedOut.getBookId(),
+                        checkedOut.getEventId(),
+                        checkedOut.getPatronId(),
+                        from(checkedOut.getWhen()),
+                        from(checkedOut.getTill()),
+                        checkedOut.getLibraryBranchId());
+                add(Statement.CHECK_OUT_HOLD, checkedOut.getBookId(),
+                        from(checkedOut.getWhen()), checkedOut.getBookId(), checkedOut.getPatronId());
+            } else if (event instanceof BookReturned) {
+                BookReturned returned = (BookReturned) event;
+                returnedWithoutCheckout.add(new Object[]{
+                        returned.getBookId(), returned.getEventId(), returned.getPatronId(), from(returned.getWhen())});
+                add(Statement.RETURN, returned.getBookId(),
+                        from(returned.getWhen()), returned.getBookId(), returned.getPatronId());
+            }
+        }
+
+        private void add(Statement statement, UUID bookId, Object... arguments) {
+            Map<UUID, Statement> books = pendingBooks.get(statement.table);
+            Statement pendingForBook = books.get(bookId);
+            if (pendingForBook != null && pendingForBook != statement) {
+                flush(pendingForBook);
+            }
+            List<Object[]> batch = pending.get(statement);
+            batch.add(arguments);
+            books.put(bookId, statement);
+            if (batch.size() >= batchSize) {
+                flush(statement);
+            }
+        }
+
+        private void flush(Statement statement) {
+            List<Object[]> batch = pending.get(statement);
+            if (batch.isEmpty()) {
+                return;
+            }
+            int[] updated = sheets.batchUpdate(statement.sql, batch);
+            if (statement == Statement.RETURN) {
+                insertReturnedWithoutCheckout(updated);
+            }
+            batch.clear();
+            pendingBooks.get(statement.table).values().removeIf(pendingStatement -> pendingStatement == statement);
+        }
+
+        private void insertReturnedWithoutCheckout(int[] updated) {
+            List<Object[]> missingCheckouts = new ArrayList<>();
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    missingCheckouts.add(returnedWithoutCheckout.get(i));
+                }
+            }
+            returnedWithoutCheckout.clear();
+            if (!missingCheckouts.isEmpty()) {
+                sheets.batchUpdate(Statement.INSERT_RETURNED.sql, missingCheckouts);
+            }
+        }
+    }
+}
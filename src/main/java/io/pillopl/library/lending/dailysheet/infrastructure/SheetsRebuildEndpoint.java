@@ -0,0 +1,20 @@
+package io.pillopl.library.lending.dailysheet.infrastructure;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+/**
+ * Actuator endpoint rebuilding the daily sheets from the history of events.
+ */
+@Endpoint(id = "sheetsrebuild")
+@AllArgsConstructor
+public class SheetsRebuildEndpoint {
+
+    private final SheetsRebuild sheetsRebuild;
+
+    @WriteOperation
+    public long rebuild() {
+        return sheetsRebuild.rebuild();
+    }
+}
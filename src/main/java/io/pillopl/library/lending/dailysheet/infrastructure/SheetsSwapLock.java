@@ -0,0 +1,53 @@
+package io.pillopl.library.lending.dailysheet.infrastructure;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the handlers of the daily sheet and the swap of rebuilt sheet tables apart.
+ * <p>
+ * A handler running in a transaction holds the swap off until the transaction completes, since the rows it changed
+ * stay locked until then. Handlers started while the tables are being swapped wait for the swap to end.
+ * Only handlers of this node are held off.
+ */
+class SheetsSwapLock {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    void handling(Runnable handler) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            lock.readLock().lock();
+            try {
+                handler.run();
+            } finally {
+                lock.readLock().unlock();
+            }
+            return;
+        }
+        if (!TransactionSynchronizationManager.hasResource(this)) {
+            lock.readLock().lock();
+            TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(SheetsSwapLock.this);
+                    lock.readLock().unlock();
+                }
+            });
+        }
+        handler.run();
+    }
+
+    <T> T swapping(Supplier<T> swap) {
+        lock.writeLock().lock();
+        try {
+            return swap.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
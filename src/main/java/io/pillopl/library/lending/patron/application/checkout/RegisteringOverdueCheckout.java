@@ -4,12 +4,15 @@ import io.pillopl.library.commons.commands.BatchResult;
 import io.pillopl.library.lending.dailysheet.model.DailySheet;
 import io.pillopl.library.lending.patron.model.PatronEvent.OverdueCheckoutRegistered;
 import io.pillopl.library.lending.patron.model.Patrons;
+import io.vavr.collection.Stream;
 import io.vavr.control.Try;
 import lombok.AllArgsConstructor;
 
 @AllArgsConstructor
 public class RegisteringOverdueCheckout {
 
+    private static final int BATCH_SIZE = 500;
+
     private final DailySheet find;
     private final Patrons patronRepository;
 
@@ -17,12 +20,26 @@ public class RegisteringOverdueCheckout {
         return Try.of(() ->
                 find.queryForCheckoutsToOverdue()
                 .toStreamOfEvents()
-                .map(this::publish)
+                .grouped(BATCH_SIZE)
+                .map(this::publishBatch)
                 .find(Try::isFailure)
                 .map(handleEventError -> BatchResult.SomeFailed)
                 .getOrElse(BatchResult.FullSuccess));
     }
 
+    private Try<Void> publishBatch(Stream<OverdueCheckoutRegistered> events) {
+        return Try.run(() -> patronRepository.publish(events.toList()))
+                .orElse(() -> publishOneByOne(events));
+    }
+
+    private Try<Void> publishOneByOne(Stream<OverdueCheckoutRegistered> events) {
+        return events
+                .map(this::publish)
+                .toList()
+                .find(Try::isFailure)
+                .getOrElse(Try.success(null));
+    }
+
     private Try<Void> publish(OverdueCheckoutRegistered event) {
         return Try.run(() -> patronRepository.publish(event));
     }
@@ -3,13 +3,17 @@ package io.pillopl.library.lending.patron.application.hold;
 import io.pillopl.library.commons.commands.BatchResult;
 import io.pillopl.library.lending.dailysheet.model.DailySheet;
 import io.pillopl.library.lending.patron.model.PatronEvent;
+import io.pillopl.library.lending.patron.model.PatronEvent.BookHoldExpired;
 import io.pillopl.library.lending.patron.model.Patrons;
+import io.vavr.collection.Stream;
 import io.vavr.control.Try;
 import lombok.AllArgsConstructor;
 
 @AllArgsConstructor
 public class ExpiringHolds {
 
+    private static final int BATCH_SIZE = 500;
+
     private final DailySheet find;
     private final Patrons patronRepository;
 
@@ -17,12 +21,26 @@ public class ExpiringHolds {
         return Try.of(() ->
                 find.queryForHoldsToExpireSheet()
                 .toStreamOfEvents()
-                .map(this::publish)
+                .grouped(BATCH_SIZE)
+                .map(this::publishBatch)
                 .find(Try::isFailure)
                 .map(handleEventError -> BatchResult.SomeFailed)
                 .getOrElse(BatchResult.FullSuccess));
     }
 
+    private Try<Void> publishBatch(Stream<BookHoldExpired> events) {
+        return Try.run(() -> patronRepository.publish(events.toList()))
+                .orElse(() -> publishOneByOne(events));
+    }
+
+    private Try<Void> publishOneByOne(Stream<BookHoldExpired> events) {
+        return events
+                .map(this::publish)
+                .toList()
+                .find(Try::isFailure)
+                .getOrElse(Try.success(null));
+    }
+
     private Try<Void> publish(PatronEvent.BookHoldExpired event) {
         return Try.run(() -> patronRepository.publish(event));
     }
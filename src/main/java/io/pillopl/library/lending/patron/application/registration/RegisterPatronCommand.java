@@ -0,0 +1,12 @@
+package io.pillopl.library.lending.patron.application.registration;
+
+import io.pillopl.library.lending.patron.model.PatronId;
+import io.pillopl.library.lending.patron.model.PatronType;
+import lombok.NonNull;
+import lombok.Value;
+
+@Value
+public class RegisterPatronCommand {
+    @NonNull PatronId patronId;
+    @NonNull PatronType patronType;
+}
@@ -0,0 +1,79 @@
+package io.pillopl.library.lending.patron.application.registration;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.pillopl.library.commons.commands.BatchResult;
+import io.pillopl.library.lending.patron.model.PatronEvent.PatronCreated;
+import io.pillopl.library.lending.patron.model.Patrons;
+import io.vavr.collection.List;
+import io.vavr.collection.Iterator;
+import io.vavr.control.Try;
+
+/**
+ * Registers patrons in bulk, e.g. when a whole school district is onboarded.
+ * <p>
+ * Patrons are registered in chunks, each published to {@link Patrons} as a single batch. A chunk that fails
+ * as a whole is retried patron by patron, so that a single rejected patron does not fail the other ones.
+ * Registered patrons and the outcome and duration of every chunk are recorded as metrics.
+ */
+public class RegisteringPatrons {
+
+    private final Patrons patronRepository;
+    private final int chunkSize;
+    private final Counter registered;
+    private final Counter failed;
+    private final Counter fullChunks;
+    private final Counter retriedChunks;
+    private final Timer chunkTime;
+
+    public RegisteringPatrons(Patrons patronRepository, int chunkSize, MeterRegistry meterRegistry) {
+        this.patronRepository = patronRepository;
+        this.chunkSize = chunkSize;
+        this.registered = meterRegistry.counter("patron_registration_patrons", "result", "registered");
+        this.failed = meterRegistry.counter("patron_registration_patrons", "result", "failed");
+        this.fullChunks = meterRegistry.counter("patron_registration_chunks", "result", "batch");
+        this.retriedChunks = meterRegistry.counter("patron_registration_chunks", "result", "one_by_one");
+        this.chunkTime = meterRegistry.timer("patron_registration_chunk");
+    }
+
+    /**
+     * @param commands the patrons to register, read once and only one chunk ahead, so that the commands
+     *                 of registered chunks can be collected while the next chunks are registered
+     * @return the outcome of the registration, failed only if the commands could not be read
+     */
+    public Try<BatchResult> register(java.util.Iterator<RegisterPatronCommand> commands) {
+        return Try.of(() ->
+                Iterator.ofAll(commands)
+                        .map(command -> PatronCreated.now(command.getPatronId(), command.getPatronType()))
+                        .grouped(chunkSize)
+                        .map(chunk -> chunkTime.record(() -> registerChunk(chunk.toList())))
+                        .foldLeft(BatchResult.FullSuccess, (result, chunkResult) ->
+                                chunkResult == BatchResult.FullSuccess ? result : BatchResult.SomeFailed));
+    }
+
+    private BatchResult registerChunk(List<PatronCreated> chunk) {
+        return Try.run(() -> patronRepository.publish(chunk))
+                .onSuccess(published -> {
+                    fullChunks.increment();
+                    registered.increment(chunk.size());
+                })
+                .map(published -> BatchResult.FullSuccess)
+                .getOrElse(() -> registerOneByOne(chunk));
+    }
+
+    private BatchResult registerOneByOne(List<PatronCreated> chunk) {
+        retriedChunks.increment();
+        return chunk
+                .map(this::registerOne)
+                .find(Try::isFailure)
+                .map(failure -> BatchResult.SomeFailed)
+                .getOrElse(BatchResult.FullSuccess);
+    }
+
+    private Try<Void> registerOne(PatronCreated event) {
+        return Try.run(() -> patronRepository.publish(event))
+                .onSuccess(published -> registered.increment())
+                .onFailure(error -> failed.increment());
+    }
+}
@@ -0,0 +1,58 @@
+package io.pillopl.library.lending.patron.infrastructure;
+
+import io.vavr.control.Try;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.lang.reflect.UndeclaredThrowableException;
+
+/**
+ * Runs the commands of an application service in a transaction, so that the patron a command finds is the patron
+ * its event is applied to, see {@link LoadedPatron}. The application services stay free of Spring.
+ * <p>
+ * Commands report failures as a failed {@link Try} instead of throwing, so a failed command rolls back
+ * the transaction it has started. A command joining a transaction of its caller leaves it to the caller.
+ * Only the methods returning a {@link Try} are commands.
+ */
+class CommandTransactions implements MethodInterceptor {
+
+    private final TransactionOperations transactions;
+
+    private CommandTransactions(TransactionOperations transactions) {
+        this.transactions = transactions;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T inTransaction(T service, TransactionOperations transactions) {
+        ProxyFactory proxyFactory = new ProxyFactory(service);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new CommandTransactions(transactions));
+        return (T) proxyFactory.getProxy();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (!Try.class.isAssignableFrom(invocation.getMethod().getReturnType())) {
+            return invocation.proceed();
+        }
+        return transactions.execute(status -> {
+            Object result = proceed(invocation);
+            if (status.isNewTransaction() && ((Try<?>) result).isFailure()) {
+                status.setRollbackOnly();
+            }
+            return result;
+        });
+    }
+
+    private static Object proceed(MethodInvocation invocation) {
+        try {
+            return invocation.proceed();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package io.pillopl.library.lending.patron.infrastructure;
+
+import io.pillopl.library.commons.events.DomainEvents;
+import io.pillopl.library.commons.events.publisher.DomainEventSerializer;
+import io.pillopl.library.lending.patron.model.Patron;
+import io.pillopl.library.lending.patron.model.PatronEvent;
+import io.pillopl.library.lending.patron.model.PatronEvent.PatronCreated;
+import io.pillopl.library.lending.patron.model.PatronId;
+import io.pillopl.library.lending.patron.model.PatronType;
+import io.pillopl.library.lending.patron.model.Patrons;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.util.HashSet;
+import java.util.UUID;
+
+import static io.pillopl.library.commons.events.publisher.BinaryFields.getNullableInstant;
+import static io.pillopl.library.commons.events.publisher.BinaryFields.getUuid;
+import static io.pillopl.library.commons.events.publisher.BinaryFields.putNullableInstant;
+import static io.pillopl.library.commons.events.publisher.BinaryFields.putUuid;
+
+/**
+ * Patrons stored as streams of their {@link PatronEvent}s, rebuilt by replaying the events that follow
+ * the latest snapshot of the stream.
+ * <p>
+ * Publishing an event appends it to the stream of the patron at the sequence number following the one the patron
+ * was found at. An append racing with another one for the same patron fails on the primary key of the stream,
+ * so a command decided on a patron that has changed since fails instead of overwriting the change.
+ * The patron found in a transaction is reused by the next event published in it, see {@link LoadedPatron}.
+ * Every {@code snapshotEvery} events, the state of the patron is written as a snapshot of the stream.
+ * <p>
+ * Events rejected by the patron, such as {@link PatronEvent.BookHoldFailed}, are appended too, but do not change
+ * the state of the patron when replayed.
+ */
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+class EventSourcedPatrons implements Patrons {
+
+    private static final String APPEND = "INSERT INTO patron_event_stream " +
+            "(patron_id, sequence_number, event_type, occurred_at, payload) VALUES (?, ?, ?, ?, ?)";
+    private static final String FIND_SNAPSHOT = "SELECT s.sequence_number, s.patron_type, s.state " +
+            "FROM patron_snapshot s WHERE s.patron_id = ?";
+    private static final String FIND_EVENTS = "SELECT e.sequence_number, e.payload FROM patron_event_stream e " +
+            "WHERE e.patron_id = ? AND e.sequence_number > ? ORDER BY e.sequence_number";
+    private static final String SAVE_SNAPSHOT = "MERGE INTO patron_snapshot " +
+            "(patron_id, sequence_number, patron_type, state) KEY (patron_id) VALUES (?, ?, ?, ?)";
+
+    private static final int HOLD_BYTES = 2 * 16 + 1 + 12;
+    private static final int OVERDUE_CHECKOUT_BYTES = 2 * 16;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DomainEventSerializer serializer;
+    private final DomainModelMapper domainModelMapper;
+    private final DomainEvents domainEvents;
+    private final int snapshotEvery;
+    private final LoadedPatron loadedPatron;
+
+    @Override
+    public Option<Patron> findBy(PatronId patronId) {
+        PatronDatabaseEntity state = replay(patronId.getPatronId());
+        loadedPatron.keep(state == null ? null : state.copy());
+        if (state == null) {
+            return Option.none();
+        }
+        return Option.of(domainModelMapper.map(state));
+    }
+
+    @Override
+    @Transactional
+    public Patron publish(PatronEvent domainEvent) {
+        PatronDatabaseEntity loaded = loadedPatron.takeFor(domainEvent);
+        PatronDatabaseEntity state = append(loaded == null ? current(domainEvent) : loaded, domainEvent);
+        domainEvents.publish(domainEvent.normalize());
+        return domainModelMapper.map(state);
+    }
+
+    @Override
+    @Transactional
+    public void publish(List<? extends PatronEvent> events) {
+        loadedPatron.forget();
+        events.forEach(event -> append(current(event), event));
+        domainEvents.publish(events.flatMap(PatronEvent::normalize));
+    }
+
+    private PatronDatabaseEntity current(PatronEvent domainEvent) {
+        if (domainEvent instanceof PatronCreated) {
+            return null;
+        }
+        PatronDatabaseEntity state = replay(domainEvent.patronId().getPatronId());
+        if (state == null) {
+            throw new IllegalArgumentException("There is no patron " + domainEvent.patronId().getPatronId());
+        }
+        return state;
+    }
+
+    private PatronDatabaseEntity append(PatronDatabaseEntity state, PatronEvent domainEvent) {
+        long sequenceNumber = state == null ? 1 : state.version + 1;
+        PatronDatabaseEntity next = apply(state, sequenceNumber, domainEvent);
+        try {
+            jdbcTemplate.update(APPEND,
+                    next.patronId,
+                    sequenceNumber,
+                    domainEvent.getClass().getSimpleName(),
+                    Timestamp.from(domainEvent.getWhen()),
+                    serializer.serialize(domainEvent));
+        } catch (DuplicateKeyException e) {
+            throw new OptimisticLockingFailureException("Patron " + next.patronId + " has changed since it was loaded", e);
+        }
+        if (sequenceNumber % snapshotEvery == 0) {
+            jdbcTemplate.update(SAVE_SNAPSHOT, next.patronId, sequenceNumber, next.patronType.name(), snapshotOf(next));
+        }
+        return next;
+    }
+
+    private PatronDatabaseEntity replay(UUID patronId) {
+        java.util.List<PatronDatabaseEntity> snapshots = jdbcTemplate.query(FIND_SNAPSHOT,
+                (rs, rowNum) -> fromSnapshot(patronId, rs.getLong("sequence_number"), PatronType.valueOf(rs.getString("patron_type")), rs.getBytes("state")),
+                patronId);
+        PatronDatabaseEntity state = snapshots.isEmpty() ? null : snapshots.get(0);
+        java.util.List<Tuple2<Long, PatronEvent>> events = jdbcTemplate.query(FIND_EVENTS,
+                (rs, rowNum) -> Tuple.of(rs.getLong("sequence_number"), (PatronEvent) serializer.deserialize(rs.getBytes("payload"))),
+                patronId, state == null ? 0 : state.version);
+        for (Tuple2<Long, PatronEvent> event : events) {
+            state = apply(state, event._1, event._2);
+        }
+        return state;
+    }
+
+    private static PatronDatabaseEntity apply(PatronDatabaseEntity state, long sequenceNumber, PatronEvent event) {
+        if (event instanceof PatronCreated) {
+            state = new PatronDatabaseEntity(event.patronId(), ((PatronCreated) event).getPatronType());
+        } else if (state == null) {
+            throw new IllegalStateException("Stream of patron " + event.getPatronId() + " does not start with its creation");
+        } else if (PatronDatabaseEntity.changesState(event)) {
+            state = state.handle(event);
+        }
+        state.version = sequenceNumber;
+        return state;
+    }
+
+    private static byte[] snapshotOf(PatronDatabaseEntity state) {
+        ByteBuffer out = ByteBuffer.allocate(2 * Integer.BYTES
+                + state.booksOnHold.size() * HOLD_BYTES
+                + state.checkouts.size() * OVERDUE_CHECKOUT_BYTES);
+        out.putInt(state.booksOnHold.size());
+        for (HoldDatabaseEntity hold : state.booksOnHold) {
+            putUuid(out, hold.bookId);
+            putUuid(out, hold.libraryBranchId);
+            putNullableInstant(out, hold.till);
+        }
+        out.putInt(state.checkouts.size());
+        for (OverdueCheckoutDatabaseEntity checkout : state.checkouts) {
+            putUuid(out, checkout.bookId);
+            putUuid(out, checkout.libraryBranchId);
+        }
+        return out.array();
+    }
+
+    private static PatronDatabaseEntity fromSnapshot(UUID patronId, long sequenceNumber, PatronType patronType, byte[] snapshot) {
+        ByteBuffer in = ByteBuffer.wrap(snapshot);
+        PatronDatabaseEntity state = new PatronDatabaseEntity(new PatronId(patronId), patronType);
+        state.version = sequenceNumber;
+        int holds = in.getInt();
+        state.booksOnHold = new HashSet<>(holds * 2);
+        for (int i = 0; i < holds; i++) {
+            UUID bookId = getUuid(in);
+            UUID libraryBranchId = getUuid(in);
+            state.booksOnHold.add(new HoldDatabaseEntity(bookId, patronId, libraryBranchId, getNullableInstant(in)));
+        }
+        int checkouts = in.getInt();
+        for (int i = 0; i < checkouts; i++) {
+            UUID bookId = getUuid(in);
+            UUID libraryBranchId = getUuid(in);
+            state.checkouts.add(new OverdueCheckoutDatabaseEntity(bookId, patronId, libraryBranchId));
+        }
+        return state;
+    }
+}
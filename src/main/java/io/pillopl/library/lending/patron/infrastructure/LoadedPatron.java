@@ -0,0 +1,61 @@
+package io.pillopl.library.lending.patron.infrastructure;
+
+import io.pillopl.library.lending.patron.model.PatronEvent;
+import io.pillopl.library.lending.patron.model.PatronEvent.PatronCreated;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * The patron last found in the current transaction, kept as a resource of the transaction until the next event
+ * is published or the transaction completes, whichever comes first.
+ * <p>
+ * Nothing is kept for a patron found outside of a transaction, so a command failing between finding a patron and
+ * publishing its event, or a thread reused by another command, never sees a patron found by someone else.
+ */
+class LoadedPatron {
+
+    void keep(PatronDatabaseEntity entity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        Holder holder = (Holder) TransactionSynchronizationManager.getResource(this);
+        if (holder == null) {
+            holder = new Holder();
+            TransactionSynchronizationManager.bindResource(this, holder);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(LoadedPatron.this);
+                }
+            });
+        }
+        holder.entity = entity;
+    }
+
+    /**
+     * @param domainEvent the event about to be published
+     * @return the patron kept in the current transaction if the event belongs to it, null otherwise
+     */
+    PatronDatabaseEntity takeFor(PatronEvent domainEvent) {
+        Holder holder = (Holder) TransactionSynchronizationManager.getResource(this);
+        if (holder == null) {
+            return null;
+        }
+        PatronDatabaseEntity loaded = holder.entity;
+        holder.entity = null;
+        boolean samePatron = loaded != null && loaded.patronId.equals(domainEvent.patronId().getPatronId());
+        return samePatron && !(domainEvent instanceof PatronCreated) ? loaded : null;
+    }
+
+    void forget() {
+        Holder holder = (Holder) TransactionSynchronizationManager.getResource(this);
+        if (holder != null) {
+            holder.entity = null;
+        }
+    }
+
+    private static class Holder {
+
+        private PatronDatabaseEntity entity;
+    }
+}
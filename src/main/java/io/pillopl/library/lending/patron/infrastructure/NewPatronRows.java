@@ -0,0 +1,32 @@
+package io.pillopl.library.lending.patron.infrastructure;
+
+import io.pillopl.library.lending.patron.model.PatronEvent.PatronCreated;
+import io.vavr.collection.List;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Inserts the rows of newly created patrons with a single JDBC batch,
+ * instead of a Spring Data JDBC save per patron.
+ */
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+class NewPatronRows {
+
+    private static final String INSERT_PATRON = "INSERT INTO patron_database_entity (patron_type, patron_id) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param created the events of the patrons to insert
+     */
+    void insert(List<PatronCreated> created) {
+        if (created.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_PATRON, created.toJavaList(), created.size(), (ps, event) -> {
+            ps.setString(1, event.getPatronType().name());
+            ps.setObject(2, event.getPatronId());
+        });
+    }
+}
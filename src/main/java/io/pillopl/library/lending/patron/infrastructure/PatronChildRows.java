@@ -0,0 +1,71 @@
+package io.pillopl.library.lending.patron.infrastructure;
+
+import io.pillopl.library.lending.patron.model.PatronEvent;
+import io.pillopl.library.lending.patron.model.PatronEvent.*;
+import io.vavr.API;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+
+import static io.vavr.API.$;
+import static io.vavr.API.Case;
+import static io.vavr.Predicates.instanceOf;
+
+/**
+ * Writes the change a {@link PatronEvent} makes to the holds and overdue checkouts of a patron
+ * as a single INSERT or DELETE, mirroring {@link PatronDatabaseEntity#handle(PatronEvent)}.
+ * <p>
+ * Saving the whole aggregate through Spring Data JDBC would delete and re-insert all of its child rows instead.
+ */
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+class PatronChildRows {
+
+    private static final String INSERT_HOLD = "INSERT INTO hold_database_entity " +
+            "(book_id, patron_id, library_branch_id, till, patron_database_entity) VALUES (?, ?, ?, ?, ?)";
+    private static final String DELETE_HOLD = "DELETE FROM hold_database_entity " +
+            "WHERE patron_database_entity = ? AND patron_id = ? AND book_id = ? AND library_branch_id = ?";
+    private static final String INSERT_OVERDUE_CHECKOUT = "INSERT INTO overdue_checkout_database_entity " +
+            "(book_id, patron_id, library_branch_id, patron_database_entity) VALUES (?, ?, ?, ?)";
+    private static final String DELETE_OVERDUE_CHECKOUT = "DELETE FROM overdue_checkout_database_entity " +
+            "WHERE patron_database_entity = ? AND patron_id = ? AND book_id = ? AND library_branch_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param patron the patron row the event belongs to
+     * @param event  the event already handled by the patron entity
+     * @return the number of written rows
+     */
+    int write(PatronDatabaseEntity patron, PatronEvent event) {
+        return API.Match(event).of(
+                Case($(instanceOf(BookPlacedOnHoldEvents.class)), placedOnHoldEvents -> insertHold(patron, placedOnHoldEvents.getBookPlacedOnHold())),
+                Case($(instanceOf(BookPlacedOnHold.class)), placedOnHold -> insertHold(patron, placedOnHold)),
+                Case($(instanceOf(BookCheckedOut.class)), checkedOut -> deleteHold(patron, checkedOut.getPatronId(), checkedOut.getBookId(), checkedOut.getLibraryBranchId())),
+                Case($(instanceOf(BookHoldCanceled.class)), canceled -> deleteHold(patron, canceled.getPatronId(), canceled.getBookId(), canceled.getLibraryBranchId())),
+                Case($(instanceOf(BookHoldExpired.class)), expired -> deleteHold(patron, expired.getPatronId(), expired.getBookId(), expired.getLibraryBranchId())),
+                Case($(instanceOf(OverdueCheckoutRegistered.class)), registered -> insertOverdueCheckout(patron, registered)),
+                Case($(instanceOf(BookReturned.class)), returned -> deleteOverdueCheckout(patron, returned))
+        );
+    }
+
+    private int insertHold(PatronDatabaseEntity patron, BookPlacedOnHold event) {
+        return jdbcTemplate.update(INSERT_HOLD,
+                event.getBookId(), event.getPatronId(), event.getLibraryBranchId(), event.getHoldTill() == null ? null : Timestamp.from(event.getHoldTill()), patron.id);
+    }
+
+    private int deleteHold(PatronDatabaseEntity patron, UUID patronId, UUID bookId, UUID libraryBranchId) {
+        return jdbcTemplate.update(DELETE_HOLD, patron.id, patronId, bookId, libraryBranchId);
+    }
+
+    private int insertOverdueCheckout(PatronDatabaseEntity patron, OverdueCheckoutRegistered event) {
+        return jdbcTemplate.update(INSERT_OVERDUE_CHECKOUT,
+                event.getBookId(), event.getPatronId(), event.getLibraryBranchId(), patron.id);
+    }
+
+    private int deleteOverdueCheckout(PatronDatabaseEntity patron, BookReturned event) {
+        return jdbcTemplate.update(DELETE_OVERDUE_CHECKOUT, patron.id, event.getPatronId(), event.getBookId(), event.getLibraryBranchId());
+    }
+}
@@ -1,6 +1,9 @@
 package io.pillopl.library.lending.patron.infrastructure;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import io.pillopl.library.commons.events.DomainEvents;
+import io.pillopl.library.commons.events.publisher.BinaryDomainEventSerializer;
+import io.pillopl.library.commons.events.publisher.EventCodecs;
 import io.pillopl.library.lending.dailysheet.model.DailySheet;
 import io.pillopl.library.lending.patron.application.checkout.CheckingOutBookOnHold;
 import io.pillopl.library.lending.patron.application.checkout.RegisteringOverdueCheckout;
@@ -10,19 +13,30 @@ import io.pillopl.library.lending.patron.application.hold.FindAvailableBook;
 import io.pillopl.library.lending.patron.application.hold.FindBookOnHold;
 import io.pillopl.library.lending.patron.application.hold.HandleDuplicateHold;
 import io.pillopl.library.lending.patron.application.hold.PlacingOnHold;
+import io.pillopl.library.lending.patron.application.registration.RegisteringPatrons;
 import io.pillopl.library.lending.patron.model.PatronFactory;
 import io.pillopl.library.lending.patron.model.Patrons;
+import io.vavr.collection.List;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.jdbc.repository.config.EnableJdbcRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static io.pillopl.library.lending.patron.infrastructure.CommandTransactions.inTransaction;
 
 @Configuration
 @EnableJdbcRepositories
 public class PatronConfiguration {
 
     @Bean
-    CheckingOutBookOnHold checkingOutBookOnHold(FindBookOnHold findBookOnHold, Patrons patronRepository) {
-        return new CheckingOutBookOnHold(findBookOnHold, patronRepository);
+    CheckingOutBookOnHold checkingOutBookOnHold(FindBookOnHold findBookOnHold,
+                                                Patrons patronRepository,
+                                                PlatformTransactionManager transactionManager) {
+        return inTransaction(new CheckingOutBookOnHold(findBookOnHold, patronRepository), new TransactionTemplate(transactionManager));
     }
 
     @Bean
@@ -31,8 +45,10 @@ public class PatronConfiguration {
     }
 
     @Bean
-    CancelingHold cancelingHold(FindBookOnHold findBookOnHold, Patrons patronRepository) {
-        return new CancelingHold(findBookOnHold, patronRepository);
+    CancelingHold cancelingHold(FindBookOnHold findBookOnHold,
+                                Patrons patronRepository,
+                                PlatformTransactionManager transactionManager) {
+        return inTransaction(new CancelingHold(findBookOnHold, patronRepository), new TransactionTemplate(transactionManager));
     }
 
     @Bean
@@ -46,16 +62,54 @@ public class PatronConfiguration {
     }
 
     @Bean
-    PlacingOnHold placingOnHold(FindAvailableBook findAvailableBook, Patrons patronRepository) {
-        return new PlacingOnHold(findAvailableBook, patronRepository);
+    PlacingOnHold placingOnHold(FindAvailableBook findAvailableBook,
+                                Patrons patronRepository,
+                                PlatformTransactionManager transactionManager) {
+        return inTransaction(new PlacingOnHold(findAvailableBook, patronRepository), new TransactionTemplate(transactionManager));
+    }
+
+    @Bean
+    RegisteringPatrons registeringPatrons(Patrons patronRepository,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${patrons.registration.chunk-size:1000}") int chunkSize) {
+        return new RegisteringPatrons(patronRepository, chunkSize, meterRegistry);
     }
 
     @Bean
+    @Profile("!event-sourced-patrons")
     Patrons patronRepository(PatronEntityRepository patronEntityRepository,
-                             DomainEvents domainEvents) {
+                             DomainEvents domainEvents,
+                             JdbcTemplate jdbcTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${patrons.cache.max-weight:100000}") long cacheMaxWeight) {
         return new PatronsDatabaseRepository(
                 patronEntityRepository,
                 new DomainModelMapper(new PatronFactory()),
-                domainEvents);
+                domainEvents,
+                new PatronChildRows(jdbcTemplate),
+                new PatronEntityCache(jdbcTemplate, meterRegistry, cacheMaxWeight),
+                new PatronEntityLoader(jdbcTemplate),
+                new NewPatronRows(jdbcTemplate),
+                new LoadedPatron());
+    }
+
+    @Bean
+    @Profile("event-sourced-patrons")
+    Patrons eventSourcedPatronRepository(JdbcTemplate jdbcTemplate,
+                                         java.util.List<EventCodecs> codecs,
+                                         DomainEvents domainEvents,
+                                         @Value("${patrons.event-sourcing.snapshot-every:50}") int snapshotEvery) {
+        return new EventSourcedPatrons(
+                jdbcTemplate,
+                new BinaryDomainEventSerializer(List.ofAll(codecs)),
+                new DomainModelMapper(new PatronFactory()),
+                domainEvents,
+                snapshotEvery,
+                new LoadedPatron());
+    }
+
+    @Bean
+    EventCodecs patronEventCodecs() {
+        return new PatronEventCodecs();
     }
 }
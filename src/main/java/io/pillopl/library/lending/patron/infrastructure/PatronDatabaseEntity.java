@@ -25,6 +25,7 @@ class PatronDatabaseEntity {
     Long id;
     UUID patronId;
     PatronType patronType;
+    long version;
     Set<HoldDatabaseEntity> booksOnHold;
     Set<OverdueCheckoutDatabaseEntity> checkouts;
 
@@ -35,6 +36,34 @@ class PatronDatabaseEntity {
         this.checkouts = new HashSet<>();
     }
 
+    PatronDatabaseEntity copy() {
+        PatronDatabaseEntity copy = new PatronDatabaseEntity();
+        copy.id = id;
+        copy.patronId = patronId;
+        copy.patronType = patronType;
+        copy.version = version;
+        copy.booksOnHold = new HashSet<>(booksOnHold);
+        copy.checkouts = new HashSet<>(checkouts);
+        return copy;
+    }
+
+    long weight() {
+        return 1 + booksOnHold.size() + checkouts.size();
+    }
+
+    /**
+     * @return true if the event is one of the events handled by {@link #handle(PatronEvent)}
+     */
+    static boolean changesState(PatronEvent event) {
+        return event instanceof BookPlacedOnHoldEvents
+                || event instanceof BookPlacedOnHold
+                || event instanceof BookCheckedOut
+                || event instanceof BookHoldCanceled
+                || event instanceof BookHoldExpired
+                || event instanceof OverdueCheckoutRegistered
+                || event instanceof BookReturned;
+    }
+
     PatronDatabaseEntity handle(PatronEvent event) {
         return API.Match(event).of(
                 Case($(instanceOf(BookPlacedOnHoldEvents.class)), this::handle),
@@ -0,0 +1,137 @@
+package io.pillopl.library.lending.patron.infrastructure;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of {@link PatronDatabaseEntity} snapshots, keyed by patron id.
+ * <p>
+ * Every cached snapshot carries the version of the patron row it was read at. A hit is served only if the row
+ * still has that version, which costs a single-row lookup instead of loading the patron with all of its holds
+ * and overdue checkouts. Snapshots are put into the cache only once the transaction they were read or written in
+ * commits, so the cache never holds changes that could still be rolled back.
+ * <p>
+ * The cache is bounded by weight, one unit per row of a snapshot, and evicts least recently used snapshots first.
+ * Hits, misses and evictions are recorded as metrics.
+ */
+class PatronEntityCache {
+
+    private static final String FIND_VERSION = "SELECT p.version FROM patron_database_entity p WHERE p.patron_id = ?";
+    private static final String PATRON_CACHE = "patron_cache";
+    private static final String PATRON_CACHE_WEIGHT = "patron_cache_weight";
+    private static final String TAG_RESULT = "result";
+    private static final String TAG_CAUSE = "cause";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long maxWeight;
+    private final Map<UUID, PatronDatabaseEntity> snapshots = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictedForSize;
+    private final Counter evictedAsStale;
+
+    PatronEntityCache(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry, long maxWeight) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxWeight = maxWeight;
+        this.hits = meterRegistry.counter(PATRON_CACHE, TAG_RESULT, "hit");
+        this.misses = meterRegistry.counter(PATRON_CACHE, TAG_RESULT, "miss");
+        this.evictedForSize = meterRegistry.counter(PATRON_CACHE + "_evictions", TAG_CAUSE, "size");
+        this.evictedAsStale = meterRegistry.counter(PATRON_CACHE + "_evictions", TAG_CAUSE, "stale");
+        Gauge.builder(PATRON_CACHE_WEIGHT, this, PatronEntityCache::weight).register(meterRegistry);
+    }
+
+    /**
+     * Returns a copy of the cached snapshot of the patron if it is up to date, loads the patron otherwise.
+     *
+     * @param patronId the patron to find
+     * @param loader   loads the patron from the database, returning null if there is no such patron
+     * @return the patron entity, to be changed freely by the caller, or null if there is no such patron
+     */
+    PatronDatabaseEntity get(UUID patronId, Function<UUID, PatronDatabaseEntity> loader) {
+        PatronDatabaseEntity cached = cached(patronId);
+        if (cached != null) {
+            List<Long> versions = jdbcTemplate.queryForList(FIND_VERSION, Long.class, patronId);
+            if (versions.size() == 1 && versions.get(0) == cached.version) {
+                hits.increment();
+                return cached.copy();
+            }
+            evictStale(patronId, cached);
+        }
+        misses.increment();
+        PatronDatabaseEntity loaded = loader.apply(patronId);
+        if (loaded != null) {
+            putAfterCommit(loaded.copy());
+        }
+        return loaded;
+    }
+
+    /**
+     * Caches the snapshot of a patron that was just written, once the write is committed.
+     * Until then, the patron is not served from the cache.
+     *
+     * @param written the written patron entity, not to be changed by the caller anymore
+     */
+    void written(PatronDatabaseEntity written) {
+        evict(written.patronId);
+        putAfterCommit(written.copy());
+    }
+
+    private void putAfterCommit(PatronDatabaseEntity snapshot) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(snapshot);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                put(snapshot);
+            }
+        });
+    }
+
+    private synchronized PatronDatabaseEntity cached(UUID patronId) {
+        return snapshots.get(patronId);
+    }
+
+    private synchronized void put(PatronDatabaseEntity snapshot) {
+        PatronDatabaseEntity previous = snapshots.put(snapshot.patronId, snapshot);
+        weight += snapshot.weight() - (previous == null ? 0 : previous.weight());
+        Iterator<PatronDatabaseEntity> leastRecentlyUsed = snapshots.values().iterator();
+        while (weight > maxWeight && leastRecentlyUsed.hasNext()) {
+            PatronDatabaseEntity evicted = leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+            weight -= evicted.weight();
+            evictedForSize.increment();
+        }
+    }
+
+    private synchronized void evictStale(UUID patronId, PatronDatabaseEntity stale) {
+        if (snapshots.remove(patronId, stale)) {
+            weight -= stale.weight();
+            evictedAsStale.increment();
+        }
+    }
+
+    private synchronized void evict(UUID patronId) {
+        PatronDatabaseEntity evicted = snapshots.remove(patronId);
+        if (evicted != null) {
+            weight -= evicted.weight();
+        }
+    }
+
+    private synchronized long weight() {
+        return weight;
+    }
+}
@@ -0,0 +1,203 @@
+package io.pillopl.library.lending.patron.infrastructure;
+
+import io.pillopl.library.catalogue.BookType;
+import io.pillopl.library.commons.events.publisher.EventCodec;
+import io.pillopl.library.commons.events.publisher.EventCodecs;
+import io.pillopl.library.lending.patron.model.PatronEvent.BookCheckedOut;
+import io.pillopl.library.lending.patron.model.PatronEvent.BookCheckingOutFailed;
+import io.pillopl.library.lending.patron.model.PatronEvent.BookHoldCanceled;
+import io.pillopl.library.lending.patron.model.PatronEvent.BookHoldCancelingFailed;
+import io.pillopl.library.lending.patron.model.PatronEvent.BookHoldExpired;
+import io.pillopl.library.lending.patron.model.PatronEvent.BookHoldFailed;
+import io.pillopl.library.lending.patron.model.PatronEvent.BookPlacedOnHold;
+import io.pillopl.library.lending.patron.model.PatronEvent.BookPlacedOnHoldEvents;
+import io.pillopl.library.lending.patron.model.PatronEvent.BookReturned;
+import io.pillopl.library.lending.patron.model.PatronEvent.MaximumNumberOhHoldsReached;
+import io.pillopl.library.lending.patron.model.PatronEvent.OverdueCheckoutRegistered;
+import io.pillopl.library.lending.patron.model.PatronEvent.PatronCreated;
+import io.pillopl.library.lending.patron.model.PatronType;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.UUID;
+
+import static io.pillopl.library.commons.events.publisher.BinaryFields.getEnum;
+import static io.pillopl.library.commons.events.publisher.BinaryFields.getInstant;
+import static io.pillopl.library.commons.events.publisher.BinaryFields.getNullableInstant;
+import static io.pillopl.library.commons.events.publisher.BinaryFields.getString;
+import static io.pillopl.library.commons.events.publisher.BinaryFields.getUuid;
+import static io.pillopl.library.commons.events.publisher.BinaryFields.putEnum;
+import static io.pillopl.library.commons.events.publisher.BinaryFields.putInstant;
+import static io.pillopl.library.commons.events.publisher.BinaryFields.putNullableInstant;
+import static io.pillopl.library.commons.events.publisher.BinaryFields.putString;
+import static io.pillopl.library.commons.events.publisher.BinaryFields.putUuid;
+
+class PatronEventCodecs implements EventCodecs {
+
+    private static final PatronType[] PATRON_TYPES = PatronType.values();
+    private static final BookType[] BOOK_TYPES = BookType.values();
+
+    @Override
+    public List<EventCodec<?>> codecs() {
+        return List.of(
+                EventCodec.of(PatronCreated.class, 1, PatronEventCodecs::write, PatronEventCodecs::readPatronCreated),
+                EventCodec.of(BookPlacedOnHold.class, 2, PatronEventCodecs::write, PatronEventCodecs::readBookPlacedOnHold),
+                EventCodec.of(BookPlacedOnHoldEvents.class, 3, PatronEventCodecs::write, PatronEventCodecs::readBookPlacedOnHoldEvents),
+                EventCodec.of(MaximumNumberOhHoldsReached.class, 4, PatronEventCodecs::write, PatronEventCodecs::readMaximumNumberOhHoldsReached),
+                EventCodec.of(BookCheckedOut.class, 5, PatronEventCodecs::write, PatronEventCodecs::readBookCheckedOut),
+                EventCodec.of(BookReturned.class, 6, PatronEventCodecs::write, PatronEventCodecs::readBookReturned),
+                EventCodec.of(BookHoldFailed.class, 7, PatronEventCodecs::write, PatronEventCodecs::readBookHoldFailed),
+                EventCodec.of(BookCheckingOutFailed.class, 8, PatronEventCodecs::write, PatronEventCodecs::readBookCheckingOutFailed),
+                EventCodec.of(BookHoldCanceled.class, 9, PatronEventCodecs::write, PatronEventCodecs::readBookHoldCanceled),
+                EventCodec.of(BookHoldCancelingFailed.class, 10, PatronEventCodecs::write, PatronEventCodecs::readBookHoldCancelingFailed),
+                EventCodec.of(BookHoldExpired.class, 11, PatronEventCodecs::write, PatronEventCodecs::readBookHoldExpired),
+                EventCodec.of(OverdueCheckoutRegistered.class, 12, PatronEventCodecs::write, PatronEventCodecs::readOverdueCheckoutRegistered));
+    }
+
+    private static void write(PatronCreated event, ByteBuffer out) {
+        putUuid(out, event.getEventId());
+        putInstant(out, event.getWhen());
+        putUuid(out, event.getPatronId());
+        putEnum(out, event.getPatronType());
+    }
+
+    private static PatronCreated readPatronCreated(ByteBuffer in) {
+        return new PatronCreated(getUuid(in), getInstant(in), getUuid(in), getEnum(in, PATRON_TYPES));
+    }
+
+    private static void write(BookPlacedOnHold event, ByteBuffer out) {
+        putUuid(out, event.getEventId());
+        putInstant(out, event.getWhen());
+        putUuid(out, event.getPatronId());
+        putUuid(out, event.getBookId());
+        putEnum(out, event.getBookType());
+        putUuid(out, event.getLibraryBranchId());
+        putInstant(out, event.getHoldFrom());
+        putNullableInstant(out, event.getHoldTill());
+    }
+
+    private static BookPlacedOnHold readBookPlacedOnHold(ByteBuffer in) {
+        return new BookPlacedOnHold(getUuid(in), getInstant(in), getUuid(in), getUuid(in), getEnum(in, BOOK_TYPES),
+                getUuid(in), getInstant(in), getNullableInstant(in));
+    }
+
+    private static void write(BookPlacedOnHoldEvents event, ByteBuffer out) {
+        putUuid(out, event.getEventId());
+        putUuid(out, event.getPatronId());
+        write(event.getBookPlacedOnHold(), out);
+        out.put((byte) (event.getMaximumNumberOhHoldsReached().isDefined() ? 1 : 0));
+        event.getMaximumNumberOhHoldsReached().forEach(reached -> write(reached, out));
+    }
+
+    private static BookPlacedOnHoldEvents readBookPlacedOnHoldEvents(ByteBuffer in) {
+        return new BookPlacedOnHoldEvents(getUuid(in), getUuid(in), readBookPlacedOnHold(in),
+                in.get() == 0 ? Option.none() : Option.of(readMaximumNumberOhHoldsReached(in)));
+    }
+
+    private static void write(MaximumNumberOhHoldsReached event, ByteBuffer out) {
+        putUuid(out, event.getEventId());
+        putInstant(out, event.getWhen());
+        putUuid(out, event.getPatronId());
+        out.putInt(event.getNumberOfHolds());
+    }
+
+    private static MaximumNumberOhHoldsReached readMaximumNumberOhHoldsReached(ByteBuffer in) {
+        return new MaximumNumberOhHoldsReached(getUuid(in), getInstant(in), getUuid(in), in.getInt());
+    }
+
+    private static void write(BookCheckedOut event, ByteBuffer out) {
+        putUuid(out, event.getEventId());
+        putInstant(out, event.getWhen());
+        putUuid(out, event.getPatronId());
+        putUuid(out, event.getBookId());
+        putEnum(out, event.getBookType());
+        putUuid(out, event.getLibraryBranchId());
+        putInstant(out, event.getTill());
+    }
+
+    private static BookCheckedOut readBookCheckedOut(ByteBuffer in) {
+        return new BookCheckedOut(getUuid(in), getInstant(in), getUuid(in), getUuid(in), getEnum(in, BOOK_TYPES),
+                getUuid(in), getInstant(in));
+    }
+
+    private static void write(BookReturned event, ByteBuffer out) {
+        putUuid(out, event.getEventId());
+        putInstant(out, event.getWhen());
+        putUuid(out, event.getPatronId());
+        putUuid(out, event.getBookId());
+        putEnum(out, event.getBookType());
+        putUuid(out, event.getLibraryBranchId());
+    }
+
+    private static BookReturned readBookReturned(ByteBuffer in) {
+        return new BookReturned(getUuid(in), getInstant(in), getUuid(in), getUuid(in), getEnum(in, BOOK_TYPES), getUuid(in));
+    }
+
+    private static void write(BookHoldFailed event, ByteBuffer out) {
+        putUuid(out, event.getEventId());
+        putString(out, event.getReason());
+        putInstant(out, event.getWhen());
+        putUuid(out, event.getPatronId());
+        putUuid(out, event.getBookId());
+        putUuid(out, event.getLibraryBranchId());
+    }
+
+    private static BookHoldFailed readBookHoldFailed(ByteBuffer in) {
+        return new BookHoldFailed(getUuid(in), getString(in), getInstant(in), getUuid(in), getUuid(in), getUuid(in));
+    }
+
+    private static void write(BookCheckingOutFailed event, ByteBuffer out) {
+        putUuid(out, event.getEventId());
+        putString(out, event.getReason());
+        putInstant(out, event.getWhen());
+        putUuid(out, event.getPatronId());
+        putUuid(out, event.getBookId());
+        putUuid(out, event.getLibraryBranchId());
+    }
+
+    private static BookCheckingOutFailed readBookCheckingOutFailed(ByteBuffer in) {
+        return new BookCheckingOutFailed(getUuid(in), getString(in), getInstant(in), getUuid(in), getUuid(in), getUuid(in));
+    }
+
+    private static void write(BookHoldCanceled event, ByteBuffer out) {
+        writeBookEvent(out, event.getEventId(), event.getWhen(), event.getPatronId(), event.getBookId(), event.getLibraryBranchId());
+    }
+
+    private static BookHoldCanceled readBookHoldCanceled(ByteBuffer in) {
+        return new BookHoldCanceled(getUuid(in), getInstant(in), getUuid(in), getUuid(in), getUuid(in));
+    }
+
+    private static void write(BookHoldCancelingFailed event, ByteBuffer out) {
+        writeBookEvent(out, event.getEventId(), event.getWhen(), event.getPatronId(), event.getBookId(), event.getLibraryBranchId());
+    }
+
+    private static BookHoldCancelingFailed readBookHoldCancelingFailed(ByteBuffer in) {
+        return new BookHoldCancelingFailed(getUuid(in), getInstant(in), getUuid(in), getUuid(in), getUuid(in));
+    }
+
+    private static void write(BookHoldExpired event, ByteBuffer out) {
+        writeBookEvent(out, event.getEventId(), event.getWhen(), event.getPatronId(), event.getBookId(), event.getLibraryBranchId());
+    }
+
+    private static BookHoldExpired readBookHoldExpired(ByteBuffer in) {
+        return new BookHoldExpired(getUuid(in), getInstant(in), getUuid(in), getUuid(in), getUuid(in));
+    }
+
+    private static void write(OverdueCheckoutRegistered event, ByteBuffer out) {
+        writeBookEvent(out, event.getEventId(), event.getWhen(), event.getPatronId(), event.getBookId(), event.getLibraryBranchId());
+    }
+
+    private static OverdueCheckoutRegistered readOverdueCheckoutRegistered(ByteBuffer in) {
+        return new OverdueCheckoutRegistered(getUuid(in), getInstant(in), getUuid(in), getUuid(in), getUuid(in));
+    }
+
+    private static void writeBookEvent(ByteBuffer out, UUID eventId, Instant when, UUID patronId, UUID bookId, UUID libraryBranchId) {
+        putUuid(out, eventId);
+        putInstant(out, when);
+        putUuid(out, patronId);
+        putUuid(out, bookId);
+        putUuid(out, libraryBranchId);
+    }
+}
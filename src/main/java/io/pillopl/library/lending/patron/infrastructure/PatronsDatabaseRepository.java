@@ -7,55 +7,100 @@ import io.pillopl.library.lending.patron.model.*;
 import io.pillopl.library.lending.patron.model.PatronEvent.PatronCreated;
 import io.vavr.Tuple;
 import io.vavr.Tuple2;
+import io.vavr.collection.List;
 import io.vavr.control.Option;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.jdbc.repository.query.Modifying;
 import org.springframework.data.jdbc.repository.query.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
 
 import static io.vavr.API.*;
 import static io.vavr.Predicates.instanceOf;
-import static java.util.stream.Collectors.*;
 
+/**
+ * Patrons stored in the patron tables, with a unit of work per command.
+ * <p>
+ * The patron found in a transaction is kept until the next event is published in it. If that event belongs to the
+ * same patron, it is applied to the kept entity instead of loading the patron again, and only the delta is written.
+ * A patron found outside of a transaction is not kept, its event is applied to the patron read through the cache.
+ * Every write increments the version of the patron row, on the condition that it is still the version the patron
+ * was loaded at, so a command decided on a patron that has changed since fails instead of overwriting the change.
+ */
 @AllArgsConstructor(access = AccessLevel.PACKAGE)
 class PatronsDatabaseRepository implements Patrons {
 
     private final PatronEntityRepository patronEntityRepository;
     private final DomainModelMapper domainModelMapper;
     private final DomainEvents domainEvents;
+    private final PatronChildRows patronChildRows;
+    private final PatronEntityCache patronEntityCache;
+    private final PatronEntityLoader patronEntityLoader;
+    private final NewPatronRows newPatronRows;
+    private final LoadedPatron loadedPatron;
 
     @Override
     public Option<Patron> findBy(PatronId patronId) {
-        return Option.of(patronEntityRepository
-                .findByPatronId(patronId.getPatronId()))
-                .map(domainModelMapper::map);
+        PatronDatabaseEntity entity = patronEntityCache.get(patronId.getPatronId(), patronEntityLoader::load);
+        loadedPatron.keep(entity == null ? null : entity.copy());
+        if (entity == null) {
+            return Option.none();
+        }
+        return Option.of(domainModelMapper.map(entity));
     }
 
     @Override
+    @Transactional
     public Patron publish(PatronEvent domainEvent) {
-        Patron result = Match(domainEvent).of(
-                Case($(instanceOf(PatronCreated.class)), this::createNewPatron),
-                Case($(), this::handleNextEvent));
+        PatronDatabaseEntity loaded = loadedPatron.takeFor(domainEvent);
+        Patron result = loaded == null ? store(domainEvent) : handleNextEvent(loaded, domainEvent);
         domainEvents.publish(domainEvent.normalize());
         return result;
     }
 
+    @Override
+    @Transactional
+    public void publish(List<? extends PatronEvent> events) {
+        loadedPatron.forget();
+        newPatronRows.insert(events.filter(PatronCreated.class::isInstance).map(PatronCreated.class::cast));
+        events.reject(PatronCreated.class::isInstance).forEach(this::handleNextEvent);
+        domainEvents.publish(events.flatMap(PatronEvent::normalize));
+    }
+
+    private Patron store(PatronEvent domainEvent) {
+        return Match(domainEvent).of(
+                Case($(instanceOf(PatronCreated.class)), this::createNewPatron),
+                Case($(), this::handleNextEvent));
+    }
+
     private Patron createNewPatron(PatronCreated domainEvent) {
         PatronDatabaseEntity entity = patronEntityRepository
                 .save(new PatronDatabaseEntity(domainEvent.patronId(), domainEvent.getPatronType()));
+        patronEntityCache.written(entity);
         return domainModelMapper.map(entity);
     }
 
     private Patron handleNextEvent(PatronEvent domainEvent) {
-        PatronDatabaseEntity entity = patronEntityRepository.findByPatronId(domainEvent.patronId().getPatronId());
+        return handleNextEvent(patronEntityCache.get(domainEvent.patronId().getPatronId(), patronEntityLoader::load), domainEvent);
+    }
+
+    private Patron handleNextEvent(PatronDatabaseEntity entity, PatronEvent domainEvent) {
         entity = entity.handle(domainEvent);
-        entity = patronEntityRepository.save(entity);
+        if (patronEntityRepository.incrementVersion(entity.id, entity.version) == 0) {
+            throw new OptimisticLockingFailureException("Patron " + entity.patronId + " has changed since it was loaded");
+        }
+        entity.version++;
+        patronChildRows.write(entity, domainEvent);
+        patronEntityCache.written(entity);
         return domainModelMapper.map(entity);
     }
 
@@ -63,8 +108,9 @@ class PatronsDatabaseRepository implements Patrons {
 
 interface PatronEntityRepository extends CrudRepository<PatronDatabaseEntity, Long> {
 
-    @Query("SELECT p.* FROM patron_database_entity p where p.patron_id = :patronId")
-    PatronDatabaseEntity findByPatronId(@Param("patronId") UUID patronId);
+    @Modifying
+    @Query("UPDATE patron_database_entity SET version = version + 1 WHERE id = :id AND version = :version")
+    int incrementVersion(@Param("id") Long id, @Param("version") long version);
 
 }
 
@@ -83,27 +129,21 @@ class DomainModelMapper {
     }
 
     Map<LibraryBranchId, Set<BookId>> mapPatronOverdueCheckouts(PatronDatabaseEntity patronDatabaseEntity) {
-        return
-                patronDatabaseEntity
-                        .checkouts
-                        .stream()
-                        .collect(groupingBy(OverdueCheckoutDatabaseEntity::getLibraryBranchId, toSet()))
-                        .entrySet()
-                        .stream()
-                        .collect(toMap(
-                                (Entry<UUID, Set<OverdueCheckoutDatabaseEntity>> entry) -> new LibraryBranchId(entry.getKey()), entry -> entry
-                                        .getValue()
-                                        .stream()
-                                        .map(entity -> (new BookId(entity.bookId)))
-                                        .collect(toSet())));
+        Map<LibraryBranchId, Set<BookId>> overdueCheckouts = new HashMap<>();
+        for (OverdueCheckoutDatabaseEntity checkout : patronDatabaseEntity.checkouts) {
+            overdueCheckouts
+                    .computeIfAbsent(new LibraryBranchId(checkout.libraryBranchId), branch -> new HashSet<>())
+                    .add(new BookId(checkout.bookId));
+        }
+        return overdueCheckouts;
     }
 
     Set<Tuple2<BookId, LibraryBranchId>> mapPatronHolds(PatronDatabaseEntity patronDatabaseEntity) {
-        return patronDatabaseEntity
-                .booksOnHold
-                .stream()
-                .map(entity -> Tuple.of((new BookId(entity.bookId)), new LibraryBranchId(entity.libraryBranchId)))
-                .collect(toSet());
+        Set<Tuple2<BookId, LibraryBranchId>> holds = new HashSet<>(patronDatabaseEntity.booksOnHold.size() * 2);
+        for (HoldDatabaseEntity hold : patronDatabaseEntity.booksOnHold) {
+            holds.add(Tuple.of(new BookId(hold.bookId), new LibraryBranchId(hold.libraryBranchId)));
+        }
+        return holds;
     }
 
 }
@@ -8,20 +8,32 @@ import lombok.Value;
 import java.util.Map;
 import java.util.Set;
 
-import static java.util.Collections.emptySet;
-
 @Value
 class OverdueCheckouts {
 
     static int MAX_COUNT_OF_OVERDUE_RESOURCES = 2;
 
-    @NonNull Map<LibraryBranchId, Set<BookId>> overdueCheckouts;
+    /**
+     * Pairs of library branch id and book id of the overdue checkouts.
+     */
+    @NonNull UuidPairSet overdueCheckouts;
+
+    OverdueCheckouts(@NonNull Map<LibraryBranchId, Set<BookId>> overdueCheckouts) {
+        int size = 0;
+        for (Set<BookId> books : overdueCheckouts.values()) {
+            size += books.size();
+        }
+        this.overdueCheckouts = new UuidPairSet(size);
+        overdueCheckouts.forEach((libraryBranchId, books) ->
+                books.forEach(bookId -> this.overdueCheckouts.add(libraryBranchId.getLibraryBranchId(), bookId.getBookId())));
+    }
+
+    OverdueCheckouts(@NonNull UuidPairSet overdueCheckouts) {
+        this.overdueCheckouts = overdueCheckouts;
+    }
 
     int countAt(@NonNull LibraryBranchId libraryBranchId) {
-        return overdueCheckouts.getOrDefault(libraryBranchId, emptySet()).size();
+        return overdueCheckouts.countWithFirst(libraryBranchId.getLibraryBranchId());
     }
 
 }
-
-
-
@@ -6,6 +6,7 @@ import io.pillopl.library.catalogue.BookType;
 import io.pillopl.library.lending.librarybranch.model.LibraryBranchId;
 import io.vavr.collection.List;
 import io.vavr.control.Option;
+import lombok.AllArgsConstructor;
 import lombok.NonNull;
 import lombok.Value;
 
@@ -29,20 +30,26 @@ public interface PatronEvent extends DomainEvent {
     }
 
     @Value
+    @AllArgsConstructor
     class PatronCreated implements PatronEvent {
-        @NonNull UUID eventId = UUID.randomUUID();
+        @NonNull UUID eventId;
         @NonNull Instant when;
         @NonNull UUID patronId;
         @NonNull PatronType patronType;
 
+        public PatronCreated(Instant when, UUID patronId, PatronType patronType) {
+            this(UUID.randomUUID(), when, patronId, patronType);
+        }
+
         public static PatronCreated now(PatronId patronId, PatronType type) {
             return new PatronCreated(Instant.now(), patronId.getPatronId(), type);
         }
     }
 
     @Value
+    @AllArgsConstructor
     class BookPlacedOnHold implements PatronEvent {
-        @NonNull UUID eventId = UUID.randomUUID();
+        @NonNull UUID eventId;
         @NonNull Instant when;
         @NonNull UUID patronId;
         @NonNull UUID bookId;
@@ -51,6 +58,10 @@ public interface PatronEvent extends DomainEvent {
         @NonNull Instant holdFrom;
         Instant holdTill;
 
+        public BookPlacedOnHold(Instant when, UUID patronId, UUID bookId, BookType bookType, UUID libraryBranchId, Instant holdFrom, Instant holdTill) {
+            this(UUID.randomUUID(), when, patronId, bookId, bookType, libraryBranchId, holdFrom, holdTill);
+        }
+
         public static BookPlacedOnHold bookPlacedOnHoldNow(BookId bookId, BookType bookType, LibraryBranchId libraryBranchId, PatronId patronId, HoldDuration holdDuration) {
             return new BookPlacedOnHold(
                     Instant.now(),
@@ -64,12 +75,17 @@ public interface PatronEvent extends DomainEvent {
     }
 
     @Value
+    @AllArgsConstructor
     class BookPlacedOnHoldEvents implements PatronEvent {
-        @NonNull UUID eventId = UUID.randomUUID();
+        @NonNull UUID eventId;
         @NonNull UUID patronId;
         @NonNull BookPlacedOnHold bookPlacedOnHold;
         @NonNull Option<MaximumNumberOhHoldsReached> maximumNumberOhHoldsReached;
 
+        public BookPlacedOnHoldEvents(UUID patronId, BookPlacedOnHold bookPlacedOnHold, Option<MaximumNumberOhHoldsReached> maximumNumberOhHoldsReached) {
+            this(UUID.randomUUID(), patronId, bookPlacedOnHold, maximumNumberOhHoldsReached);
+        }
+
         @Override
         public Instant getWhen() {
             return bookPlacedOnHold.when;
@@ -89,12 +105,17 @@ public interface PatronEvent extends DomainEvent {
     }
 
     @Value
+    @AllArgsConstructor
     class MaximumNumberOhHoldsReached implements PatronEvent {
-        @NonNull UUID eventId = UUID.randomUUID();
+        @NonNull UUID eventId;
         @NonNull Instant when;
         @NonNull UUID patronId;
         int numberOfHolds;
 
+        public MaximumNumberOhHoldsReached(Instant when, UUID patronId, int numberOfHolds) {
+            this(UUID.randomUUID(), when, patronId, numberOfHolds);
+        }
+
         public static MaximumNumberOhHoldsReached now(PatronInformation patronInformation, int numberOfHolds) {
             return new MaximumNumberOhHoldsReached(
                     Instant.now(),
@@ -104,8 +125,9 @@ public interface PatronEvent extends DomainEvent {
     }
 
     @Value
+    @AllArgsConstructor
     class BookCheckedOut implements PatronEvent {
-        @NonNull UUID eventId = UUID.randomUUID();
+        @NonNull UUID eventId;
         @NonNull Instant when;
         @NonNull UUID patronId;
         @NonNull UUID bookId;
@@ -113,6 +135,10 @@ public interface PatronEvent extends DomainEvent {
         @NonNull UUID libraryBranchId;
         @NonNull Instant till;
 
+        public BookCheckedOut(Instant when, UUID patronId, UUID bookId, BookType bookType, UUID libraryBranchId, Instant till) {
+            this(UUID.randomUUID(), when, patronId, bookId, bookType, libraryBranchId, till);
+        }
+
         public static BookCheckedOut bookCheckedOutNow(BookId bookId, BookType bookType, LibraryBranchId libraryBranchId, PatronId patronId, CheckoutDuration checkoutDuration) {
             return new BookCheckedOut(
                     Instant.now(),
@@ -125,24 +151,34 @@ public interface PatronEvent extends DomainEvent {
     }
 
     @Value
+    @AllArgsConstructor
     class BookReturned implements PatronEvent {
-        @NonNull UUID eventId = UUID.randomUUID();
+        @NonNull UUID eventId;
         @NonNull Instant when;
         @NonNull UUID patronId;
         @NonNull UUID bookId;
         @NonNull BookType bookType;
         @NonNull UUID libraryBranchId;
+
+        public BookReturned(Instant when, UUID patronId, UUID bookId, BookType bookType, UUID libraryBranchId) {
+            this(UUID.randomUUID(), when, patronId, bookId, bookType, libraryBranchId);
+        }
     }
 
     @Value
+    @AllArgsConstructor
     class BookHoldFailed implements PatronEvent {
-        @NonNull UUID eventId = UUID.randomUUID();
+        @NonNull UUID eventId;
         @NonNull String reason;
         @NonNull Instant when;
         @NonNull UUID patronId;
         @NonNull UUID bookId;
         @NonNull UUID libraryBranchId;
 
+        public BookHoldFailed(String reason, Instant when, UUID patronId, UUID bookId, UUID libraryBranchId) {
+            this(UUID.randomUUID(), reason, when, patronId, bookId, libraryBranchId);
+        }
+
         static BookHoldFailed bookHoldFailedNow(Rejection rejection, BookId bookId, LibraryBranchId libraryBranchId, PatronInformation patronInformation) {
             return new BookHoldFailed(
                     rejection.getReason().getReason(),
@@ -154,14 +190,19 @@ public interface PatronEvent extends DomainEvent {
     }
 
     @Value
+    @AllArgsConstructor
     class BookCheckingOutFailed implements PatronEvent {
-        @NonNull UUID eventId = UUID.randomUUID();
+        @NonNull UUID eventId;
         @NonNull String reason;
         @NonNull Instant when;
         @NonNull UUID patronId;
         @NonNull UUID bookId;
         @NonNull UUID libraryBranchId;
 
+        public BookCheckingOutFailed(String reason, Instant when, UUID patronId, UUID bookId, UUID libraryBranchId) {
+            this(UUID.randomUUID(), reason, when, patronId, bookId, libraryBranchId);
+        }
+
         static BookCheckingOutFailed bookCheckingOutFailedNow(Rejection rejection, BookId bookId, LibraryBranchId libraryBranchId, PatronInformation patronInformation) {
             return new BookCheckingOutFailed(
                     rejection.getReason().getReason(),
@@ -173,13 +214,18 @@ public interface PatronEvent extends DomainEvent {
     }
 
     @Value
+    @AllArgsConstructor
     class BookHoldCanceled implements PatronEvent {
-        @NonNull UUID eventId = UUID.randomUUID();
+        @NonNull UUID eventId;
         @NonNull Instant when;
         @NonNull UUID patronId;
         @NonNull UUID bookId;
         @NonNull UUID libraryBranchId;
 
+        public BookHoldCanceled(Instant when, UUID patronId, UUID bookId, UUID libraryBranchId) {
+            this(UUID.randomUUID(), when, patronId, bookId, libraryBranchId);
+        }
+
         public static BookHoldCanceled holdCanceledNow(BookId bookId, LibraryBranchId libraryBranchId, PatronId patronId) {
             return new BookHoldCanceled(
                     Instant.now(),
@@ -190,13 +236,18 @@ public interface PatronEvent extends DomainEvent {
     }
 
     @Value
+    @AllArgsConstructor
     class BookHoldCancelingFailed implements PatronEvent {
-        @NonNull UUID eventId = UUID.randomUUID();
+        @NonNull UUID eventId;
         @NonNull Instant when;
         @NonNull UUID patronId;
         @NonNull UUID bookId;
         @NonNull UUID libraryBranchId;
 
+        public BookHoldCancelingFailed(Instant when, UUID patronId, UUID bookId, UUID libraryBranchId) {
+            this(UUID.randomUUID(), when, patronId, bookId, libraryBranchId);
+        }
+
         static BookHoldCancelingFailed holdCancelingFailedNow(BookId bookId, LibraryBranchId libraryBranchId, PatronId patronId) {
             return new BookHoldCancelingFailed(
                     Instant.now(),
@@ -207,13 +258,18 @@ public interface PatronEvent extends DomainEvent {
     }
 
     @Value
+    @AllArgsConstructor
     class BookHoldExpired implements PatronEvent {
-        @NonNull UUID eventId = UUID.randomUUID();
+        @NonNull UUID eventId;
         @NonNull Instant when;
         @NonNull UUID patronId;
         @NonNull UUID bookId;
         @NonNull UUID libraryBranchId;
 
+        public BookHoldExpired(Instant when, UUID patronId, UUID bookId, UUID libraryBranchId) {
+            this(UUID.randomUUID(), when, patronId, bookId, libraryBranchId);
+        }
+
         public static BookHoldExpired now(BookId bookId, PatronId patronId, LibraryBranchId libraryBranchId) {
             return new BookHoldExpired(
                     Instant.now(),
@@ -224,13 +280,18 @@ public interface PatronEvent extends DomainEvent {
     }
 
     @Value
+    @AllArgsConstructor
     class OverdueCheckoutRegistered implements PatronEvent {
-        @NonNull UUID eventId = UUID.randomUUID();
+        @NonNull UUID eventId;
         @NonNull Instant when;
         @NonNull UUID patronId;
         @NonNull UUID bookId;
         @NonNull UUID libraryBranchId;
 
+        public OverdueCheckoutRegistered(Instant when, UUID patronId, UUID bookId, UUID libraryBranchId) {
+            this(UUID.randomUUID(), when, patronId, bookId, libraryBranchId);
+        }
+
         public static OverdueCheckoutRegistered now(PatronId patronId, BookId bookId, LibraryBranchId libraryBranchId) {
             return new OverdueCheckoutRegistered(
                     Instant.now(),
@@ -12,11 +12,22 @@ class PatronHolds {
 
     static int MAX_NUMBER_OF_HOLDS = 5;
 
-    Set<Hold> resourcesOnHold;
+    /**
+     * Pairs of book id and library branch id of the holds.
+     */
+    UuidPairSet resourcesOnHold;
+
+    PatronHolds(Set<Hold> resourcesOnHold) {
+        this.resourcesOnHold = new UuidPairSet(resourcesOnHold.size());
+        resourcesOnHold.forEach(hold -> this.resourcesOnHold.add(hold.getBookId().getBookId(), hold.getLibraryBranchId().getLibraryBranchId()));
+    }
+
+    PatronHolds(UuidPairSet resourcesOnHold) {
+        this.resourcesOnHold = resourcesOnHold;
+    }
 
     boolean a(@NonNull BookOnHold bookOnHold) {
-        Hold hold = new Hold(bookOnHold.getBookId(), bookOnHold.getHoldPlacedAt());
-        return resourcesOnHold.contains(hold);
+        return resourcesOnHold.contains(bookOnHold.getBookId().getBookId(), bookOnHold.getHoldPlacedAt().getLibraryBranchId());
     }
 
     int count() {
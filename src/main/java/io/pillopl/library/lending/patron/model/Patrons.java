@@ -1,5 +1,6 @@
 package io.pillopl.library.lending.patron.model;
 
+import io.vavr.collection.List;
 import io.vavr.control.Option;
 
 /**
@@ -25,4 +26,16 @@ public interface Patrons {
      * @return the {@link Patron} aggregate affected by the event
      */
     Patron publish(PatronEvent event);
+
+    /**
+     * Publishes a batch of patron events at once, all or nothing.
+     * <p>
+     * Each event is persisted as by {@link #publish(PatronEvent)}, while the resulting domain events
+     * are published together, so that listeners can handle them in bulk.
+     *
+     * @param events the {@link PatronEvent}s to publish/handle
+     */
+    default void publish(List<? extends PatronEvent> events) {
+        events.forEach(this::publish);
+    }
 }
@@ -0,0 +1,157 @@
+package io.pillopl.library.lending.patron.model;
+
+import java.util.UUID;
+
+/**
+ * Set of pairs of UUIDs, stored as plain longs in a single open-addressing table with linear probing.
+ * <p>
+ * A pair takes four longs of the table, instead of two UUIDs, two value objects, a tuple and a hash map node.
+ * Pairs cannot be removed, since the sets are built once per loaded aggregate and are not changed afterwards.
+ */
+final class UuidPairSet {
+
+    private static final int LONGS_PER_PAIR = 4;
+
+    private long[] pairs;
+    private boolean[] occupied;
+    private int size;
+
+    UuidPairSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(2, expectedSize) * 2 - 1) << 1;
+        this.pairs = new long[capacity * LONGS_PER_PAIR];
+        this.occupied = new boolean[capacity];
+    }
+
+    /**
+     * @return true if the pair was not in the set before
+     */
+    boolean add(UUID first, UUID second) {
+        if ((size + 1) * 2 > occupied.length) {
+            grow();
+        }
+        return insert(first.getMostSignificantBits(), first.getLeastSignificantBits(),
+                second.getMostSignificantBits(), second.getLeastSignificantBits());
+    }
+
+    boolean contains(UUID first, UUID second) {
+        return indexOf(first.getMostSignificantBits(), first.getLeastSignificantBits(),
+                second.getMostSignificantBits(), second.getLeastSignificantBits()) >= 0;
+    }
+
+    /**
+     * @return the number of pairs whose first element is the given UUID
+     */
+    int countWithFirst(UUID first) {
+        long high = first.getMostSignificantBits();
+        long low = first.getLeastSignificantBits();
+        int count = 0;
+        for (int slot = 0; slot < occupied.length; slot++) {
+            int offset = slot * LONGS_PER_PAIR;
+            if (occupied[slot] && pairs[offset] == high && pairs[offset + 1] == low) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private boolean insert(long firstHigh, long firstLow, long secondHigh, long secondLow) {
+        int mask = occupied.length - 1;
+        int slot = hash(firstHigh, firstLow, secondHigh, secondLow) & mask;
+        while (occupied[slot]) {
+            if (isAt(slot, firstHigh, firstLow, secondHigh, secondLow)) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int offset = slot * LONGS_PER_PAIR;
+        pairs[offset] = firstHigh;
+        pairs[offset + 1] = firstLow;
+        pairs[offset + 2] = secondHigh;
+        pairs[offset + 3] = secondLow;
+        occupied[slot] = true;
+        size++;
+        return true;
+    }
+
+    private int indexOf(long firstHigh, long firstLow, long secondHigh, long secondLow) {
+        int mask = occupied.length - 1;
+        int slot = hash(firstHigh, firstLow, secondHigh, secondLow) & mask;
+        while (occupied[slot]) {
+            if (isAt(slot, firstHigh, firstLow, secondHigh, secondLow)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private boolean isAt(int slot, long firstHigh, long firstLow, long secondHigh, long secondLow) {
+        int offset = slot * LONGS_PER_PAIR;
+        return pairs[offset] == firstHigh && pairs[offset + 1] == firstLow
+                && pairs[offset + 2] == secondHigh && pairs[offset + 3] == secondLow;
+    }
+
+    private void grow() {
+        long[] oldPairs = pairs;
+        boolean[] oldOccupied = occupied;
+        pairs = new long[oldPairs.length * 2];
+        occupied = new boolean[oldOccupied.length * 2];
+        size = 0;
+        for (int slot = 0; slot < oldOccupied.length; slot++) {
+            if (oldOccupied[slot]) {
+                int offset = slot * LONGS_PER_PAIR;
+                insert(oldPairs[offset], oldPairs[offset + 1], oldPairs[offset + 2], oldPairs[offset + 3]);
+            }
+        }
+    }
+
+    private static int hash(long firstHigh, long firstLow, long secondHigh, long secondLow) {
+        long hash = firstHigh * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ firstLow) * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ secondHigh) * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ secondLow) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof UuidPairSet)) {
+            return false;
+        }
+        UuidPairSet that = (UuidPairSet) other;
+        if (size != that.size) {
+            return false;
+        }
+        for (int slot = 0; slot < occupied.length; slot++) {
+            int offset = slot * LONGS_PER_PAIR;
+            if (occupied[slot] && that.indexOf(pairs[offset], pairs[offset + 1], pairs[offset + 2], pairs[offset + 3]) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 0;
+        for (int slot = 0; slot < occupied.length; slot++) {
+            int offset = slot * LONGS_PER_PAIR;
+            if (occupied[slot]) {
+                hashCode += hash(pairs[offset], pairs[offset + 1], pairs[offset + 2], pairs[offset + 3]);
+            }
+        }
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "UuidPairSet(size=" + size + ")";
+    }
+}
@@ -1,9 +1,16 @@
 package io.pillopl.library.lending.patronprofile.infrastructure;
 
 import io.pillopl.library.lending.patronprofile.model.PatronProfiles;
+import io.pillopl.library.lending.patronprofile.model.ProfileChanges;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
 
 @Configuration
 public class PatronProfileConfiguration {
@@ -12,4 +19,12 @@ public class PatronProfileConfiguration {
     public PatronProfiles patronProfilesReadModel(JdbcTemplate jdbcTemplate) {
         return new PatronProfileReadModel(jdbcTemplate);
     }
+
+    @Bean
+    public ProfileChanges profileChangesReadModel(JdbcTemplate jdbcTemplate,
+                                                  PlatformTransactionManager transactionManager,
+                                                  @Value("${patron-profile.changes.retention-days:7}") long retentionDays) {
+        return new ProfileChangesReadModel(jdbcTemplate, new TransactionTemplate(transactionManager),
+                Duration.ofDays(retentionDays), Clock.systemUTC());
+    }
 }
@@ -0,0 +1,266 @@
+package io.pillopl.library.lending.patronprofile.infrastructure;
+
+import io.pillopl.library.catalogue.BookId;
+import io.pillopl.library.lending.patron.model.PatronEvent.BookCheckedOut;
+import io.pillopl.library.lending.patron.model.PatronEvent.BookHoldCanceled;
+import io.pillopl.library.lending.patron.model.PatronEvent.BookHoldExpired;
+import io.pillopl.library.lending.patron.model.PatronEvent.BookPlacedOnHold;
+import io.pillopl.library.lending.patron.model.PatronEvent.BookReturned;
+import io.pillopl.library.lending.patron.model.PatronId;
+import io.pillopl.library.lending.patronprofile.model.ProfileChange;
+import io.pillopl.library.lending.patronprofile.model.ProfileChange.Type;
+import io.pillopl.library.lending.patronprofile.model.ProfileChanges;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static io.pillopl.library.lending.patronprofile.model.ProfileChange.Type.CHECKED_OUT;
+import static io.pillopl.library.lending.patronprofile.model.ProfileChange.Type.HOLD_CANCELED;
+import static io.pillopl.library.lending.patronprofile.model.ProfileChange.Type.HOLD_EXPIRED;
+import static io.pillopl.library.lending.patronprofile.model.ProfileChange.Type.HOLD_PLACED;
+import static io.pillopl.library.lending.patronprofile.model.ProfileChange.Type.RETURNED;
+
+/**
+ * Appends the profile-relevant patron events to the {@code patron_profile_changes} table. Redelivered events are
+ * appended only once.
+ * <p>
+ * Changes are appended without a position. Positions are given afterwards, in one transaction at a time holding
+ * the row of {@code patron_profile_changes_sequence}, to the changes committed by then. A change committed later
+ * gets a position after every position given before, so a client never skips it by having seen a higher one.
+ * Changes of this node get positions once their transaction commits, changes left without one are picked up
+ * by a periodic run.
+ * <p>
+ * Changes recorded longer than the retention ago are deleted, together with the changes positioned before them.
+ * The position of the last deleted change is kept as the oldest cursor, so a client with an older one learns
+ * it has missed changes.
+ * <p>
+ * Subscribers of a patron are notified once the change has its position, on the thread giving positions.
+ * Changes appended by other nodes are notified only when this node gives them their positions.
+ */
+@Slf4j
+class ProfileChangesReadModel implements ProfileChanges, AutoCloseable {
+
+    private static final String APPEND = "INSERT INTO patron_profile_changes (event_id, patron_id, change_type, book_id, occurred_at) " +
+            "SELECT ?, ?, ?, ?, ? FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM patron_profile_changes WHERE event_id = ?)";
+    private static final String FIND_AFTER = "SELECT c.position, c.change_type, c.book_id, c.occurred_at FROM patron_profile_changes c " +
+            "WHERE c.patron_id = ? AND c.position > ? ORDER BY c.position LIMIT ?";
+    private static final String LOCK_SEQUENCE = "SELECT s.last_position FROM patron_profile_changes_sequence s WHERE s.id = 1 FOR UPDATE";
+    private static final String FIND_WITHOUT_POSITION = "SELECT c.id, c.patron_id FROM patron_profile_changes c " +
+            "WHERE c.position IS NULL ORDER BY c.id LIMIT ?";
+    private static final String GIVE_POSITION = "UPDATE patron_profile_changes SET position = ? WHERE id = ?";
+    private static final String UPDATE_SEQUENCE = "UPDATE patron_profile_changes_sequence SET last_position = ? WHERE id = 1";
+    private static final String FIND_LAST_RECORDED_BEFORE = "SELECT MAX(c.position) FROM patron_profile_changes c WHERE c.recorded_at < ?";
+    private static final String DELETE_UP_TO = "DELETE FROM patron_profile_changes WHERE position <= ?";
+    private static final String UPDATE_PURGED = "UPDATE patron_profile_changes_sequence SET purged_position = GREATEST(purged_position, ?) WHERE id = 1";
+    private static final String FIND_PURGED = "SELECT s.purged_position FROM patron_profile_changes_sequence s WHERE s.id = 1";
+    private static final String FIND_LAST = "SELECT s.last_position FROM patron_profile_changes_sequence s WHERE s.id = 1";
+
+    static final Duration DEFAULT_RETENTION = Duration.ofDays(7);
+    private static final int POSITIONS_PER_TRANSACTION = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionOperations transactions;
+    private final Duration retention;
+    private final Clock clock;
+    private final Map<UUID, Set<Runnable>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService notifications = Executors.newSingleThreadExecutor(daemonThreads());
+
+    ProfileChangesReadModel(JdbcTemplate jdbcTemplate, TransactionOperations transactions, Duration retention, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactions = transactions;
+        this.retention = retention;
+        this.clock = clock;
+    }
+
+    ProfileChangesReadModel(JdbcTemplate jdbcTemplate, TransactionOperations transactions) {
+        this(jdbcTemplate, transactions, DEFAULT_RETENTION, Clock.systemUTC());
+    }
+
+    private static CustomizableThreadFactory daemonThreads() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("profile-changes-");
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    @EventListener
+    public void handle(BookPlacedOnHold event) {
+        append(event.getEventId(), event.getPatronId(), HOLD_PLACED, event.getBookId(), event.getWhen());
+    }
+
+    @EventListener
+    public void handle(BookHoldCanceled event) {
+        append(event.getEventId(), event.getPatronId(), HOLD_CANCELED, event.getBookId(), event.getWhen());
+    }
+
+    @EventListener
+    public void handle(BookHoldExpired event) {
+        append(event.getEventId(), event.getPatronId(), HOLD_EXPIRED, event.getBookId(), event.getWhen());
+    }
+
+    @EventListener
+    public void handle(BookCheckedOut event) {
+        append(event.getEventId(), event.getPatronId(), CHECKED_OUT, event.getBookId(), event.getWhen());
+    }
+
+    @EventListener
+    public void handle(BookReturned event) {
+        append(event.getEventId(), event.getPatronId(), RETURNED, event.getBookId(), event.getWhen());
+    }
+
+    private void append(UUID eventId, UUID patronId, Type type, UUID bookId, Instant when) {
+        try {
+            if (jdbcTemplate.update(APPEND, eventId, patronId, type.name(), bookId, Timestamp.from(when), eventId) > 0) {
+                givePositionsAfterCommit();
+            }
+        } catch (DuplicateKeyException e) {
+            log.debug("Event {} has just been appended by a concurrent delivery", eventId);
+        }
+    }
+
+    private void givePositionsAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            givePositions();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                notifications.execute(ProfileChangesReadModel.this::givePositionsSafely);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${patron-profile.changes.position-interval-millis:1000}")
+    public void givePositionsSafely() {
+        try {
+            givePositions();
+        } catch (RuntimeException e) {
+            log.warn("Failed to give positions to profile changes", e);
+        }
+    }
+
+    /**
+     * Deletes the changes up to the last one recorded longer than the retention ago, and moves
+     * the {@link #oldestCursor() oldest cursor} past them.
+     */
+    @Scheduled(fixedDelayString = "${patron-profile.changes.purge-interval-millis:3600000}")
+    public void purgeOldChanges() {
+        Timestamp recordedBefore = Timestamp.from(Instant.now(clock).minus(retention));
+        transactions.execute(status -> {
+            Long purged = jdbcTemplate.queryForObject(FIND_LAST_RECORDED_BEFORE, Long.class, recordedBefore);
+            if (purged != null) {
+                jdbcTemplate.update(DELETE_UP_TO, purged);
+                jdbcTemplate.update(UPDATE_PURGED, purged);
+            }
+            return purged;
+        });
+    }
+
+    /**
+     * Gives the next positions to the committed changes without one, while holding the row of the sequence,
+     * and notifies the subscribers of their patrons.
+     */
+    void givePositions() {
+        java.util.List<UUID> positioned;
+        do {
+            positioned = transactions.execute(status -> givePositionsToNextChanges());
+            new LinkedHashSet<>(positioned).forEach(this::notifySubscribers);
+        } while (positioned.size() == POSITIONS_PER_TRANSACTION);
+    }
+
+    private java.util.List<UUID> givePositionsToNextChanges() {
+        long lastPosition = jdbcTemplate.queryForObject(LOCK_SEQUENCE, Long.class);
+        java.util.List<Tuple2<Long, UUID>> changes = jdbcTemplate.query(FIND_WITHOUT_POSITION,
+                new Object[]{POSITIONS_PER_TRANSACTION},
+                (rs, rowNum) -> Tuple.of(rs.getLong("id"), rs.getObject("patron_id", UUID.class)));
+        if (changes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        java.util.List<Object[]> positions = new ArrayList<>(changes.size());
+        for (Tuple2<Long, UUID> change : changes) {
+            positions.add(new Object[]{++lastPosition, change._1});
+        }
+        jdbcTemplate.batchUpdate(GIVE_POSITION, positions);
+        jdbcTemplate.update(UPDATE_SEQUENCE, lastPosition);
+        return changes.stream().map(Tuple2::_2).collect(Collectors.toList());
+    }
+
+    private void notifySubscribers(UUID patronId) {
+        Set<Runnable> callbacks = subscribers.get(patronId);
+        if (callbacks != null) {
+            callbacks.forEach(this::runSafely);
+        }
+    }
+
+    private void runSafely(Runnable callback) {
+        try {
+            callback.run();
+        } catch (RuntimeException e) {
+            log.warn("Failed to notify a subscriber of profile changes", e);
+        }
+    }
+
+    @Override
+    public List<ProfileChange> after(PatronId patronId, long cursor, int limit) {
+        return List.ofAll(jdbcTemplate.query(FIND_AFTER,
+                new Object[]{patronId.getPatronId(), cursor, limit},
+                (rs, rowNum) -> new ProfileChange(
+                        rs.getLong("position"),
+                        Type.valueOf(rs.getString("change_type")),
+                        new BookId(rs.getObject("book_id", UUID.class)),
+                        rs.getTimestamp("occurred_at").toInstant())));
+    }
+
+    @Override
+    public long oldestCursor() {
+        return jdbcTemplate.queryForObject(FIND_PURGED, Long.class);
+    }
+
+    @Override
+    public long latestCursor() {
+        return jdbcTemplate.queryForObject(FIND_LAST, Long.class);
+    }
+
+    @Override
+    public Subscription subscribe(PatronId patronId, Runnable onChange) {
+        UUID id = patronId.getPatronId();
+        subscribers.compute(id, (patron, callbacks) -> {
+            Set<Runnable> subscribed = callbacks == null ? ConcurrentHashMap.newKeySet() : callbacks;
+            subscribed.add(onChange);
+            return subscribed;
+        });
+        return () -> subscribers.computeIfPresent(id, (patron, callbacks) -> {
+            callbacks.remove(onChange);
+            return callbacks.isEmpty() ? null : callbacks;
+        });
+    }
+
+    @Override
+    public void close() {
+        notifications.shutdownNow();
+    }
+}
@@ -0,0 +1,23 @@
+package io.pillopl.library.lending.patronprofile.model;
+
+import io.pillopl.library.catalogue.BookId;
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+public class ProfileChange {
+
+    public enum Type {
+        HOLD_PLACED, HOLD_CANCELED, HOLD_EXPIRED, CHECKED_OUT, RETURNED
+    }
+
+    private final long position;
+
+    private final Type type;
+
+    private final BookId book;
+
+    private final Instant when;
+
+}
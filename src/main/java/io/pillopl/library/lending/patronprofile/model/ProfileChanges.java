@@ -0,0 +1,51 @@
+package io.pillopl.library.lending.patronprofile.model;
+
+import io.pillopl.library.lending.patron.model.PatronId;
+import io.vavr.collection.List;
+
+/**
+ * Feed of changes to the holds and checkouts of patron profiles.
+ * <p>
+ * Every change has a position, growing with time, which clients keep as a cursor
+ * to ask only for changes they have not seen yet.
+ */
+public interface ProfileChanges {
+
+    /**
+     * @param patronId the patron whose profile changed
+     * @param cursor   the position of the last change already seen, 0 for none
+     * @param limit    the maximum number of changes returned
+     * @return the changes after the cursor, oldest first
+     */
+    List<ProfileChange> after(PatronId patronId, long cursor, int limit);
+
+    /**
+     * Changes up to this position have been deleted. A client with an older cursor may have missed
+     * some of them, so it reloads the profile and continues from the {@link #latestCursor() latest cursor}.
+     *
+     * @return the oldest cursor all changes after which are still kept
+     */
+    long oldestCursor();
+
+    /**
+     * @return the position of the latest change, 0 for none
+     */
+    long latestCursor();
+
+    /**
+     * Registers a callback run whenever the profile of the patron changes.
+     * The callback runs on the thread giving positions to the changes, so it should only signal the change
+     * and leave reading it to a thread of its own.
+     *
+     * @param patronId the patron whose profile is watched
+     * @param onChange the callback
+     * @return the subscription, to be cancelled once changes are not watched anymore
+     */
+    Subscription subscribe(PatronId patronId, Runnable onChange);
+
+    @FunctionalInterface
+    interface Subscription {
+
+        void cancel();
+    }
+}
@@ -0,0 +1,209 @@
+package io.pillopl.library.lending.patronprofile.web;
+
+import io.pillopl.library.lending.patron.model.PatronId;
+import io.pillopl.library.lending.patronprofile.model.ProfileChange;
+import io.pillopl.library.lending.patronprofile.model.ProfileChanges;
+import io.pillopl.library.lending.patronprofile.model.ProfileChanges.Subscription;
+import io.vavr.collection.List;
+import lombok.Value;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+import static org.springframework.http.MediaType.TEXT_EVENT_STREAM_VALUE;
+import static org.springframework.http.ResponseEntity.ok;
+
+/**
+ * Change feed of patron profiles, letting clients refetch holds and checkouts only when they changed.
+ * <p>
+ * Clients pass the position of the last change they have seen. A request with {@code wait} is held
+ * for up to that many seconds until there is a change (long polling). Clients accepting
+ * {@code text/event-stream} get changes pushed as server-sent events instead, resuming from
+ * the {@code Last-Event-ID} header after a reconnect.
+ * <p>
+ * Changes older than the retention of the feed are deleted. A client whose cursor is older than that
+ * gets a reset, with the latest cursor and a link to the profile, which it reloads before continuing.
+ * <p>
+ * Notifications of the feed only signal a change, the changes are read and sent on the executor
+ * of asynchronous requests.
+ */
+@RestController
+class ProfileChangesController {
+
+    private static final int PAGE_SIZE = 100;
+    private static final long MAX_WAIT_SECONDS = 30;
+    private static final long STREAM_TIMEOUT_MILLIS = Duration.ofMinutes(5).toMillis();
+    private static final String RESET = "RESET";
+
+    private final ProfileChanges profileChanges;
+    private final TaskExecutor requests;
+
+    ProfileChangesController(ProfileChanges profileChanges,
+                             @Qualifier(APPLICATION_TASK_EXECUTOR_BEAN_NAME) TaskExecutor requests) {
+        this.profileChanges = profileChanges;
+        this.requests = requests;
+    }
+
+    @GetMapping("/profiles/{patronId}/changes")
+    DeferredResult<ResponseEntity<ChangesResource>> findChanges(@PathVariable UUID patronId,
+                                                                @RequestParam(defaultValue = "0") long after,
+                                                                @RequestParam(defaultValue = "0") long wait) {
+        long waitSeconds = Math.max(0, Math.min(wait, MAX_WAIT_SECONDS));
+        DeferredResult<ResponseEntity<ChangesResource>> result = new DeferredResult<>(
+                Duration.ofSeconds(waitSeconds).toMillis(),
+                () -> ok(new ChangesResource(patronId, List.empty(), after, waitSeconds)));
+        if (waitSeconds > 0) {
+            Subscription subscription = profileChanges.subscribe(new PatronId(patronId),
+                    () -> requests.execute(() -> completeIfChanged(result, patronId, after, waitSeconds)));
+            result.onCompletion(subscription::cancel);
+        }
+        if (!completeIfChanged(result, patronId, after, waitSeconds) && waitSeconds == 0) {
+            result.setResult(ok(new ChangesResource(patronId, List.empty(), after, waitSeconds)));
+        }
+        return result;
+    }
+
+    private boolean completeIfChanged(DeferredResult<ResponseEntity<ChangesResource>> result, UUID patronId, long after, long waitSeconds) {
+        if (result.isSetOrExpired()) {
+            return true;
+        }
+        List<ProfileChange> changes = profileChanges.after(new PatronId(patronId), after, PAGE_SIZE);
+        if (after < profileChanges.oldestCursor()) {
+            return result.setResult(ok(ChangesResource.reset(patronId, profileChanges.latestCursor(), waitSeconds)));
+        }
+        return !changes.isEmpty() && result.setResult(ok(new ChangesResource(patronId, changes, changes.last().getPosition(), waitSeconds)));
+    }
+
+    @GetMapping(value = "/profiles/{patronId}/changes", produces = TEXT_EVENT_STREAM_VALUE)
+    SseEmitter streamChanges(@PathVariable UUID patronId,
+                             @RequestParam(defaultValue = "0") long after,
+                             @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MILLIS);
+        ChangesStream stream = new ChangesStream(emitter, new PatronId(patronId), lastEventId == null ? after : lastEventId);
+        Subscription subscription = profileChanges.subscribe(new PatronId(patronId), stream::signal);
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(emitter::complete);
+        stream.sendNewChanges();
+        return emitter;
+    }
+
+    private class ChangesStream {
+
+        private final SseEmitter emitter;
+        private final PatronId patronId;
+        private final AtomicBoolean signalled = new AtomicBoolean();
+        private long cursor;
+
+        ChangesStream(SseEmitter emitter, PatronId patronId, long cursor) {
+            this.emitter = emitter;
+            this.patronId = patronId;
+            this.cursor = cursor;
+        }
+
+        /**
+         * Sends the new changes on the executor of requests. Signals coming while sending is scheduled
+         * are covered by that one run.
+         */
+        void signal() {
+            if (signalled.compareAndSet(false, true)) {
+                requests.execute(() -> {
+                    signalled.set(false);
+                    sendNewChanges();
+                });
+            }
+        }
+
+        synchronized void sendNewChanges() {
+            try {
+                boolean more;
+                do {
+                    List<ProfileChange> changes = profileChanges.after(patronId, cursor, PAGE_SIZE);
+                    if (cursor < profileChanges.oldestCursor()) {
+                        sendReset();
+                        more = true;
+                        continue;
+                    }
+                    for (ProfileChange change : changes) {
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(change.getPosition()))
+                                .name(change.getType().name())
+                                .data(new Change(change)));
+                        cursor = change.getPosition();
+                    }
+                    more = changes.size() == PAGE_SIZE;
+                } while (more);
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+            }
+        }
+
+        private void sendReset() throws IOException {
+            cursor = profileChanges.latestCursor();
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(cursor))
+                    .name(RESET)
+                    .data(ChangesResource.reset(patronId.getPatronId(), cursor, 0)));
+        }
+    }
+}
+
+@Value
+class ChangesResource extends RepresentationModel {
+
+    java.util.List<Change> changes;
+    long cursor;
+    boolean reset;
+
+    ChangesResource(UUID patronId, List<ProfileChange> changes, long cursor, long wait) {
+        this(patronId, changes, cursor, wait, false);
+    }
+
+    private ChangesResource(UUID patronId, List<ProfileChange> changes, long cursor, long wait, boolean reset) {
+        this.changes = changes.map(Change::new).toJavaList();
+        this.cursor = cursor;
+        this.reset = reset;
+        add(linkTo(methodOn(ProfileChangesController.class).findChanges(patronId, cursor, wait)).withRel("next"));
+        add(linkTo(methodOn(PatronProfileController.class).patronProfile(patronId)).withRel("profile"));
+    }
+
+    /**
+     * Tells the client it has missed changes already deleted, so it reloads the profile and continues
+     * from the given cursor.
+     */
+    static ChangesResource reset(UUID patronId, long cursor, long wait) {
+        return new ChangesResource(patronId, List.empty(), cursor, wait, true);
+    }
+}
+
+@Value
+class Change {
+
+    long position;
+    ProfileChange.Type type;
+    UUID bookId;
+    Instant when;
+
+    Change(ProfileChange change) {
+        this.position = change.getPosition();
+        this.type = change.getType();
+        this.bookId = change.getBook().getBookId();
+        this.when = change.getWhen();
+    }
+}
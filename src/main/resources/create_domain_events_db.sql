@@ -0,0 +1,20 @@
+CREATE TABLE IF NOT EXISTS domain_events (
+  id BIGINT IDENTITY PRIMARY KEY,
+  event_id UUID NOT NULL UNIQUE,
+  event_type VARCHAR(255) NOT NULL,
+  aggregate_id UUID,
+  occurred_at TIMESTAMP,
+  payload VARBINARY NOT NULL,
+  claimed_by UUID,
+  claimed_until TIMESTAMP,
+  published_at TIMESTAMP,
+  attempts INT DEFAULT 0 NOT NULL,
+  next_attempt_at TIMESTAMP,
+  last_error VARCHAR(1000),
+  dead_lettered_at TIMESTAMP);
+
+CREATE INDEX IF NOT EXISTS domain_events_to_publish_idx ON domain_events (published_at, id);
+CREATE INDEX IF NOT EXISTS domain_events_claimed_by_idx ON domain_events (claimed_by);
+CREATE INDEX IF NOT EXISTS domain_events_dead_lettered_idx ON domain_events (dead_lettered_at);
+
+CREATE SEQUENCE domain_events_seq;
@@ -0,0 +1,13 @@
+CREATE TABLE IF NOT EXISTS patron_event_stream (
+  patron_id UUID NOT NULL,
+  sequence_number BIGINT NOT NULL,
+  event_type VARCHAR(255) NOT NULL,
+  occurred_at TIMESTAMP NOT NULL,
+  payload VARBINARY NOT NULL,
+  PRIMARY KEY (patron_id, sequence_number));
+
+CREATE TABLE IF NOT EXISTS patron_snapshot (
+  patron_id UUID PRIMARY KEY,
+  sequence_number BIGINT NOT NULL,
+  patron_type VARCHAR(100) NOT NULL,
+  state VARBINARY NOT NULL);
@@ -0,0 +1,20 @@
+CREATE TABLE IF NOT EXISTS patron_profile_changes (
+  id BIGINT IDENTITY PRIMARY KEY,
+  position BIGINT UNIQUE,
+  event_id UUID NOT NULL UNIQUE,
+  patron_id UUID NOT NULL,
+  change_type VARCHAR(20) NOT NULL,
+  book_id UUID NOT NULL,
+  occurred_at TIMESTAMP NOT NULL,
+  recorded_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP);
+
+CREATE INDEX IF NOT EXISTS patron_profile_changes_patron_idx ON patron_profile_changes (patron_id, position);
+CREATE INDEX IF NOT EXISTS patron_profile_changes_recorded_at_idx ON patron_profile_changes (recorded_at);
+
+CREATE TABLE IF NOT EXISTS patron_profile_changes_sequence (
+  id INT PRIMARY KEY,
+  last_position BIGINT NOT NULL,
+  purged_position BIGINT NOT NULL DEFAULT 0);
+
+INSERT INTO patron_profile_changes_sequence (id, last_position)
+  SELECT 1, 0 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM patron_profile_changes_sequence WHERE id = 1);
@@ -0,0 +1,7 @@
+CREATE TABLE IF NOT EXISTS processed_events (
+  consumer VARCHAR(64) NOT NULL,
+  event_id UUID NOT NULL,
+  processed_at TIMESTAMP NOT NULL,
+  PRIMARY KEY (consumer, event_id));
+
+CREATE INDEX IF NOT EXISTS processed_events_processed_at_idx ON processed_events (processed_at);
@@ -0,0 +1,107 @@
+package io.pillopl.library.common.events.publisher
+
+import io.pillopl.library.commons.events.DomainEvent
+import io.pillopl.library.commons.events.DomainEvents
+import io.pillopl.library.commons.events.publisher.AfterCommitDomainEventPublisher
+import io.vavr.collection.List
+import org.springframework.transaction.TransactionDefinition
+import org.springframework.transaction.support.AbstractPlatformTransactionManager
+import org.springframework.transaction.support.DefaultTransactionStatus
+import org.springframework.transaction.support.TransactionTemplate
+import spock.lang.Specification
+
+class AfterCommitDomainEventPublisherTest extends Specification {
+
+    java.util.List<List<DomainEvent>> batches = []
+    DomainEvents recordingPublisher = new DomainEvents() {
+        @Override
+        void publish(DomainEvent event) {
+            publish(List.of(event))
+        }
+
+        @Override
+        void publish(List<DomainEvent> events) {
+            batches << events
+        }
+    }
+    AfterCommitDomainEventPublisher publisher = new AfterCommitDomainEventPublisher(recordingPublisher)
+    TransactionTemplate transaction = new TransactionTemplate(new NoOpTransactionManager())
+
+    def "should publish events of a transaction in one batch after it commits"() {
+        given:
+            DomainEvent first = Stub(DomainEvent)
+            DomainEvent second = Stub(DomainEvent)
+            DomainEvent third = Stub(DomainEvent)
+        when:
+            transaction.execute {
+                publisher.publish(List.of(first, second))
+                publisher.publish(third)
+                assert batches.isEmpty()
+            }
+        then:
+            batches == [List.of(first, second, third)]
+    }
+
+    def "should drop events of a rolled back transaction"() {
+        when:
+            transaction.execute { status ->
+                publisher.publish(Stub(DomainEvent))
+                status.setRollbackOnly()
+            }
+        then:
+            batches.isEmpty()
+    }
+
+    def "should keep events of a nested transaction apart"() {
+        given:
+            DomainEvent outer = Stub(DomainEvent)
+            DomainEvent inner = Stub(DomainEvent)
+            TransactionTemplate newTransaction = new TransactionTemplate(new NoOpTransactionManager())
+            newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW)
+        when:
+            transaction.execute {
+                publisher.publish(outer)
+                newTransaction.execute { publisher.publish(inner) }
+            }
+        then:
+            batches == [List.of(inner), List.of(outer)]
+    }
+
+    def "should publish immediately outside of a transaction"() {
+        given:
+            DomainEvent event = Stub(DomainEvent)
+        when:
+            publisher.publish(event)
+        then:
+            batches == [List.of(event)]
+    }
+}
+
+class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+    @Override
+    protected Object doGetTransaction() {
+        return new Object()
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+    }
+
+    @Override
+    protected Object doSuspend(Object transaction) {
+        return transaction
+    }
+
+    @Override
+    protected void doResume(Object transaction, Object suspendedResources) {
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+    }
+}
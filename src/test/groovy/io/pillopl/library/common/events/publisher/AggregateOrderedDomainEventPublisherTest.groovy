@@ -0,0 +1,58 @@
+package io.pillopl.library.common.events.publisher
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import io.pillopl.library.commons.events.DomainEvent
+import io.pillopl.library.commons.events.DomainEvents
+import io.pillopl.library.commons.events.publisher.AggregateOrderedDomainEventPublisher
+import spock.lang.Specification
+
+import java.time.Instant
+
+class AggregateOrderedDomainEventPublisherTest extends Specification {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+    Map<UUID, List<Integer>> delivered = [:].asSynchronized()
+    Map<UUID, Set<Thread>> deliveredOn = [:].asSynchronized()
+
+    DomainEvents recordingDelegate = { DomainEvent event ->
+        SequencedEvent sequenced = event as SequencedEvent
+        delivered.computeIfAbsent(sequenced.aggregateId, { [].asSynchronized() }) << sequenced.sequence
+        deliveredOn.computeIfAbsent(sequenced.aggregateId, { ([] as Set).asSynchronized() }) << Thread.currentThread()
+    } as DomainEvents
+
+    def "should deliver events of every aggregate in publication order on a single lane"() {
+        given:
+            AggregateOrderedDomainEventPublisher publisher = new AggregateOrderedDomainEventPublisher(recordingDelegate, meterRegistry, 4, 16)
+            List<UUID> aggregates = (1..8).collect { UUID.randomUUID() }
+        when:
+            (1..100).each { sequence ->
+                aggregates.each { aggregate -> publisher.publish(new SequencedEvent(aggregate, sequence)) }
+            }
+            publisher.close()
+        then:
+            aggregates.every { delivered[it] == (1..100).toList() }
+            aggregates.every { deliveredOn[it].size() == 1 }
+    }
+
+    def "should report depth of every lane"() {
+        when:
+            AggregateOrderedDomainEventPublisher publisher = new AggregateOrderedDomainEventPublisher(recordingDelegate, meterRegistry, 3, 16)
+        then:
+            meterRegistry.get("domain_events_queue_depth").gauges().size() == 3
+        cleanup:
+            publisher.close()
+    }
+}
+
+class SequencedEvent implements DomainEvent {
+
+    final UUID eventId = UUID.randomUUID()
+    final UUID aggregateId
+    final Instant when = Instant.now()
+    final int sequence
+
+    SequencedEvent(UUID aggregateId, int sequence) {
+        this.aggregateId = aggregateId
+        this.sequence = sequence
+    }
+}
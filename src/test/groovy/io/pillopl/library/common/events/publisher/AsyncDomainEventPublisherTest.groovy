@@ -0,0 +1,115 @@
+package io.pillopl.library.common.events.publisher
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import io.pillopl.library.commons.events.DomainEvent
+import io.pillopl.library.commons.events.DomainEvents
+import io.pillopl.library.commons.events.publisher.AsyncDomainEventPublisher
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+
+import static io.pillopl.library.commons.events.publisher.AsyncDomainEventPublisher.BackpressurePolicy.BLOCK
+import static io.pillopl.library.commons.events.publisher.AsyncDomainEventPublisher.BackpressurePolicy.CALLER_RUNS
+import static io.pillopl.library.commons.events.publisher.AsyncDomainEventPublisher.BackpressurePolicy.REJECT
+
+class AsyncDomainEventPublisherTest extends Specification {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+    CountDownLatch release = new CountDownLatch(1)
+    List<Thread> deliveredOn = [].asSynchronized()
+
+    DomainEvents blockingDelegate = { DomainEvent event ->
+        deliveredOn << Thread.currentThread()
+        release.await(5, TimeUnit.SECONDS)
+    } as DomainEvents
+
+    def "should deliver events on a worker thread"() {
+        given:
+            AsyncDomainEventPublisher publisher = new AsyncDomainEventPublisher(blockingDelegate, meterRegistry, 1, 10, REJECT)
+        when:
+            publisher.publish(Stub(DomainEvent))
+            release.countDown()
+            publisher.close()
+        then:
+            deliveredOn.size() == 1
+            deliveredOn[0] != Thread.currentThread()
+    }
+
+    def "should reject events when queue is full"() {
+        given:
+            AsyncDomainEventPublisher publisher = new AsyncDomainEventPublisher(blockingDelegate, meterRegistry, 1, 1, REJECT)
+        and:
+            publisher.publish(Stub(DomainEvent))
+            publisher.publish(Stub(DomainEvent))
+        when:
+            publisher.publish(Stub(DomainEvent))
+        then:
+            thrown(RejectedExecutionException)
+        cleanup:
+            release.countDown()
+            publisher.close()
+    }
+
+    def "should not lose events when queue is full and caller runs"() {
+        given:
+            AsyncDomainEventPublisher publisher = new AsyncDomainEventPublisher(blockingDelegate, meterRegistry, 1, 1, CALLER_RUNS)
+        and:
+            release.countDown()
+            publisher.publish(Stub(DomainEvent))
+            publisher.publish(Stub(DomainEvent))
+        when:
+            publisher.publish(Stub(DomainEvent))
+            publisher.close()
+        then:
+            deliveredOn.size() == 3
+    }
+
+    def "should report queue depth"() {
+        given:
+            AsyncDomainEventPublisher publisher = new AsyncDomainEventPublisher(blockingDelegate, meterRegistry, 1, 10, REJECT)
+        when:
+            publisher.publish(Stub(DomainEvent))
+            publisher.publish(Stub(DomainEvent))
+            publisher.publish(Stub(DomainEvent))
+        then:
+            meterRegistry.get("domain_events_queue_depth").gauge().value() >= 2.0
+        cleanup:
+            release.countDown()
+            publisher.close()
+    }
+
+    def "should count events the delegate failed to deliver"() {
+        given:
+            DomainEvents failingDelegate = { DomainEvent event -> throw new IllegalStateException() } as DomainEvents
+            AsyncDomainEventPublisher publisher = new AsyncDomainEventPublisher(failingDelegate, meterRegistry, 1, 10, REJECT)
+        when:
+            publisher.publish(Stub(DomainEvent))
+            publisher.publish(Stub(DomainEvent))
+            publisher.close()
+        then:
+            meterRegistry.get("domain_events_delivery_failures").counter().count() == 2.0
+    }
+
+    def "should reject events waiting for room once shut down"() {
+        given:
+            AsyncDomainEventPublisher publisher = new AsyncDomainEventPublisher(blockingDelegate, meterRegistry, 1, 1, BLOCK)
+        and:
+            publisher.publish(Stub(DomainEvent))
+            publisher.publish(Stub(DomainEvent))
+        when:
+            Thread closing = Thread.start {
+                publisher.close()
+            }
+            while (closing.state != Thread.State.TIMED_WAITING) {
+                Thread.sleep(10)
+            }
+            publisher.publish(Stub(DomainEvent))
+        then:
+            thrown(RejectedExecutionException)
+        cleanup:
+            release.countDown()
+            closing?.join()
+    }
+}
@@ -0,0 +1,241 @@
+package io.pillopl.library.common.events.publisher
+
+import io.pillopl.library.commons.events.DomainEvent
+import io.pillopl.library.commons.events.publisher.BinaryDomainEventSerializer
+import io.pillopl.library.commons.events.publisher.EventCodec
+import io.pillopl.library.commons.events.publisher.EventCodecs
+import io.pillopl.library.commons.events.publisher.JournalEventsStorage
+import io.vavr.collection.List
+import groovy.transform.EqualsAndHashCode
+import org.springframework.transaction.support.TransactionSynchronization
+import org.springframework.transaction.support.TransactionSynchronizationManager
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+import java.time.Instant
+
+import static io.pillopl.library.commons.events.publisher.BinaryFields.getInstant
+import static io.pillopl.library.commons.events.publisher.BinaryFields.getUuid
+import static io.pillopl.library.commons.events.publisher.BinaryFields.putInstant
+import static io.pillopl.library.commons.events.publisher.BinaryFields.putUuid
+import static java.nio.file.StandardOpenOption.WRITE
+
+class JournalEventsStorageTest extends Specification {
+
+    static final int SEGMENT_SIZE = 1024
+
+    Path directory = Files.createTempDirectory("journal")
+    BinaryDomainEventSerializer serializer = new BinaryDomainEventSerializer(List.of(new JournalTestEventCodecs()))
+    JournalEventsStorage journal = open()
+
+    def cleanup() {
+        journal.close()
+        directory.toFile().deleteDir()
+    }
+
+    def "should hand out saved events in the order they were appended"() {
+        given:
+            List<DomainEvent> events = anyEvents(3)
+        when:
+            journal.save(events)
+        then:
+            journal.toPublish() == events
+    }
+
+    def "should not hand out events again once published"() {
+        given:
+            journal.save(anyEvents(3))
+        when:
+            journal.published(journal.toPublish())
+        then:
+            journal.toPublish().isEmpty()
+    }
+
+    def "should continue from checkpoint after reopening"() {
+        given:
+            List<DomainEvent> events = anyEvents(4)
+            journal.save(events)
+            journal.published(journal.toPublish().take(2))
+        when:
+            reopen()
+        then:
+            journal.toPublish() == events.drop(2)
+    }
+
+    def "should roll segments and delete the published ones"() {
+        given:
+            List<DomainEvent> events = anyEvents(100)
+            journal.save(events)
+        when:
+            List<DomainEvent> published = List.empty()
+            List<DomainEvent> batch
+            while (!(batch = journal.toPublish()).isEmpty()) {
+                journal.published(batch)
+                published = published.appendAll(batch)
+            }
+        then:
+            published == events
+            segmentFiles().size() == 1
+    }
+
+    def "should discard a torn record at the end of the journal"() {
+        given:
+            List<DomainEvent> events = anyEvents(3)
+            journal.save(events)
+            journal.close()
+        and:
+            corruptLastRecord()
+        when:
+            journal = open()
+        then:
+            journal.toPublish() == events.take(2)
+        when:
+            DomainEvent appended = new JournalTestEvent(UUID.randomUUID(), Instant.now())
+            journal.save(appended)
+        then:
+            journal.toPublish() == events.take(2).append(appended)
+    }
+
+    def "should not hold back events published after a failed one"() {
+        given:
+            List<DomainEvent> events = anyEvents(3)
+            journal.save(events)
+            List<DomainEvent> batch = journal.toPublish()
+        when:
+            journal.published(List.of(batch.get(0), batch.get(2)))
+            journal.failed(batch.get(1), new IllegalStateException())
+        then:
+            journal.toPublish() == List.of(events.get(1))
+        when:
+            journal.published(List.of(events.get(1)))
+            reopen()
+        then:
+            journal.toPublish().isEmpty()
+    }
+
+    def "should dead-letter an event once it failed too many times"() {
+        given:
+            List<DomainEvent> events = anyEvents(2)
+            journal.save(events)
+        expect:
+            journal.failed(journal.toPublish().head(), new IllegalStateException("first"))
+            !journal.failed(journal.toPublish().head(), new IllegalStateException("second"))
+        and:
+            journal.toPublish() == events.drop(1)
+        when:
+            journal.published(events.drop(1))
+            reopen()
+        then:
+            journal.toPublish().isEmpty()
+            journal.deadLetters(10).map { it.eventId } == List.of(events.get(0).eventId)
+            journal.deadLetters(10).head().attempts == 2
+    }
+
+    def "should hand out a requeued event again"() {
+        given:
+            DomainEvent event = anyEvents(1).head()
+            journal.save(event)
+            2.times { journal.failed(journal.toPublish().head(), new IllegalStateException()) }
+        when:
+            boolean requeued = journal.requeue(event.eventId)
+        then:
+            requeued
+            journal.deadLetters(10).isEmpty()
+            journal.toPublish() == List.of(event)
+    }
+
+    def "should append events saved within a transaction only once it commits"() {
+        given:
+            List<DomainEvent> events = anyEvents(2)
+        when:
+            inTransaction(true) {
+                journal.save(events)
+                assert journal.toPublish().isEmpty()
+            }
+        then:
+            journal.toPublish() == events
+    }
+
+    def "should not append events saved within a transaction that rolled back"() {
+        when:
+            inTransaction(false) {
+                journal.save(anyEvents(2))
+            }
+        then:
+            journal.toPublish().isEmpty()
+    }
+
+    void inTransaction(boolean commit, Closure work) {
+        TransactionSynchronizationManager.initSynchronization()
+        try {
+            work()
+            java.util.List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.synchronizations
+            if (commit) {
+                synchronizations.each { it.beforeCommit(false) }
+            }
+            synchronizations.each {
+                it.afterCompletion(commit ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK)
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization()
+        }
+    }
+
+    JournalEventsStorage open() {
+        return new JournalEventsStorage(directory, serializer, SEGMENT_SIZE, 10, Duration.ZERO, 2, Duration.ZERO, Duration.ZERO)
+    }
+
+    void reopen() {
+        journal.close()
+        journal = open()
+    }
+
+    java.util.List<Path> segmentFiles() {
+        return Files.list(directory).withCloseable { files -> files.filter { it.toString().endsWith(".segment") }.collect() }
+    }
+
+    void corruptLastRecord() {
+        int recordSize = 8 + 2 + 16 + 12
+        FileChannel.open(segmentFiles().first(), WRITE).withCloseable { channel ->
+            channel.write(ByteBuffer.wrap([0x7f] as byte[]), 2 * recordSize + 8 + 5)
+        }
+    }
+
+    static List<DomainEvent> anyEvents(int count) {
+        return List.ofAll((1..count).collect { new JournalTestEvent(UUID.randomUUID(), Instant.now()) })
+    }
+}
+
+@EqualsAndHashCode
+class JournalTestEvent implements DomainEvent {
+
+    final UUID eventId
+    final Instant when
+
+    JournalTestEvent(UUID eventId, Instant when) {
+        this.eventId = eventId
+        this.when = when
+    }
+
+    @Override
+    UUID getAggregateId() {
+        return eventId
+    }
+}
+
+class JournalTestEventCodecs implements EventCodecs {
+
+    @Override
+    List<EventCodec<?>> codecs() {
+        return List.of(EventCodec.of(JournalTestEvent, 100,
+                { JournalTestEvent event, ByteBuffer out ->
+                    putUuid(out, event.eventId)
+                    putInstant(out, event.when)
+                },
+                { ByteBuffer input -> new JournalTestEvent(getUuid(input), getInstant(input)) }))
+    }
+}
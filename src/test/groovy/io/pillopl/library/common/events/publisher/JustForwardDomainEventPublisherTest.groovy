@@ -0,0 +1,81 @@
+package io.pillopl.library.common.events.publisher
+
+import io.pillopl.library.commons.events.BatchEventListener
+import io.pillopl.library.commons.events.DomainEvent
+import io.pillopl.library.commons.events.publisher.BatchEventListeners
+import io.pillopl.library.commons.events.publisher.JustForwardDomainEventPublisher
+import io.vavr.collection.List
+import org.springframework.context.ApplicationEventPublisher
+import spock.lang.Specification
+
+import java.time.Instant
+
+class JustForwardDomainEventPublisherTest extends Specification {
+
+    ApplicationEventPublisher applicationEventPublisher = Mock()
+    RecordingBatchListener batchListener = new RecordingBatchListener()
+    JustForwardDomainEventPublisher publisher =
+            new JustForwardDomainEventPublisher(applicationEventPublisher, BatchEventListeners.of(batchListener))
+
+    def "should hand runs of events of the same type to batch listeners in one call"() {
+        given:
+            BatchedEvent first = new BatchedEvent()
+            BatchedEvent second = new BatchedEvent()
+            DomainEvent other = new UnbatchedEvent()
+            BatchedEvent third = new BatchedEvent()
+        when:
+            publisher.publish(List.of(first, second, other, third))
+        then:
+            batchListener.batches == [List.of(first, second), List.of(third)]
+    }
+
+    def "should pass a single event to batch listeners as a list of one"() {
+        given:
+            BatchedEvent event = new BatchedEvent()
+        when:
+            publisher.publish(event)
+        then:
+            batchListener.batches == [List.of(event)]
+    }
+
+    def "should keep forwarding every event one by one"() {
+        given:
+            BatchedEvent batched = new BatchedEvent()
+            DomainEvent other = new UnbatchedEvent()
+        when:
+            publisher.publish(List.of(batched, other))
+        then:
+            1 * applicationEventPublisher.publishEvent(batched)
+        then:
+            1 * applicationEventPublisher.publishEvent(other)
+    }
+}
+
+class RecordingBatchListener implements BatchEventListener<BatchedEvent> {
+
+    java.util.List<List<BatchedEvent>> batches = []
+
+    @Override
+    Class<BatchedEvent> eventType() {
+        return BatchedEvent
+    }
+
+    @Override
+    void handle(List<BatchedEvent> events) {
+        batches << events
+    }
+}
+
+class BatchedEvent implements DomainEvent {
+
+    final UUID eventId = UUID.randomUUID()
+    final UUID aggregateId = UUID.randomUUID()
+    final Instant when = Instant.now()
+}
+
+class UnbatchedEvent implements DomainEvent {
+
+    final UUID eventId = UUID.randomUUID()
+    final UUID aggregateId = UUID.randomUUID()
+    final Instant when = Instant.now()
+}
@@ -0,0 +1,43 @@
+package io.pillopl.library.common.events.publisher
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import io.pillopl.library.commons.events.DomainEvent
+import io.pillopl.library.commons.events.DomainEvents
+import io.pillopl.library.commons.events.publisher.MeteredDomainEventPublisher
+import spock.lang.Specification
+
+import java.time.Instant
+
+class MeteredDomainEventPublisherTest extends Specification {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    def "should measure time of publishing events by event type"() {
+        given:
+            MeteredDomainEventPublisher publisher = new MeteredDomainEventPublisher({ DomainEvent event -> } as DomainEvents, meterRegistry)
+        when:
+            publisher.publish(new MeteredEvent())
+            publisher.publish(new MeteredEvent())
+        then:
+            meterRegistry.get("domain_events_publish").tag("name", "MeteredEvent").timer().count() == 2
+            meterRegistry.get("domain_events").tag("name", "MeteredEvent").counter().count() == 2.0
+    }
+
+    def "should count failed publications by event type and exception type"() {
+        given:
+            MeteredDomainEventPublisher publisher = new MeteredDomainEventPublisher({ DomainEvent event -> throw new IllegalStateException() } as DomainEvents, meterRegistry)
+        when:
+            publisher.publish(new MeteredEvent())
+        then:
+            thrown(IllegalStateException)
+            meterRegistry.get("domain_events_failures").tags("name", "MeteredEvent", "exception", "IllegalStateException").counter().count() == 1.0
+            meterRegistry.get("domain_events").tag("name", "MeteredEvent").counter().count() == 0.0
+    }
+}
+
+class MeteredEvent implements DomainEvent {
+
+    final UUID eventId = UUID.randomUUID()
+    final UUID aggregateId = UUID.randomUUID()
+    final Instant when = Instant.now()
+}
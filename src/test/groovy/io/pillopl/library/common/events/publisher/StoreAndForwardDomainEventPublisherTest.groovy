@@ -0,0 +1,137 @@
+package io.pillopl.library.common.events.publisher
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import io.pillopl.library.commons.events.DomainEvent
+import io.pillopl.library.commons.events.DomainEvents
+import io.pillopl.library.commons.events.publisher.EventsStorage
+import io.pillopl.library.commons.events.publisher.StoreAndForwardDomainEventPublisher
+import io.vavr.collection.List
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.time.Duration
+
+class StoreAndForwardDomainEventPublisherTest extends Specification {
+
+    java.util.List<DomainEvent> delivered = [].asSynchronized()
+    DomainEvents recordingPublisher = new DomainEvents() {
+        @Override
+        void publish(DomainEvent event) {
+            delivered << event
+        }
+    }
+    BatchingEventsStorage storage = new BatchingEventsStorage(2)
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    StoreAndForwardDomainEventPublisher publisher = new StoreAndForwardDomainEventPublisher(
+            recordingPublisher, storage, { it.doInTransaction(null) }, Duration.ofMillis(10), Duration.ofMinutes(1))
+
+    def cleanup() {
+        publisher.close()
+    }
+
+    def "should publish saved events without waiting for the idle interval"() {
+        given:
+            publisher.start()
+            sleep(100)
+        when:
+            publisher.publish(Stub(DomainEvent))
+        then:
+            new PollingConditions(timeout: 2).eventually {
+                assert delivered.size() == 1
+            }
+    }
+
+    def "should publish stored events batch by batch until storage is empty"() {
+        given:
+            java.util.List<DomainEvent> events = (1..5).collect { Stub(DomainEvent) }
+            events.each { storage.save(it) }
+        when:
+            int published = publisher.publishAll()
+        then:
+            published == 5
+            delivered == events
+            storage.toPublish().isEmpty()
+    }
+
+    def "should publish the other events of a batch when one of them fails"() {
+        given:
+            DomainEvent poisonous = Stub(DomainEvent)
+            DomainEvent healthy = Stub(DomainEvent)
+            storage.save(poisonous)
+            storage.save(healthy)
+        and:
+            StoreAndForwardDomainEventPublisher publisher = new StoreAndForwardDomainEventPublisher(
+                    failingOn(poisonous), storage, { it.doInTransaction(null) }, Duration.ofMillis(10), Duration.ofMinutes(1), meterRegistry)
+        when:
+            int published = publisher.publishAll()
+        then:
+            published == 1
+            delivered == [healthy]
+            storage.failures == [poisonous]
+        and:
+            meterRegistry.get("domain_events_retries").counter().count() == 1.0
+    }
+
+    def "should count events the storage gave up on as dead-lettered"() {
+        given:
+            DomainEvent poisonous = Stub(DomainEvent)
+            storage.save(poisonous)
+            storage.retried = false
+        and:
+            StoreAndForwardDomainEventPublisher publisher = new StoreAndForwardDomainEventPublisher(
+                    failingOn(poisonous), storage, { it.doInTransaction(null) }, Duration.ofMillis(10), Duration.ofMinutes(1), meterRegistry)
+        when:
+            publisher.publishAll()
+        then:
+            meterRegistry.get("domain_events_dead_lettered").counter().count() == 1.0
+    }
+
+    DomainEvents failingOn(DomainEvent poisonous) {
+        return new DomainEvents() {
+            @Override
+            void publish(DomainEvent event) {
+                if (event.is(poisonous)) {
+                    throw new IllegalStateException("cannot publish")
+                }
+                delivered << event
+            }
+        }
+    }
+}
+
+class BatchingEventsStorage implements EventsStorage {
+
+    private final int batchSize
+    private final java.util.List<DomainEvent> events = [].asSynchronized()
+    final java.util.List<DomainEvent> failures = [].asSynchronized()
+    boolean retried = true
+
+    BatchingEventsStorage(int batchSize) {
+        this.batchSize = batchSize
+    }
+
+    @Override
+    void save(DomainEvent event) {
+        events << event
+    }
+
+    @Override
+    List<DomainEvent> toPublish() {
+        return List.ofAll(events).take(batchSize)
+    }
+
+    @Override
+    void published(List<DomainEvent> published) {
+        events.removeAll(published.asJava())
+    }
+
+    @Override
+    boolean failed(DomainEvent event, Exception cause) {
+        failures << event
+        if (!retried) {
+            events.remove(event)
+        }
+        return retried
+    }
+}
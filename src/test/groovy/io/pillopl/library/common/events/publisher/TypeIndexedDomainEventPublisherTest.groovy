@@ -0,0 +1,77 @@
+package io.pillopl.library.common.events.publisher
+
+import io.pillopl.library.commons.events.DomainEvent
+import io.pillopl.library.commons.events.publisher.TypeIndexedDomainEventPublisher
+import org.springframework.context.annotation.AnnotationConfigApplicationContext
+import org.springframework.context.event.EventListener
+import spock.lang.Specification
+
+import java.time.Instant
+
+class TypeIndexedDomainEventPublisherTest extends Specification {
+
+    AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()
+
+    def setup() {
+        context.registerBean(RecordingListener)
+        context.registerBean(TypeIndexedDomainEventPublisher, context)
+        context.refresh()
+    }
+
+    def cleanup() {
+        context.close()
+    }
+
+    def "should call listeners of the event type and of its supertypes"() {
+        given:
+            TypeIndexedDomainEventPublisher publisher = context.getBean(TypeIndexedDomainEventPublisher)
+            RecordingListener listener = context.getBean(RecordingListener)
+            IndexedEvent event = new IndexedEvent()
+        when:
+            publisher.publish(event)
+        then:
+            listener.indexedEvents == [event]
+            listener.domainEvents == [event]
+    }
+
+    def "should not call listeners of other event types"() {
+        given:
+            TypeIndexedDomainEventPublisher publisher = context.getBean(TypeIndexedDomainEventPublisher)
+            RecordingListener listener = context.getBean(RecordingListener)
+        when:
+            publisher.publish(new OtherIndexedEvent())
+        then:
+            listener.indexedEvents.isEmpty()
+            listener.domainEvents.size() == 1
+    }
+}
+
+class RecordingListener {
+
+    java.util.List<IndexedEvent> indexedEvents = []
+    java.util.List<DomainEvent> domainEvents = []
+
+    @EventListener
+    void handle(IndexedEvent event) {
+        indexedEvents << event
+    }
+
+    @EventListener
+    void handleAny(DomainEvent event) {
+        domainEvents << event
+    }
+}
+
+class IndexedEvent implements DomainEvent {
+
+    final UUID eventId = UUID.randomUUID()
+    final UUID aggregateId = UUID.randomUUID()
+    final Instant when = Instant.now()
+}
+
+class OtherIndexedEvent implements DomainEvent {
+
+    final UUID eventId = UUID.randomUUID()
+    final UUID aggregateId = UUID.randomUUID()
+    final Instant when = Instant.now()
+}
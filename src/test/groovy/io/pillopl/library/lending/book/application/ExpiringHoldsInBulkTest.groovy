@@ -0,0 +1,45 @@
+package io.pillopl.library.lending.book.application
+
+import io.pillopl.library.commons.events.DomainEvents
+import io.pillopl.library.lending.book.model.Book
+import io.pillopl.library.lending.book.model.BookOnHold
+import io.pillopl.library.lending.book.model.BookRepository
+import io.pillopl.library.lending.patron.model.PatronEvent.BookHoldExpired
+import io.vavr.collection.List
+import io.vavr.control.Option
+import spock.lang.Specification
+
+import static io.pillopl.library.lending.book.model.BookFixture.bookOnHold
+
+class ExpiringHoldsInBulkTest extends Specification {
+
+    BookOnHold firstBook = bookOnHold()
+    BookOnHold secondBook = bookOnHold()
+    BookRepository bookRepository = Mock()
+    PatronEventsHandler patronEventsHandler = new PatronEventsHandler(bookRepository, Mock(DomainEvents))
+
+    def setup() {
+        bookRepository.findBy(firstBook.bookId) >> Option.of(firstBook)
+        bookRepository.findBy(secondBook.bookId) >> Option.of(secondBook)
+    }
+
+    def 'should save only the first expiration of a book in bulk and apply the others one by one'() {
+        when:
+            patronEventsHandler.handle(List.of(expired(firstBook), expired(secondBook), expired(firstBook)))
+        then:
+            1 * bookRepository.saveAll({ it.size() == 2 }) >> List.empty()
+            1 * bookRepository.save(_ as Book)
+    }
+
+    def 'should expire again only the holds of books found stale'() {
+        when:
+            patronEventsHandler.handle(List.of(expired(firstBook), expired(secondBook)))
+        then:
+            1 * bookRepository.saveAll(_) >> { args -> List.of(args[0].find { it.bookId() == firstBook.bookId }) }
+            1 * bookRepository.save(_ as Book)
+    }
+
+    BookHoldExpired expired(BookOnHold book) {
+        return BookHoldExpired.now(book.bookId, book.byPatron, book.holdPlacedAt)
+    }
+}
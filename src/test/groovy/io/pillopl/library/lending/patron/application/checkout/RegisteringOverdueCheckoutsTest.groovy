@@ -54,6 +54,7 @@ class RegisteringOverdueCheckoutsTest extends Specification {
     }
 
     void registeringOverdueCheckoutWillFailForSecondPatron() {
+        repository.publish(_ as io.vavr.collection.List) >> { throw new IllegalStateException() }
         repository.publish(_ as PatronEvent) >>> [regularPatron(), { throw new IllegalStateException() }]
     }
 
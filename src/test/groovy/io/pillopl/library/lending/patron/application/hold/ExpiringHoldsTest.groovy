@@ -51,7 +51,20 @@ class ExpiringHoldsTest extends Specification {
 
     }
 
+    def 'should expire all holds in one batch'() {
+        given:
+            Patrons patrons = Mock()
+            ExpiringHolds expiringInBatch = new ExpiringHolds(dailySheet, patrons)
+        when:
+            Try<BatchResult> result = expiringInBatch.expireHolds()
+        then:
+            result.get() == BatchResult.FullSuccess
+            1 * patrons.publish({ it instanceof io.vavr.collection.List && it.size() == 2 })
+            0 * patrons.publish(_ as PatronEvent)
+    }
+
     void expiringHoldWillFailForSecondPatron() {
+        repository.publish(_ as io.vavr.collection.List) >> { throw new IllegalStateException() }
         repository.publish(_ as PatronEvent) >>> [null, { throw new IllegalStateException() }]
     }
 
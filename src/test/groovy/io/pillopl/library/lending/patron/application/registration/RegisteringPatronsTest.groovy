@@ -0,0 +1,56 @@
+package io.pillopl.library.lending.patron.application.registration
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import io.pillopl.library.commons.commands.BatchResult
+import io.pillopl.library.lending.patron.model.PatronEvent
+import io.pillopl.library.lending.patron.model.Patrons
+import io.vavr.collection.Stream
+import io.vavr.control.Try
+import spock.lang.Specification
+
+import static io.pillopl.library.lending.patron.model.PatronFixture.anyPatronId
+import static io.pillopl.library.lending.patron.model.PatronFixture.regularPatron
+import static io.pillopl.library.lending.patron.model.PatronType.Regular
+import static io.pillopl.library.lending.patron.model.PatronType.Researcher
+
+class RegisteringPatronsTest extends Specification {
+
+    Patrons repository = Mock()
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    RegisteringPatrons registeringPatrons = new RegisteringPatrons(repository, 2, meterRegistry)
+
+    def 'should publish patrons created in chunks'() {
+        when:
+            Try<BatchResult> result = registeringPatrons.register(fivePatrons().iterator())
+        then:
+            2 * repository.publish({ it.size() == 2 } as io.vavr.collection.List)
+            1 * repository.publish({ it.size() == 1 } as io.vavr.collection.List)
+        and:
+            result.get() == BatchResult.FullSuccess
+            registered() == 5
+    }
+
+    def 'should register patrons of a failed chunk one by one'() {
+        given:
+            repository.publish(_ as io.vavr.collection.List) >> { throw new IllegalStateException() }
+            repository.publish(_ as PatronEvent) >> regularPatron() >> { throw new IllegalStateException() } >> regularPatron()
+        when:
+            Try<BatchResult> result = registeringPatrons.register(Stream.of(
+                    new RegisterPatronCommand(anyPatronId(), Regular),
+                    new RegisterPatronCommand(anyPatronId(), Regular),
+                    new RegisterPatronCommand(anyPatronId(), Researcher)).iterator())
+        then:
+            result.isSuccess()
+            result.get() == BatchResult.SomeFailed
+            registered() == 2
+    }
+
+    Stream<RegisterPatronCommand> fivePatrons() {
+        return Stream.range(0, 5).map { new RegisterPatronCommand(anyPatronId(), Regular) }
+    }
+
+    double registered() {
+        return meterRegistry.counter("patron_registration_patrons", "result", "registered").count()
+    }
+}
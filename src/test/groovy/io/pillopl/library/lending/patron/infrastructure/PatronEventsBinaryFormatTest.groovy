@@ -0,0 +1,75 @@
+package io.pillopl.library.lending.patron.infrastructure
+
+import io.pillopl.library.catalogue.BookType
+import io.pillopl.library.commons.events.DomainEvent
+import io.pillopl.library.commons.events.publisher.BinaryDomainEventSerializer
+import io.pillopl.library.lending.patron.model.PatronEvent
+import io.pillopl.library.lending.patron.model.PatronType
+import io.vavr.collection.List
+import io.vavr.control.Option
+import spock.lang.Specification
+
+import java.time.Instant
+
+class PatronEventsBinaryFormatTest extends Specification {
+
+    static final Random random = new Random()
+
+    BinaryDomainEventSerializer serializer = new BinaryDomainEventSerializer(List.of(new PatronEventCodecs()))
+
+    def "should read back every patron event exactly as it was written"() {
+        expect:
+            serializer.deserialize(serializer.serialize(event)) == event
+        where:
+            event << (1..50).collectMany { anyOfEveryPatronEvent() }
+    }
+
+    def "should write UUIDs, instants and enums in fixed size"() {
+        given:
+            DomainEvent event = new PatronEvent.PatronCreated(anyInstant(), UUID.randomUUID(), PatronType.Regular)
+        expect:
+            serializer.serialize(event).length == 2 + 16 + 12 + 16 + 1
+    }
+
+    def "should not read payload of unknown event type"() {
+        when:
+            serializer.deserialize([99, 1] as byte[])
+        then:
+            thrown(IllegalStateException)
+    }
+
+    static java.util.List<PatronEvent> anyOfEveryPatronEvent() {
+        PatronEvent.BookPlacedOnHold placedOnHold = new PatronEvent.BookPlacedOnHold(anyInstant(), anyId(), anyId(), anyBookType(), anyId(), anyInstant(), random.nextBoolean() ? anyInstant() : null)
+        PatronEvent.MaximumNumberOhHoldsReached maximumReached = new PatronEvent.MaximumNumberOhHoldsReached(anyInstant(), anyId(), random.nextInt(10))
+        return List.of(
+                new PatronEvent.PatronCreated(anyInstant(), anyId(), PatronType.values()[random.nextInt(2)]),
+                placedOnHold,
+                new PatronEvent.BookPlacedOnHoldEvents(placedOnHold.patronId, placedOnHold, random.nextBoolean() ? Option.of(maximumReached) : Option.none()),
+                maximumReached,
+                new PatronEvent.BookCheckedOut(anyInstant(), anyId(), anyId(), anyBookType(), anyId(), anyInstant()),
+                new PatronEvent.BookReturned(anyInstant(), anyId(), anyId(), anyBookType(), anyId()),
+                new PatronEvent.BookHoldFailed(anyReason(), anyInstant(), anyId(), anyId(), anyId()),
+                new PatronEvent.BookCheckingOutFailed(anyReason(), anyInstant(), anyId(), anyId(), anyId()),
+                new PatronEvent.BookHoldCanceled(anyInstant(), anyId(), anyId(), anyId()),
+                new PatronEvent.BookHoldCancelingFailed(anyInstant(), anyId(), anyId(), anyId()),
+                new PatronEvent.BookHoldExpired(anyInstant(), anyId(), anyId(), anyId()),
+                new PatronEvent.OverdueCheckoutRegistered(anyInstant(), anyId(), anyId(), anyId()))
+                .toJavaList()
+    }
+
+    static UUID anyId() {
+        return UUID.randomUUID()
+    }
+
+    static Instant anyInstant() {
+        return Instant.ofEpochSecond(random.nextInt(Integer.MAX_VALUE), random.nextInt(1_000_000_000))
+    }
+
+    static BookType anyBookType() {
+        return BookType.values()[random.nextInt(BookType.values().length)]
+    }
+
+    static String anyReason() {
+        return (1..random.nextInt(40)).collect { (char) (0x20 + random.nextInt(0x2000)) }.join()
+    }
+}
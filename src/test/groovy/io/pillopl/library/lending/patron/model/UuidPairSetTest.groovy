@@ -0,0 +1,69 @@
+package io.pillopl.library.lending.patron.model
+
+import spock.lang.Specification
+
+import static java.util.UUID.randomUUID
+
+class UuidPairSetTest extends Specification {
+
+    def 'should contain only added pairs'() {
+        given:
+            UUID book = randomUUID()
+            UUID branch = randomUUID()
+            UuidPairSet set = new UuidPairSet(1)
+        when:
+            set.add(book, branch)
+        then:
+            set.contains(book, branch)
+            !set.contains(branch, book)
+            !set.contains(book, randomUUID())
+    }
+
+    def 'should not add the same pair twice'() {
+        given:
+            UUID book = randomUUID()
+            UUID branch = randomUUID()
+            UuidPairSet set = new UuidPairSet(1)
+        expect:
+            set.add(book, branch)
+            !set.add(new UUID(book.mostSignificantBits, book.leastSignificantBits), branch)
+            set.size() == 1
+    }
+
+    def 'should keep all pairs when growing past the expected size'() {
+        given:
+            UuidPairSet set = new UuidPairSet(0)
+            List<List<UUID>> pairs = (1..100).collect { [randomUUID(), randomUUID()] }
+        when:
+            pairs.each { set.add(it[0], it[1]) }
+        then:
+            set.size() == 100
+            pairs.every { set.contains(it[0], it[1]) }
+    }
+
+    def 'should count pairs by their first element'() {
+        given:
+            UUID branch = randomUUID()
+            UuidPairSet set = new UuidPairSet(3)
+        when:
+            set.add(branch, randomUUID())
+            set.add(branch, randomUUID())
+            set.add(randomUUID(), randomUUID())
+        then:
+            set.countWithFirst(branch) == 2
+            set.countWithFirst(randomUUID()) == 0
+    }
+
+    def 'should be equal to a set with the same pairs added in a different order'() {
+        given:
+            List<List<UUID>> pairs = (1..10).collect { [randomUUID(), randomUUID()] }
+            UuidPairSet set = new UuidPairSet(10)
+            UuidPairSet reversed = new UuidPairSet(1)
+        when:
+            pairs.each { set.add(it[0], it[1]) }
+            pairs.reverse().each { reversed.add(it[0], it[1]) }
+        then:
+            set == reversed
+            set.hashCode() == reversed.hashCode()
+    }
+}